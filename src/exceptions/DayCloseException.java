@@ -0,0 +1,7 @@
+package exceptions;
+
+public class DayCloseException extends RuntimeException {
+	public DayCloseException(String message) {
+		super(message);
+	}
+}
@@ -0,0 +1,7 @@
+package exceptions;
+
+public class OrderSealedException extends RuntimeException {
+	public OrderSealedException(String message) {
+		super(message);
+	}
+}
@@ -0,0 +1,7 @@
+package exceptions;
+
+public class ProductNotInPricelistException extends RuntimeException {
+	public ProductNotInPricelistException(String message) {
+		super(message);
+	}
+}
@@ -7,6 +7,7 @@ import javafx.scene.layout.GridPane;
 import javafx.stage.Modality;
 import javafx.stage.Stage;
 import model.Order;
+import service.Service;
 
 public class AddCustomerDialog extends Stage {
 	private final Order order;
@@ -30,6 +31,7 @@ public class AddCustomerDialog extends Stage {
 	private final Button btnOldCustomer = new Button("Eksisterende Kunde");
 	private final Button btnCancel = new Button("Fortryd");
 	private final Controller controller = new Controller();
+	private final Service service = Service.getInstance();
 
 	private void initContent(GridPane pane) {
 		pane.setVgap(10);
@@ -50,7 +52,7 @@ public class AddCustomerDialog extends Stage {
 			CreateCustomerDialog cc = new CreateCustomerDialog(getOwner());
 			cc.showAndWait();
 			if (cc.getNewCustomer() != null) {
-				order.setCustomer(cc.getNewCustomer());
+				service.updateOrderCustomer(order, cc.getNewCustomer());
 				close();
 			}
 		}
@@ -59,7 +61,7 @@ public class AddCustomerDialog extends Stage {
 			ExistingCustomers ec = new ExistingCustomers(getOwner());
 			ec.showAndWait();
 			if (ec.getCustomer() != null) {
-				order.setCustomer(ec.getCustomer());
+				service.updateOrderCustomer(order, ec.getCustomer());
 				close();
 			}
 		}
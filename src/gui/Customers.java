@@ -1,6 +1,7 @@
 package gui;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 
 import javafx.beans.value.ChangeListener;
@@ -17,6 +18,7 @@ import javafx.stage.Window;
 import model.Customer;
 import model.Order;
 import storage.Storage;
+import storage.StorageEvent;
 
 public class Customers extends GridPane {
 
@@ -69,6 +71,7 @@ public class Customers extends GridPane {
 		btnAddCustomer.setOnAction(e -> controller.createCustomerDialogAction());
 		btnViewCustomer.setOnAction(e -> controller.viewCustomerAction());
 
+		StorageEvents.getInstance().subscribe(this, controller::applyChanges);
 	}
 
 	private class Controller extends Window {
@@ -91,10 +94,6 @@ public class Customers extends GridPane {
 				Customer c = lvCustomers.getSelectionModel().getSelectedItem();
 				ViewCustomerDialog vc = new ViewCustomerDialog(c);
 				vc.showAndWait();
-
-				lvCustomers.getItems().clear();
-				lvCustomers.getItems().setAll(storage.getCustomers());
-				lvCustomers.getItems().sort(null);
 			}
 		}
 
@@ -113,15 +112,48 @@ public class Customers extends GridPane {
 		public void createCustomerDialogAction() {
 			CreateCustomerDialog cd = new CreateCustomerDialog(owner);
 			cd.showAndWait();
-			updateCustomers(cd.getNewCustomer());
 		}
 
-		public void updateCustomers(Customer c) {
-			if (c != null) {
-				lvCustomers.getItems().add(c);
-				lvCustomers.getItems().sort(null);
+		/**
+		 * Applies the changes to the lists instead of reloading them
+		 */
+		public void applyChanges(List<StorageEvent> events) {
+			for (StorageEvent event : events) {
+				if (event.isAbout(Customer.class)) {
+					Customer c = (Customer) event.getEntity();
+
+					lvCustomers.getItems().remove(c);
+
+					if (event.getType() != StorageEvent.Type.REMOVED) {
+						insertCustomer(c);
+					}
+				} else if (event.isAbout(Order.class)) {
+					Order o = (Order) event.getEntity();
+					Customer selected = lvCustomers.getSelectionModel().getSelectedItem();
+					boolean belongs = selected != null && selected.equals(o.getCustomer());
+					boolean shown = lvOrders.getItems().contains(o);
+
+					if (belongs && !shown) {
+						lvOrders.getItems().add(o);
+					} else if (!belongs && shown) {
+						lvOrders.getItems().remove(o);
+					}
+				}
 			}
 		}
 
+		/**
+		 * Inserts the customer at its sorted position
+		 */
+		private void insertCustomer(Customer c) {
+			int index = Collections.binarySearch(lvCustomers.getItems(), c);
+
+			if (index < 0) {
+				index = -index - 1;
+			}
+
+			lvCustomers.getItems().add(index, c);
+		}
+
 	}
 }
@@ -86,16 +86,13 @@ public class GiftBasketDialog extends Stage {
 		}
 
 		pl.setSelectHandler(p -> {
-			ProductOrder po = order.addProduct(p);
-			po.setGiftStatus();
+			ProductOrder po = order.addGift(p);
 			productTable.addItem(po);
 		});
 
 		pl.setDeselectHandler(p -> {
-			ProductOrder po = order.removeProduct(p);
-			po.setGiftStatus();
+			ProductOrder po = order.removeGift(p);
 			productTable.removeItem(po);
-
 		});
 
 		ScrollPane sp = new ScrollPane();
@@ -77,7 +77,7 @@ public class MainMenu extends GridPane {
 
 	private class Controller {
 		public void selectRentals() {
-			select(new Rentals(owner, x -> selectRentals()));
+			select(new Rentals(owner));
 		}
 
 		public void selectSale() {
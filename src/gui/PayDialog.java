@@ -1,6 +1,7 @@
 package gui;
 
 import java.io.File;
+import java.util.Collections;
 import java.util.Locale;
 
 import exceptions.InvalidPaymentAmount;
@@ -20,8 +21,10 @@ import javafx.scene.paint.Paint;
 import javafx.stage.Modality;
 import javafx.stage.Stage;
 import javafx.util.Pair;
+import model.Money;
 import model.Payable;
-import model.PaymentStatus;
+import model.PaymentResult;
+import model.PaymentSpec;
 import model.PaymentType;
 import service.Service;
 
@@ -148,7 +151,6 @@ public class PayDialog extends Stage {
 
 	class Controller {
 		private boolean endButtonIsAdded = false;
-		private double overpaidAmount;
 
 		public void selectPaymentType(PaymentType paymentType, BorderPane iw) {
 			if (cash.equals(iw)) {
@@ -189,8 +191,7 @@ public class PayDialog extends Stage {
 		}
 
 		public void setTotal() {
-			double remaining = payable.getPrice() - payable.totalPayment()
-					+ overpaidAmount;
+			double remaining = payable.getPrice() - payable.totalPayment();
 
 			if (paymentType == PaymentType.CLIP_CARD) {
 				Pair<Integer, Double> clipPrice = payable.totalClipCardPrice();
@@ -220,54 +221,39 @@ public class PayDialog extends Stage {
 				return;
 			}
 
-			double paymentRemaning = total - payable.totalPayment();
-
-			if (deposit != null) {
+			if (paymentType == PaymentType.CLIP_CARD && amount != Math.rint(amount)) {
+				lError.setText("antallet af klip skal være et helt tal");
+				return;
 			}
 
-			if (paymentType == PaymentType.CLIP_CARD) {
-				paymentRemaning = payable.totalClipCardPrice().getKey();
-			} else {
-				paymentRemaning = payable.getPrice() - payable.totalPayment();
-			}
+			PaymentResult result;
 
 			try {
-				service.createPayment(payable, amount, paymentType);
-				if (paymentRemaning - amount == 0) {
-					endButtonIsAdded = true;
-					Button end = new Button("Ok");
-					end.setOnAction(e -> close());
-					hbTop.getChildren().add(end);
-					lError.setText("");
-					setTotal();
-				}
-
+				result = service.createPayments(payable,
+						Collections.singletonList(new PaymentSpec(paymentType, amount)));
 			} catch (InvalidPaymentAmount exception) {
 				if (paymentType == PaymentType.CLIP_CARD) {
 					lError.setText("Kan ikke overbetale med klippekort");
+				} else {
+					lError.setText(exception.getMessage());
 				}
+				return;
+			}
 
-				if (!endButtonIsAdded) {
-					PaymentStatus status;
-					status = payable.paymentStatus();
-					if (paymentType != PaymentType.CLIP_CARD) {
-						overpaidAmount += paymentRemaning - amount;
-						service.createPayment(payable,
-								amount - (amount - paymentRemaning), paymentType);
-						status = PaymentStatus.ORDERPAID;
-					}
-
-					if (status == PaymentStatus.ORDERPAID
-							|| status == PaymentStatus.DEPOSITPAID) {
-						endButtonIsAdded = true;
-						Button end = new Button("Ok");
-						end.setOnAction(e -> close());
-						hbTop.getChildren().add(end);
-						lError.setText("");
-					}
-				}
-				setTotal();
+			if (result.getChangeDueOre() > 0) {
+				lError.setText("Byttepenge: " + Money.format(result.getChangeDueOre()));
+			} else {
+				lError.setText("");
 			}
+
+			if (result.isPaid() && !endButtonIsAdded) {
+				endButtonIsAdded = true;
+				Button end = new Button("Ok");
+				end.setOnAction(e -> close());
+				hbTop.getChildren().add(end);
+			}
+
+			setTotal();
 		}
 	}
 }
@@ -1,7 +1,12 @@
 package gui;
 
+import java.time.DayOfWeek;
+import java.time.LocalTime;
+import java.time.format.DateTimeParseException;
+import java.time.format.TextStyle;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Locale;
 import java.util.Optional;
 import java.util.regex.Pattern;
 
@@ -16,6 +21,7 @@ import javafx.scene.control.Alert;
 import javafx.scene.control.Alert.AlertType;
 import javafx.scene.control.Button;
 import javafx.scene.control.ButtonType;
+import javafx.scene.control.ComboBox;
 import javafx.scene.control.Label;
 import javafx.scene.control.ScrollPane;
 import javafx.scene.control.ScrollPane.ScrollBarPolicy;
@@ -24,7 +30,10 @@ import javafx.scene.control.TextInputDialog;
 import javafx.scene.layout.GridPane;
 import javafx.scene.layout.HBox;
 import model.Permission;
+import model.PriceChange;
+import model.PriceRule;
 import model.Pricelist;
+import model.PricelistSchedule;
 import model.Product;
 import service.Service;
 
@@ -34,6 +43,12 @@ public class Pricelists extends GridPane {
 	private final Service service = Service.getInstance();
 	private final Pricelist selectedPricelist = service.getSelectedPricelist();
 	private final TextField tfNewPrice = new TextField();
+	private final ComboBox<String> cbDay = new ComboBox<>();
+	private final TextField tfTime = new TextField();
+	private final Label lSchedules = new Label();
+	private final TextField tfPercent = new TextField();
+	private final Button btnUndo = new Button("Fortryd");
+	private PriceChange lastChange;
 	private final ProductList productList;
 	private final Label lError = new Label();
 	private final Table<PricelistElement> table = new Table<>(
@@ -69,13 +84,7 @@ public class Pricelists extends GridPane {
 		table.addColumn(btnC);
 		table.getPane().setMaxWidth(700);
 
-		List<PricelistElement> tests = new ArrayList<>();
-
-		for (Product p : selectedPricelist.getProducts()) {
-			tests.add(new PricelistElement(p, selectedPricelist.getPrice(p)));
-		}
-
-		table.setItems(tests);
+		controller.showPrices();
 		table.getPane().setPrefSize(999, 999);
 
 		ScrollPane sp = new ScrollPane();
@@ -131,6 +140,43 @@ public class Pricelists extends GridPane {
 		hbox2.setMaxWidth(400);
 		add(hbox2, 0, 1);
 
+		cbDay.getItems().add("Alle dage");
+		for (DayOfWeek day : DayOfWeek.values()) {
+			cbDay.getItems().add(day.getDisplayName(TextStyle.FULL, new Locale("da")));
+		}
+		cbDay.getSelectionModel().select(0);
+
+		tfTime.setPromptText("tt:mm");
+		tfTime.setMaxWidth(70);
+
+		Button btnSchedule = new Button("Skift automatisk hertil");
+		btnSchedule.setOnAction(e -> controller.schedulePricelist());
+
+		Button btnRemoveSchedules = new Button("Fjern skift");
+		btnRemoveSchedules.setOnAction(e -> controller.removeSchedules());
+
+		HBox hbox3 = new HBox();
+		hbox3.getChildren().addAll(cbDay, tfTime, btnSchedule, btnRemoveSchedules);
+		hbox3.setSpacing(10);
+		hbox3.setAlignment(Pos.BASELINE_LEFT);
+		add(hbox3, 0, 2);
+		add(lSchedules, 1, 2);
+
+		controller.showSchedules();
+
+		tfPercent.setPromptText("Procent");
+		tfPercent.setMaxWidth(70);
+
+		Button btnReprice = new Button("Juster priser");
+		btnReprice.setOnAction(e -> controller.reprice());
+
+		btnUndo.setOnAction(e -> controller.undoReprice());
+		btnUndo.setDisable(true);
+
+		HBox hbox4 = new HBox();
+		hbox4.getChildren().addAll(tfPercent, btnReprice, btnUndo);
+		hbox4.setSpacing(10);
+		add(hbox4, 0, 4);
 	}
 
 	class Controller {
@@ -184,7 +230,7 @@ public class Pricelists extends GridPane {
 			}
 
 			for (Product product : productList.getSelectedProducts()) {
-				if (selectedPricelist.getProducts().contains(product)) {
+				if (selectedPricelist.isListed(product)) {
 					lError.setText("Et af produkterne findes allerede i prislisten");
 					return;
 				} else {
@@ -201,6 +247,88 @@ public class Pricelists extends GridPane {
 			service.removeProductFromPricelist(t.product, selectedPricelist);
 		}
 
+		public void schedulePricelist() {
+			LocalTime time;
+
+			try {
+				time = LocalTime.parse(tfTime.getText());
+			} catch (DateTimeParseException ex) {
+				lError.setText("Tidspunktet skal skrives som tt:mm");
+				return;
+			}
+
+			int dayIndex = cbDay.getSelectionModel().getSelectedIndex();
+			DayOfWeek day = dayIndex <= 0 ? null : DayOfWeek.of(dayIndex);
+
+			service.schedulePricelist(selectedPricelist, day, time);
+			lError.setText("");
+			showSchedules();
+		}
+
+		public void removeSchedules() {
+			for (PricelistSchedule schedule : service.getPricelistSchedules()) {
+				if (schedule.getPricelist() == selectedPricelist) {
+					service.removePricelistSchedule(schedule);
+				}
+			}
+
+			showSchedules();
+		}
+
+		public void showSchedules() {
+			StringBuilder text = new StringBuilder();
+
+			for (PricelistSchedule schedule : service.getPricelistSchedules()) {
+				if (schedule.getPricelist() == selectedPricelist) {
+					text.append(schedule).append("\n");
+				}
+			}
+
+			lSchedules.setText(text.toString());
+		}
+
+		public void showPrices() {
+			List<PricelistElement> elements = new ArrayList<>();
+
+			for (Product p : selectedPricelist.getProducts()) {
+				elements.add(new PricelistElement(p, selectedPricelist.getPrice(p)));
+			}
+
+			table.setItems(elements);
+		}
+
+		/**
+		 * Changes the price of the selected products by a percentage, or of all
+		 * the products in the pricelist if none are selected
+		 */
+		public void reprice() {
+			double percent;
+
+			try {
+				percent = Double.parseDouble(tfPercent.getText());
+			} catch (NumberFormatException ex) {
+				lError.setText("Procent skal være et tal");
+				return;
+			}
+
+			List<Product> selected = productList.getSelectedProducts();
+			lastChange = service.bulkReprice(selectedPricelist,
+					p -> selected.isEmpty() || selected.contains(p),
+					PriceRule.percent(percent));
+
+			btnUndo.setDisable(false);
+			lError.setText("");
+			showPrices();
+		}
+
+		public void undoReprice() {
+			service.undoPriceChange(lastChange);
+			lastChange = null;
+
+			btnUndo.setDisable(true);
+			showPrices();
+		}
+
 		public void updatePrice(PricelistElement t, Double price) {
 			service.setProductToPricelist(t.getProduct(), service.getSelectedPricelist(),
 					price);
@@ -33,9 +33,10 @@ public class ProductList extends BorderPane {
 	private GridPane pane = new GridPane();
 	private Handler<Product> selectHandler;
 	private Handler<Product> deselectHandler;
+	private boolean tapMode = false;
 
 	public ProductList(List<Product> products) {
-		allProducts = products;
+		allProducts = new ArrayList<>(products);
 
 		setMinWidth(650);
 		setMaxWidth(650);
@@ -56,7 +57,7 @@ public class ProductList extends BorderPane {
 		cbCategories.setPrefWidth(100);
 		hbQuery.getChildren().add(cbCategories);
 
-		controller.showProducts(products);
+		controller.showProducts(allProducts);
 
 		setTop(hbQuery);
 	}
@@ -69,6 +70,14 @@ public class ProductList extends BorderPane {
 		deselectHandler = handler;
 	}
 
+	/**
+	 * In tap mode every click calls the select handler and nothing stays
+	 * selected, so a product can be picked again and again
+	 */
+	public void setTapMode(boolean tapMode) {
+		this.tapMode = tapMode;
+	}
+
 	public List<Product> getSelectedProducts() {
 		return new ArrayList<>(selectedProducts);
 	}
@@ -136,7 +145,11 @@ public class ProductList extends BorderPane {
 				GridPane.setHalignment(node, HPos.CENTER);
 
 				node.setOnMouseClicked(e -> {
-					if (selectedProducts.contains(p)) {
+					if (tapMode) {
+						if (selectHandler != null) {
+							selectHandler.exec(p);
+						}
+					} else if (selectedProducts.contains(p)) {
 						deselect(p);
 					} else {
 						select(p);
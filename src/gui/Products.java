@@ -17,10 +17,10 @@ import javafx.scene.control.Button;
 import javafx.scene.control.ButtonType;
 import javafx.scene.control.ComboBox;
 import javafx.scene.control.Label;
-import javafx.scene.control.ScrollPane;
-import javafx.scene.control.ScrollPane.ScrollBarPolicy;
 import javafx.scene.control.TextField;
 import javafx.scene.layout.GridPane;
+import javafx.scene.layout.Priority;
+import model.ClipCardProduct;
 import model.DepositProduct;
 import model.Order;
 import model.Permission;
@@ -29,13 +29,15 @@ import model.Product;
 import model.ProductOrder;
 import service.Service;
 import storage.Storage;
+import storage.StorageEvent;
 
 public class Products extends GridPane {
 
 	private final Storage storage = Storage.getInstance();
 	private final Service service = Service.getInstance();
 	private final Controller controller = new Controller();
-	private final Table<Product> table = new Table<>(null);
+	// Virtualized, so a long product list only has nodes for the rows in view
+	private final Table<Product> table = new Table<>(null, 30);
 	private final TextField txfCategory = new TextField();
 	private final TextField txfProduct = new TextField();
 	private final ComboBox<String> cbxCategory = new ComboBox<>();
@@ -46,11 +48,6 @@ public class Products extends GridPane {
 		setVgap(10);
 		setAlignment(Pos.TOP_CENTER);
 
-		ScrollPane sp = new ScrollPane();
-		sp.setHbarPolicy(ScrollBarPolicy.NEVER);
-		sp.setVbarPolicy(ScrollBarPolicy.ALWAYS);
-		sp.setContent(table.getPane());
-
 		List<String> categories = new ArrayList<>();
 		categories.addAll(storage.getCategories());
 
@@ -73,10 +70,36 @@ public class Products extends GridPane {
 					return null;
 				}
 			}
+
+			@Override
+			public boolean updateNode(Node node, Product po) {
+				return po instanceof DepositProduct && super.updateNode(node, po);
+			}
 		};
 		depositColumn.setMaxWidth(70.0);
 		table.addColumn(depositColumn);
 
+		Column<Product> cardClipsColumn = new PrimitiveColumn<Product, Integer>(
+				"Klip pr. kort", PrimitiveColumn.Type.Integer,
+				e -> ((ClipCardProduct) e).getCardClips(),
+				(x, y) -> service.updateCardClips((ClipCardProduct) x, y)) {
+			@Override
+			public Node getNode(Product po) {
+				if (po instanceof ClipCardProduct) {
+					return super.getNode(po);
+				} else {
+					return null;
+				}
+			}
+
+			@Override
+			public boolean updateNode(Node node, Product po) {
+				return po instanceof ClipCardProduct && super.updateNode(node, po);
+			}
+		};
+		cardClipsColumn.setMaxWidth(90.0);
+		table.addColumn(cardClipsColumn);
+
 		if (service.getActiveUser().getPermission() == Permission.ADMIN) {
 			Column<Product> delete = new ButtonColumn<>("Delete",
 					controller::deleteProduct);
@@ -84,7 +107,8 @@ public class Products extends GridPane {
 		}
 
 		table.setItems(storage.getProducts());
-		add(sp, 0, 0, 4, 1);
+		GridPane.setVgrow(table.getView(), Priority.ALWAYS);
+		add(table.getView(), 0, 0, 4, 1);
 
 		add(txfCategory, 0, 1);
 
@@ -110,8 +134,13 @@ public class Products extends GridPane {
 		btnCreateDepositProduct.setOnAction(e -> controller.createDepositProduct());
 		add(btnCreateDepositProduct, 2, 2);
 
+		Button btnCreateClipCard = new Button("Lav klippekort");
+		btnCreateClipCard.setOnAction(e -> controller.createClipCardProduct());
+		add(btnCreateClipCard, 3, 2);
+
 		add(lblError, 0, 3);
 
+		StorageEvents.getInstance().subscribe(this, controller::applyChanges);
 	}
 
 	private class Controller {
@@ -121,7 +150,6 @@ public class Products extends GridPane {
 				String name = txfProduct.getText().trim();
 				if (!name.isEmpty()) {
 					service.createDepositProduct(name, null, null, null, 0);
-					table.setItems(storage.getProducts());
 					txfProduct.clear();
 				}
 			} catch (Exception e) {
@@ -129,6 +157,14 @@ public class Products extends GridPane {
 			}
 		}
 
+		public void createClipCardProduct() {
+			String name = txfProduct.getText().trim();
+			if (!name.isEmpty()) {
+				service.createClipCardProduct(name, null, null, 4);
+				txfProduct.clear();
+			}
+		}
+
 		public void removeCategory() {
 			String category = cbxCategory.getSelectionModel().getSelectedItem();
 			for (Product p : storage.getProducts()) {
@@ -138,7 +174,6 @@ public class Products extends GridPane {
 					lblError.setStyle("-fx-text-fill: red");
 				} else {
 					storage.removeCategory(category);
-					cbxCategory.getItems().setAll(storage.getCategories());
 				}
 			}
 		}
@@ -162,10 +197,9 @@ public class Products extends GridPane {
 
 				Optional<ButtonType> result = alert.showAndWait();
 				if (result.get() == ButtonType.OK) {
-					table.removeItem(product);
 					service.removeProduct(product);
 					for (Pricelist p : storage.getPricelists()) {
-						if (p.getProducts().contains(product)) {
+						if (p.isListed(product)) {
 							service.removeProductFromPricelist(product, p);
 						}
 					}
@@ -182,7 +216,6 @@ public class Products extends GridPane {
 			String name = txfProduct.getText().trim();
 			if (!name.isEmpty()) {
 				service.createProduct(name, null, null, null);
-				table.setItems(storage.getProducts());
 				txfProduct.clear();
 			}
 		}
@@ -193,6 +226,31 @@ public class Products extends GridPane {
 				service.addCategory(category);
 			}
 		}
+
+		/**
+		 * Applies the changes to the table instead of rebuilding it
+		 */
+		public void applyChanges(List<StorageEvent> events) {
+			for (StorageEvent event : events) {
+				if (event.isAbout(Product.class)) {
+					Product product = (Product) event.getEntity();
+
+					if (event.getType() == StorageEvent.Type.ADDED) {
+						table.addItem(product);
+					} else if (event.getType() == StorageEvent.Type.REMOVED) {
+						table.removeItem(product);
+					}
+				} else if (event.isAbout(String.class)) {
+					String category = (String) event.getEntity();
+
+					if (event.getType() == StorageEvent.Type.ADDED) {
+						cbxCategory.getItems().add(category);
+					} else if (event.getType() == StorageEvent.Type.REMOVED) {
+						cbxCategory.getItems().remove(category);
+					}
+				}
+			}
+		}
 	}
 
 }
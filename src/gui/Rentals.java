@@ -1,5 +1,7 @@
 package gui;
 
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Locale;
 import java.util.regex.Pattern;
 
@@ -12,11 +14,16 @@ import javafx.scene.control.Label;
 import javafx.scene.control.ListView;
 import javafx.scene.layout.GridPane;
 import javafx.stage.Stage;
+import model.DepositInventory;
+import model.DepositProduct;
+import model.Money;
 import model.Order;
 import model.PaymentStatus;
 import model.ProductOrder;
 import model.RentalProductOrder;
 import service.Service;
+import storage.Storage;
+import storage.StorageEvent;
 
 public class Rentals extends GridPane {
 	private final Service service = Service.getInstance();
@@ -24,6 +31,7 @@ public class Rentals extends GridPane {
 	private final ListView<Order> lwRentals = new ListView<>();
 	private final Label lTotal = new Label();
 	private final Label lError = new Label();
+	private final Label lInventory = new Label();
 	private final Button pay = new Button("Betal");
 	private final Table<ProductOrder> table = new Table<>((error, isValid) -> {
 		pay.setDisable(!isValid);
@@ -32,14 +40,12 @@ public class Rentals extends GridPane {
 
 		lError.setText(error);
 	});
-	private final Handler<?> rentalPaidHandler;
 	private final Stage owner;
 	private Order selectedRental;
 	private double total;
 
-	public Rentals(Stage owner, Handler<?> rentalPaidHandler) {
+	public Rentals(Stage owner) {
 		this.owner = owner;
-		this.rentalPaidHandler = rentalPaidHandler;
 
 		lwRentals.getItems().addAll(service.getRentals());
 		lwRentals.getSelectionModel().selectedItemProperty()
@@ -55,6 +61,7 @@ public class Rentals extends GridPane {
 		table.addColumn(new PrimitiveColumn<>("Returneret", PrimitiveColumn.Type.Integer,
 				controller::getReturned, controller::updateReturned,
 				controller::validateReturned));
+		table.addColumn(new LabelColumn<>("Retur senest", controller::getDue));
 		table.getPane().setPadding(new Insets(10));
 
 		add(table.getPane(), 1, 0);
@@ -64,6 +71,11 @@ public class Rentals extends GridPane {
 		pay.setDefaultButton(true);
 		pay.setOnAction(e -> controller.pay());
 		add(pay, 2, 1);
+
+		add(lInventory, 0, 2, 3, 1);
+		controller.showInventory();
+
+		StorageEvents.getInstance().subscribe(this, controller::applyChanges);
 	}
 
 	class Controller {
@@ -78,10 +90,67 @@ public class Rentals extends GridPane {
 					total + selectedRental.totalPayment(), null);
 
 			pd.showAndWait();
+		}
+
+		/**
+		 * Adds orders that became rentals and removes the ones that are no
+		 * longer rentals
+		 */
+		public void applyChanges(List<StorageEvent> events) {
+			for (StorageEvent event : events) {
+				if (event.isAbout(Order.class)) {
+					Order o = (Order) event.getEntity();
+					// The indexed status, paymentStatus throws for an order
+					// that is overpaid or has an invalid discount
+					boolean isRental = Storage.getInstance().hasStatus(o,
+							PaymentStatus.DEPOSITPAID);
+					boolean shown = lwRentals.getItems().contains(o);
+
+					if (isRental && !shown) {
+						lwRentals.getItems().add(o);
+					} else if (!isRental && shown) {
+						lwRentals.getItems().remove(o);
+					}
+				}
+			}
+
+			showInventory();
+		}
+
+		/**
+		 * Shows the units of each deposit product out on rental, the deposit
+		 * held for them and the number of overdue rentals
+		 */
+		public void showInventory() {
+			DepositInventory inventory = service.getDepositInventory();
+			StringBuilder text = new StringBuilder();
+
+			for (DepositProduct product : inventory.getProductsOut()) {
+				text.append(product.getName()).append(": ")
+						.append(inventory.getUnitsOut(product)).append(" ude, ")
+						.append(Money.format(inventory.getDepositHeldOre(product)))
+						.append(" i pant\n");
+			}
+
+			text.append("Pant i alt: ").append(Money.format(inventory.getDepositHeldOre()))
+					.append(", ").append(service.getOverdueRentals().size())
+					.append(" for sent");
+			lInventory.setText(text.toString());
+		}
 
-			if (selectedRental.paymentStatus() == PaymentStatus.ORDERPAID) {
-				rentalPaidHandler.exec(null);
+		public String getDue(ProductOrder po) {
+			if (!(po instanceof RentalProductOrder)) {
+				return "";
 			}
+
+			RentalProductOrder rpo = (RentalProductOrder) po;
+
+			if (rpo.getDue() == null) {
+				return "";
+			}
+
+			return rpo.getDue()
+					+ (service.getDepositInventory().isOverdue(rpo) ? " (for sent)" : "");
 		}
 
 		public void setTotal() {
@@ -96,6 +165,12 @@ public class Rentals extends GridPane {
 
 			selectedRental = o;
 
+			if (o == null) {
+				table.setItems(new ArrayList<>());
+				lTotal.setText("");
+				return;
+			}
+
 			table.setItems(o.getAllProducts());
 
 			setTotal();
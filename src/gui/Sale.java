@@ -1,6 +1,8 @@
 package gui;
 
+import java.util.HashMap;
 import java.util.Locale;
+import java.util.Map;
 import java.util.regex.Pattern;
 
 import exceptions.DiscountParseException;
@@ -10,12 +12,16 @@ import gui.table.LabelColumn;
 import gui.table.PrimitiveColumn;
 import gui.table.Table;
 import javafx.geometry.Insets;
+import javafx.geometry.Pos;
 import javafx.scene.Node;
 import javafx.scene.control.Button;
 import javafx.scene.control.Label;
 import javafx.scene.control.ScrollPane;
 import javafx.scene.control.ScrollPane.ScrollBarPolicy;
 import javafx.scene.control.TextField;
+import javafx.scene.control.Toggle;
+import javafx.scene.control.ToggleButton;
+import javafx.scene.control.ToggleGroup;
 import javafx.scene.layout.GridPane;
 import javafx.scene.layout.HBox;
 import javafx.stage.Stage;
@@ -29,23 +35,20 @@ public class Sale extends GridPane {
 	private final Stage owner;
 	private final Service service = Service.getInstance();
 	private final Controller controller = new Controller();
-	private final Order order = service.createOrder();
 	private final Label lError = new Label();
 	private final Button pay = new Button("Betal");
-	private final LabelColumn<ProductOrder> priceColumn = new LabelColumn<>("Pris",
-			po -> {
-				try {
-					return String.format(Locale.GERMAN, "%.2f kr.", po.price());
-				} catch (Exception e) {
-					return e.getMessage();
-				}
-
-			});
 	private final Label lTotal = new Label();
 	private final Label lblCustomer = new Label();
 	private final Handler<?> orderPaidHanlder;
-	private final Table<ProductOrder> productTable = new Table<>(controller::validate);
 	private final TextField discount = new TextField();
+	private final HBox tabBar = new HBox(10);
+	private final ToggleGroup tabGroup = new ToggleGroup();
+	private final TextField tfTabName = new TextField();
+	// The tables of the tabs shown so far, made the first time a tab is shown
+	private final Map<String, Table<ProductOrder>> tabTables = new HashMap<>();
+	private String tabName;
+	private Order order;
+	private Table<ProductOrder> productTable;
 
 	public Sale(Stage owner, Handler<?> orderPaidHanlder) {
 		setPadding(new Insets(20));
@@ -55,6 +58,73 @@ public class Sale extends GridPane {
 		this.owner = owner;
 		this.orderPaidHanlder = orderPaidHanlder;
 
+		ProductList pl = new ProductList(service.getSelectedPricelist().getProducts());
+		pl.setTapMode(true);
+		pl.setSelectHandler(p -> {
+			ProductOrder po = order.addProduct(p);
+
+			// A repeated tap is merged into the line already shown
+			if (productTable.contains(po)) {
+				productTable.updateItem(po);
+			} else {
+				productTable.addItem(po);
+			}
+
+			controller.updateRow();
+		});
+
+		lError.setStyle("-fx-text-fill: red");
+		add(lError, 0, 1);
+
+		ScrollPane sp = new ScrollPane();
+		sp.setVbarPolicy(ScrollBarPolicy.AS_NEEDED);
+		sp.setHbarPolicy(ScrollBarPolicy.NEVER);
+		sp.setMinWidth(650); // 650
+		sp.setContent(pl);
+
+		add(pl, 0, 0);
+
+		discount.setPromptText("Rabat");
+		discount.setOnAction(e -> controller.updateOrderDiscount());
+
+		HBox buttons = new HBox();
+		Button btnCustomer = new Button("Tilføj Kunde");
+		buttons.getChildren().addAll(lTotal, btnCustomer, lblCustomer, discount);
+		buttons.setSpacing(20);
+		add(buttons, 1, 1);
+		btnCustomer.prefWidth(100);
+		btnCustomer.setOnAction(e -> controller.addCustomer());
+
+		pay.setDefaultButton(true);
+		pay.setMinWidth(80);
+		pay.setOnAction(e -> controller.showPayDialog());
+		add(pay, 3, 1);
+
+		tfTabName.setPromptText("Bord eller navn");
+		tfTabName.setOnAction(e -> controller.openTab());
+		Button btnOpenTab = new Button("Ny regning");
+		btnOpenTab.setOnAction(e -> controller.openTab());
+
+		HBox tabs = new HBox(10);
+		tabs.setAlignment(Pos.BASELINE_LEFT);
+		tabs.getChildren().addAll(tabBar, tfTabName, btnOpenTab);
+		add(tabs, 0, 2, 4, 1);
+
+		if (service.getTabNames().isEmpty()) {
+			service.openTab(service.nextTabName());
+		}
+
+		controller.showTabBar();
+		controller.switchTab(service.getTabNames().get(0));
+	}
+
+	/**
+	 * Makes the table of a tab, each tab has its own columns since the
+	 * columns keep track of their cells
+	 */
+	private Table<ProductOrder> createTable(Order order) {
+		Table<ProductOrder> table = new Table<>(controller::validate);
+
 		LabelColumn<ProductOrder> nameColumn = new LabelColumn<>("Navn",
 				po -> po.getProduct().getName() + ", " + po.getProduct().getCategory());
 		nameColumn.setPrefWidth(owner.getWidth() / 2);
@@ -83,6 +153,14 @@ public class Sale extends GridPane {
 			}
 		});
 
+		LabelColumn<ProductOrder> priceColumn = new LabelColumn<>("Pris", po -> {
+			try {
+				return String.format(Locale.GERMAN, "%.2f kr.", po.price());
+			} catch (Exception e) {
+				return e.getMessage();
+			}
+		});
+
 		ButtonColumn<ProductOrder> btnGiftProductsColumn = new ButtonColumn<ProductOrder>(
 				"Gave", controller::addGifts) {
 			@Override
@@ -98,67 +176,97 @@ public class Sale extends GridPane {
 		};
 		btnGiftProductsColumn.setMinWidth(55.0);
 
+		ButtonColumn<ProductOrder> removeColumn = new ButtonColumn<>("Fjern",
+				controller::removeLine);
+		removeColumn.setMinWidth(60.0);
+
 		depositColumn.setMinWidth(80.0);
 
 		priceColumn.setMinWidth(80.0);
 
-		productTable.addColumn(nameColumn);
-		productTable.addColumn(amountColumn);
-		productTable.addColumn(discountColumn);
-		productTable.addColumn(depositColumn);
-		productTable.addColumn(priceColumn);
-		productTable.addColumn(btnGiftProductsColumn);
+		table.addColumn(nameColumn);
+		table.addColumn(amountColumn);
+		table.addColumn(discountColumn);
+		table.addColumn(depositColumn);
+		table.addColumn(priceColumn);
+		table.addColumn(btnGiftProductsColumn);
+		table.addColumn(removeColumn);
 
-		productTable.setItems(order.getAllProducts());
+		table.setItems(order.getAllProducts());
+		return table;
+	}
 
-		ProductList pl = new ProductList(service.getSelectedPricelist().getProducts());
-		pl.setSelectHandler(p -> {
-			ProductOrder po = order.addProduct(p);
-			productTable.addItem(po);
+	class Controller {
 
-			controller.updateRow();
-		});
+		public void showTabBar() {
+			tabBar.getChildren().clear();
 
-		pl.setDeselectHandler(p -> {
-			ProductOrder po = order.removeProduct(p);
+			for (String name : service.getTabNames()) {
+				ToggleButton button = new ToggleButton(name);
+				button.setToggleGroup(tabGroup);
+				button.setSelected(name.equals(tabName));
+				button.setOnAction(e -> switchTab(name));
+				tabBar.getChildren().add(button);
+			}
+		}
 
-			productTable.removeItem(po);
+		/**
+		 * Shows the tab, reusing its table if it has been shown before
+		 */
+		public void switchTab(String name) {
+			Order tab = service.getTab(name);
+			assert tab != null;
 
-			controller.updateRow();
-		});
+			if (productTable != null) {
+				getChildren().remove(productTable.getPane());
+			}
 
-		lError.setStyle("-fx-text-fill: red");
-		add(lError, 0, 1);
+			tabName = name;
+			order = tab;
+			productTable = tabTables.computeIfAbsent(name, n -> createTable(tab));
+			add(productTable.getPane(), 1, 0, 2, 1);
 
-		ScrollPane sp = new ScrollPane();
-		sp.setVbarPolicy(ScrollBarPolicy.AS_NEEDED);
-		sp.setHbarPolicy(ScrollBarPolicy.NEVER);
-		sp.setMinWidth(650); // 650
-		sp.setContent(pl);
+			for (Toggle toggle : tabGroup.getToggles()) {
+				toggle.setSelected(((ToggleButton) toggle).getText().equals(name));
+			}
 
-		add(pl, 0, 0);
-		add(productTable.getPane(), 1, 0, 2, 1);
+			lblCustomer.setText(order.getCustomer() == null ? ""
+					: order.getCustomer().getName());
+			discount.setText(order.getDiscount());
+			updateRow();
+		}
 
-		discount.setPromptText("Rabat");
-		discount.setOnAction(e -> controller.updateOrderDiscount());
+		public void openTab() {
+			String name = tfTabName.getText().trim();
 
-		HBox buttons = new HBox();
-		Button btnCustomer = new Button("Tilføj Kunde");
-		buttons.getChildren().addAll(lTotal, btnCustomer, lblCustomer, discount);
-		buttons.setSpacing(20);
-		add(buttons, 1, 1);
-		btnCustomer.prefWidth(100);
-		btnCustomer.setOnAction(e -> controller.addCustomer());
+			if (name.isEmpty()) {
+				name = service.nextTabName();
+			} else if (service.getTab(name) != null) {
+				lError.setText("Der er allerede en regning med navnet " + name);
+				return;
+			}
 
-		controller.updateTotal();
+			service.openTab(name);
+			tfTabName.clear();
+			showTabBar();
+			switchTab(name);
+		}
 
-		pay.setDefaultButton(true);
-		pay.setMinWidth(80);
-		pay.setOnAction(e -> controller.showPayDialog());
-		add(pay, 3, 1);
-	}
+		/**
+		 * Closes the paid tab and shows the next open tab, or starts over if
+		 * there are none
+		 */
+		public void closeTab() {
+			service.closeTab(tabName);
+			tabTables.remove(tabName);
 
-	class Controller {
+			if (service.getTabNames().isEmpty()) {
+				orderPaidHanlder.exec(null);
+			} else {
+				showTabBar();
+				switchTab(service.getTabNames().get(0));
+			}
+		}
 
 		public void addGifts(ProductOrder o) {
 			if (!o.getProduct().getCategory().equals("sampakninger")) {
@@ -217,10 +325,17 @@ public class Sale extends GridPane {
 			boolean depositOrPriceIsPaid = status == PaymentStatus.ORDERPAID
 					|| status == PaymentStatus.DEPOSITPAID;
 			if (depositOrPriceIsPaid) {
-				orderPaidHanlder.exec(null);
+				closeTab();
 			}
 		}
 
+		public void removeLine(ProductOrder po) {
+			order.removeProductOrder(po);
+			productTable.removeItem(po);
+
+			updateRow();
+		}
+
 		public void updateRow() {
 			validate("", productTable.isValid());
 			updateTotal();
@@ -244,7 +359,7 @@ public class Sale extends GridPane {
 
 				lError.setText("");
 
-				priceColumn.updateCell(po);
+				productTable.updateItem(po);
 				controller.updateTotal();
 			} catch (DiscountParseException e) {
 				lError.setText("ugyldig rabat på \"" + po.getProduct().getName() + "\"");
@@ -253,7 +368,7 @@ public class Sale extends GridPane {
 
 		public void updateAmount(ProductOrder po, int amount) {
 			service.updateProductOrderAmount(po, amount);
-			priceColumn.updateCell(po);
+			productTable.updateItem(po);
 			controller.updateTotal();
 		}
 
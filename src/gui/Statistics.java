@@ -1,13 +1,19 @@
 package gui;
 
-import java.util.ArrayList;
-import java.util.List;
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.format.TextStyle;
+import java.util.HashMap;
 import java.util.Locale;
 import java.util.Map;
-import java.util.Set;
-
-import javafx.collections.FXCollections;
-import javafx.collections.ObservableList;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+import exceptions.DayCloseException;
+import javafx.concurrent.Task;
 import javafx.geometry.Insets;
 import javafx.geometry.Side;
 import javafx.scene.chart.BarChart;
@@ -15,17 +21,25 @@ import javafx.scene.chart.CategoryAxis;
 import javafx.scene.chart.NumberAxis;
 import javafx.scene.chart.PieChart;
 import javafx.scene.chart.XYChart;
+import javafx.scene.control.Button;
 import javafx.scene.control.ComboBox;
+import javafx.scene.control.DatePicker;
 import javafx.scene.control.Label;
+import javafx.scene.control.ProgressIndicator;
 import javafx.scene.input.MouseEvent;
 import javafx.scene.layout.GridPane;
+import javafx.scene.layout.HBox;
+import javafx.scene.layout.VBox;
+import model.ClipCardLedger;
+import model.Money;
+import model.Order;
+import model.ReportProgress;
+import model.SalesHeatmap;
+import model.StatisticsReport;
 import model.TimePeriod;
-import model.User;
-
-@FunctionalInterface
-interface DataGetter<Entry extends Map.Entry<?, ?>> {
-	PieChart.Data get(Entry e);
-}
+import model.TopSellers;
+import model.ZReport;
+import service.Service;
 
 public class Statistics extends GridPane {
 	private final Controller controller = new Controller();
@@ -39,6 +53,23 @@ public class Statistics extends GridPane {
 	private final Label clipCardSales = new Label();
 	private final Label clipCardUses = new Label();
 	private final Label total = new Label();
+	private final Label customers = new Label();
+	private final Label baskets = new Label();
+	private final Label clipCardLiability = new Label();
+	private final DatePicker dpFrom = new DatePicker();
+	private final DatePicker dpTo = new DatePicker();
+	private final VBox topBeers = new VBox(5);
+	private final GridPane heatmap = new GridPane();
+	private final Label[][] heatmapCells = new Label[7][24];
+	private final ProgressIndicator progress = new ProgressIndicator();
+	// Reports are made one at a time off the FX thread, so a long range
+	// doesn't block the dashboard. Shared by every statistics view, since a
+	// new view is made each time the tab is opened
+	private static final ExecutorService worker = Executors.newSingleThreadExecutor(r -> {
+		Thread thread = new Thread(r, "Statistik");
+		thread.setDaemon(true);
+		return thread;
+	});
 
 	public Statistics() {
 		final NumberAxis xAxis = new NumberAxis();
@@ -80,7 +111,19 @@ public class Statistics extends GridPane {
 				.addListener(e -> controller.selectTimePeriod());
 		cbTimePeriod.getSelectionModel().select(0);
 
-		add(cbTimePeriod, 0, 0);
+		dpFrom.setPromptText("Fra");
+		dpTo.setPromptText("Til og med");
+		Button btnRange = new Button("Vis periode");
+		btnRange.setOnAction(e -> controller.selectRange());
+		Button btnCloseDay = new Button("Afslut dagen");
+		btnCloseDay.setOnAction(e -> controller.closeDay());
+
+		HBox periods = new HBox(10);
+		progress.setPrefSize(25, 25);
+		progress.setVisible(false);
+		periods.getChildren().addAll(cbTimePeriod, dpFrom, dpTo, btnRange, btnCloseDay,
+				progress);
+		add(periods, 0, 0, 3, 1);
 
 		pricelistPieChart.setTitle("Salg pr. prisliste");
 		pricelistPieChart.setLegendSide(Side.LEFT);
@@ -99,9 +142,45 @@ public class Statistics extends GridPane {
 
 		add(bc, 0, 2, 2, 1);
 
+		add(topBeers, 2, 2);
+
 		add(clipCardSales, 0, 3);
 		add(clipCardUses, 0, 4);
 		add(total, 0, 5);
+		add(customers, 0, 6);
+		add(baskets, 0, 7);
+		add(clipCardLiability, 0, 8);
+
+		Locale danish = new Locale("da");
+		heatmap.setHgap(1);
+		heatmap.setVgap(1);
+		heatmap.add(new Label("Salg pr. time"), 0, 0, 25, 1);
+
+		for (int hour = 0; hour < 24; hour++) {
+			heatmap.add(new Label(String.format("%02d", hour)), hour + 1, 1);
+		}
+
+		for (DayOfWeek day : DayOfWeek.values()) {
+			int row = day.getValue() - 1;
+			heatmap.add(new Label(day.getDisplayName(TextStyle.SHORT, danish)), 0,
+					row + 2);
+
+			for (int hour = 0; hour < 24; hour++) {
+				Label cell = new Label();
+				cell.setMinSize(18, 18);
+				heatmapCells[row][hour] = cell;
+				heatmap.add(cell, hour + 1, row + 2);
+			}
+		}
+
+		add(heatmap, 1, 3, 2, 3);
+
+		controller.showLive();
+		StorageEvents.getInstance().subscribe(this, events -> {
+			if (events.stream().anyMatch(e -> e.isAbout(Order.class))) {
+				controller.showLive();
+			}
+		});
 
 		caption.setStyle(
 			"-fx-background-color: white; -fx-border-width: 1; -fx-border-color: black;"
@@ -113,6 +192,47 @@ public class Statistics extends GridPane {
 	}
 
 	class Controller {
+		private Task<StatisticsReport> running;
+
+		/**
+		 * Shows the best selling beers of today and the sales by hour, which
+		 * are kept up to date as orders are paid
+		 */
+		public void showLive() {
+			Service service = Service.getInstance();
+
+			topBeers.getChildren().setAll(new Label("Top 10 øl i dag"));
+			int place = 1;
+			for (TopSellers.Item item : service.getTopBeersToday(10)) {
+				topBeers.getChildren().add(
+						new Label(place++ + ". " + item.getName() + ": " + item.getCount()));
+			}
+
+			ClipCardLedger ledger = service.getClipCardLedger();
+			clipCardLiability.setText(String.format(Locale.GERMAN,
+					"Udestående klip: %d af %d, %.2f kr.", ledger.getOutstandingClips(),
+					ledger.getIssuedClips(), ledger.getLiability()));
+
+			SalesHeatmap sales = service.getSalesHeatmap();
+			long max = Math.max(1, sales.max());
+
+			for (DayOfWeek day : DayOfWeek.values()) {
+				for (int hour = 0; hour < 24; hour++) {
+					long ore = sales.get(day, hour);
+					Label cell = heatmapCells[day.getValue() - 1][hour];
+					double shade = 1 - 0.8 * ore / max;
+
+					cell.setStyle(String.format(Locale.ROOT,
+							"-fx-background-color: rgb(%d, %d, 255)", (int) (255 * shade),
+							(int) (255 * shade)));
+					cell.setOnMouseClicked(e -> {
+						caption.setTranslateX(e.getSceneX() - 100);
+						caption.setTranslateY(e.getSceneY() - 100);
+						caption.setText(Money.format(ore));
+					});
+				}
+			}
+		}
 
 		public void selectTimePeriod() {
 			TimePeriod timePeriod = null;
@@ -136,49 +256,151 @@ public class Statistics extends GridPane {
 				break;
 			}
 
-			statictics.setTimePeriod(timePeriod);
+			final TimePeriod selected = timePeriod;
+			compute(p -> statictics.setTimePeriod(selected, p));
+		}
 
-			setPieChartData(pricelistPieChart,
-					statictics.getSalesPrPricelist().entrySet(), entry -> {
-						double amount = entry.getValue();
+		/**
+		 * Shows the sales from the start of the from day to the end of the to
+		 * day, a missing date leaves that end open
+		 */
+		public void selectRange() {
+			LocalDate from = dpFrom.getValue();
+			LocalDate to = dpTo.getValue();
+
+			if (from != null && to != null && to.isBefore(from)) {
+				caption.setText("Til-datoen er før fra-datoen");
+				return;
+			}
 
-						return new PieChart.Data(entry.getKey().getName(), amount);
-					});
+			compute(p -> statictics.setRange(from == null ? null : from.atStartOfDay(),
+					to == null ? null : to.plusDays(1).atStartOfDay(), p));
+		}
 
-			setPieChartData(beerPieChart, statictics.getSalesPrBeer().entrySet(),
-					entry -> {
-						final double amount = entry.getValue();
+		/**
+		 * Closes today and shows the totals of its Z report
+		 */
+		public void closeDay() {
+			Service service = Service.getInstance();
+			LocalDate today = LocalDate.now();
 
-						return new PieChart.Data(entry.getKey(), amount);
-					});
+			if (service.getZReport(today) != null) {
+				caption.setText("Dagen er allerede afsluttet");
+				return;
+			}
 
-			setPieChartData(categoryPieChart, statictics.getSalesPrCategory().entrySet(),
-					entry -> {
-						final double amount = entry.getValue();
+			ZReport report;
+			try {
+				report = service.closeDay(today);
+			} catch (DayCloseException e) {
+				caption.setText("Dagen har ubetalte ordrer");
+				return;
+			}
 
-						return new PieChart.Data(entry.getKey(), amount);
+			caption.setText(String.format(Locale.GERMAN,
+					"Dagen er afsluttet: %d ordrer, %.2f kr.", report.getOrderCount(),
+					report.getTotalSales()));
+		}
+
+		/**
+		 * Makes the report in the background, cancelling the report being made.
+		 * The charts show the partial reports as they come and the progress
+		 * indicator is shown until the report is done
+		 */
+		private void compute(Consumer<ReportProgress> select) {
+			if (running != null) {
+				running.cancel();
+			}
+
+			Task<StatisticsReport> task = new Task<StatisticsReport>() {
+				@Override
+				protected StatisticsReport call() {
+					select.accept((report, done) -> {
+						if (isCancelled()) {
+							throw new CancellationException();
+						}
+
+						updateValue(report);
+						updateProgress(done, 1);
 					});
 
-			setBarChartData();
+					return statictics.getReport();
+				}
+			};
+
+			task.valueProperty().addListener((o, old, report) -> {
+				if (task == running && report != null) {
+					showReport(report);
+				}
+			});
+			task.setOnSucceeded(e -> done(task));
+			task.setOnFailed(e -> {
+				done(task);
+				caption.setText("Statistikken kunne ikke beregnes");
+			});
+
+			running = task;
+			progress.progressProperty().bind(task.progressProperty());
+			progress.setVisible(true);
+			worker.submit(task);
+		}
+
+		private void done(Task<StatisticsReport> task) {
+			if (task == running) {
+				progress.setVisible(false);
+			}
+		}
+
+		public void showReport(StatisticsReport report) {
+			setPieChartData(pricelistPieChart,
+					byName(report.getSalesPrPricelist(), pricelist -> pricelist.getName()));
+			setPieChartData(beerPieChart, report.getSalesPrBeer());
+			setPieChartData(categoryPieChart, report.getSalesPrCategory());
+			setBarChartData(report);
 
 			clipCardSales.setText(String.format("Klippekort solgt: %.2fkr.",
-					statictics.getClipCardSales()));
-			clipCardUses.setText("Klip brugt: " + statictics.getClipCardUses() + " klip");
-			total.setText(String.format("I alt: %.2fkr.", statictics.getTotalSales()));
+					report.getClipCardSales()));
+			clipCardUses.setText("Klip brugt: " + report.getClipCardUses() + " klip");
+			total.setText(String.format("I alt: %.2fkr.", report.getTotalSales()));
+			customers.setText("Kunder: ca. " + report.getDistinctCustomers());
+			baskets.setText(String.format(Locale.GERMAN,
+					"Ordre: median %.2f kr., %d linjer. 90%%: %.2f kr., %d linjer",
+					report.getOrderTotalQuantile(0.5), report.getLineCountQuantile(0.5),
+					report.getOrderTotalQuantile(0.9), report.getLineCountQuantile(0.9)));
 		}
 
-		public <Entry extends Map.Entry<?, ?>> void setPieChartData(PieChart chart,
-				Set<Entry> entrySet, DataGetter<Entry> dataGetter) {
-			final ObservableList<PieChart.Data> data = FXCollections
-					.observableArrayList();
+		/**
+		 * Returns the sums by the names of their keys, keys with the same name
+		 * are summed up
+		 */
+		private <K> Map<String, Double> byName(Map<K, Double> sums,
+				Function<K, String> name) {
+			Map<String, Double> named = new HashMap<>();
 
-			for (Entry entry : entrySet) {
-				data.add(dataGetter.get(entry));
+			for (Map.Entry<K, Double> entry : sums.entrySet()) {
+				named.merge(name.apply(entry.getKey()), entry.getValue(), Double::sum);
 			}
 
-			chart.setData(data);
+			return named;
+		}
+
+		/**
+		 * Updates the slices of the chart to the values, so the slices already
+		 * shown are kept and only change size
+		 */
+		public void setPieChartData(PieChart chart, Map<String, Double> values) {
+			Map<String, Double> added = new HashMap<>(values);
+
+			chart.getData().removeIf(d -> !values.containsKey(d.getName()));
+
+			for (PieChart.Data d : chart.getData()) {
+				d.setPieValue(added.remove(d.getName()));
+			}
+
+			for (Map.Entry<String, Double> entry : added.entrySet()) {
+				PieChart.Data d = new PieChart.Data(entry.getKey(), entry.getValue());
+				chart.getData().add(d);
 
-			for (PieChart.Data d : data) {
 				d.getNode().addEventHandler(MouseEvent.MOUSE_CLICKED, e -> {
 					caption.setTranslateX(e.getSceneX() - 100);
 					caption.setTranslateY(e.getSceneY() - 100);
@@ -188,32 +410,35 @@ public class Statistics extends GridPane {
 			}
 		}
 
-		public void setBarChartData() {
-			final List<XYChart.Series<Number, String>> series = new ArrayList<>();
-
-			for (Map.Entry<User, Double> entry : statictics.getSalesPrUser().entrySet()) {
-				final double amount = entry.getValue();
-				final XYChart.Series<Number, String> s = new XYChart.Series<>();
-				final XYChart.Data<Number, String> d = new XYChart.Data<>(amount,
-						entry.getKey().getName());
-				s.setName(entry.getKey().getName());
+		/**
+		 * Updates the bars of the users to the report, keeping the series of
+		 * the users already shown
+		 */
+		public void setBarChartData(StatisticsReport report) {
+			Map<String, Double> added = byName(report.getSalesPrUser(),
+					user -> user.getName());
+			Map<String, Double> values = new HashMap<>(added);
 
-				s.getData().add(d);
+			bc.getData().removeIf(s -> !values.containsKey(s.getName()));
 
-				series.add(s);
+			for (XYChart.Series<Number, String> s : bc.getData()) {
+				s.getData().get(0).setXValue(added.remove(s.getName()));
 			}
 
-			bc.getData().setAll(series);
+			for (Map.Entry<String, Double> entry : added.entrySet()) {
+				final XYChart.Series<Number, String> s = new XYChart.Series<>();
+				final XYChart.Data<Number, String> d = new XYChart.Data<>(
+						entry.getValue(), entry.getKey());
+				s.setName(entry.getKey());
+				s.getData().add(d);
+				bc.getData().add(s);
 
-			for (XYChart.Series<Number, String> s : series) {
-				for (XYChart.Data<Number, String> d : s.getData()) {
-					d.getNode().addEventHandler(MouseEvent.MOUSE_CLICKED, e -> {
-						caption.setTranslateX(e.getSceneX() - 100);
-						caption.setTranslateY(e.getSceneY() - 100);
-						caption.setText(String.format(Locale.GERMAN, "%.2f kr.",
-								d.getXValue().doubleValue()));
-					});
-				}
+				d.getNode().addEventHandler(MouseEvent.MOUSE_CLICKED, e -> {
+					caption.setTranslateX(e.getSceneX() - 100);
+					caption.setTranslateY(e.getSceneY() - 100);
+					caption.setText(String.format(Locale.GERMAN, "%.2f kr.",
+							d.getXValue().doubleValue()));
+				});
 			}
 		}
 	}
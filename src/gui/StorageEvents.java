@@ -0,0 +1,89 @@
+package gui;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import javafx.application.Platform;
+import javafx.scene.Node;
+import storage.Storage;
+import storage.StorageEvent;
+import storage.StorageListener;
+
+/**
+ * Collects the storage events and delivers them to the FX thread in batches,
+ * with a single Platform.runLater per pulse
+ */
+public class StorageEvents implements StorageListener {
+	private static StorageEvents instance;
+
+	private final List<Handler<List<StorageEvent>>> handlers = new CopyOnWriteArrayList<>();
+	private List<StorageEvent> pending = new ArrayList<>();
+
+	private StorageEvents() {
+	}
+
+	public static synchronized StorageEvents getInstance() {
+		if (instance == null) {
+			instance = new StorageEvents();
+			Storage.getInstance().addListener(instance);
+		}
+
+		return instance;
+	}
+
+	/**
+	 * Delivers the batched events to the handler for as long as the node is
+	 * shown in a scene
+	 */
+	public void subscribe(Node owner, Handler<List<StorageEvent>> handler) {
+		assert owner != null;
+		assert handler != null;
+
+		owner.sceneProperty().addListener((ov, oldScene, newScene) -> {
+			if (newScene == null) {
+				handlers.remove(handler);
+			} else if (!handlers.contains(handler)) {
+				handlers.add(handler);
+			}
+		});
+
+		if (owner.getScene() != null) {
+			handlers.add(handler);
+		}
+	}
+
+	@Override
+	public void onChange(StorageEvent event) {
+		boolean schedule;
+
+		synchronized (this) {
+			schedule = pending.isEmpty();
+			pending.add(event);
+		}
+
+		if (schedule) {
+			Platform.runLater(this::flush);
+		}
+	}
+
+	private void flush() {
+		List<StorageEvent> events;
+
+		synchronized (this) {
+			events = pending;
+			pending = new ArrayList<>();
+		}
+
+		// A handler that fails doesn't keep the batch from the others, its
+		// exception goes to the handler of the thread like any uncaught one
+		for (Handler<List<StorageEvent>> handler : handlers) {
+			try {
+				handler.exec(events);
+			} catch (RuntimeException e) {
+				Thread thread = Thread.currentThread();
+				thread.getUncaughtExceptionHandler().uncaughtException(thread, e);
+			}
+		}
+	}
+}
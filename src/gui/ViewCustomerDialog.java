@@ -84,10 +84,7 @@ public class ViewCustomerDialog extends Stage {
 			String address = txfAddress.getText().trim();
 			if (ce.isValid(name, phone, email)
 					&& (!phone.isEmpty() || !email.isEmpty())) {
-				c.setName(name);
-				c.setPhone(phone);
-				c.setEmail(email);
-				c.setAddress(address);
+				service.updateCustomer(c, name, address, phone, email);
 				close();
 			} else if (!ce.nameIsValid(name)) {
 				lblError.setText("Navn skal skrives");
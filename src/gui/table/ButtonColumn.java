@@ -30,11 +30,30 @@ public class ButtonColumn<A> extends Column<A> {
 			b = getter.get(item);
 		}
 
-		b.setOnAction(e -> actionHandler.exec(item));
+		b.setUserData(item);
+		b.setOnAction(e -> {
+			@SuppressWarnings("unchecked")
+			A current = (A) b.getUserData();
+			actionHandler.exec(current);
+		});
 
 		return b;
 	}
 
+	/**
+	 * Points the button at the item, a button made by the getter can't be
+	 * reused since it may depend on the item
+	 */
+	@Override
+	public boolean updateNode(Node node, A item) {
+		if (getter != null) {
+			return false;
+		}
+
+		node.setUserData(item);
+		return true;
+	}
+
 	@Override
 	public boolean isValid() {
 		return true;
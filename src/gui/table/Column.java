@@ -22,6 +22,24 @@ public abstract class Column<A> {
 
 	public abstract boolean isValid();
 
+	/**
+	 * Updates a node made by getNode to show the item's current values. The
+	 * item can be another item than the node was made for, when a virtualized
+	 * table reuses the node for the item scrolled into view
+	 * 
+	 * @return false if the node can't be updated and must be made again
+	 */
+	public boolean updateNode(Node node, A item) {
+		return false;
+	}
+
+	/**
+	 * Called when the table stops showing a node made by getNode. A
+	 * virtualized table can still give the node to updateNode later
+	 */
+	public void discardNode(Node node) {
+	}
+
 	public String getName() {
 		return name;
 	}
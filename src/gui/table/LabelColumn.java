@@ -38,12 +38,17 @@ public class LabelColumn<A> extends Column<A> {
 		return label;
 	}
 
+	@Override
+	public boolean updateNode(Node node, A item) {
+		node.setUserData(item);
+		setText((Label) node, item);
+		return true;
+	}
+
 	private void setText(Label label, A item) {
 		final String value = getter.get(item);
 
-		if (value != null) {
-			label.setText(value);
-		}
+		label.setText(value == null ? "" : value);
 	}
 
 	@Override
@@ -1,5 +1,7 @@
 package gui.table;
 
+import java.util.Objects;
+
 import javafx.scene.Node;
 import javafx.scene.control.ComboBox;
 
@@ -33,14 +35,32 @@ public class ListColumn<A, B> extends Column<A> {
 		ComboBox<B> cb = new ComboBox<>();
 		B value = getter.get(owner);
 
+		cb.setUserData(owner);
 		cb.getItems().setAll(values);
 		cb.setValue(value);
-		cb.valueProperty().addListener(
-				e -> setter.set(owner, cb.getSelectionModel().getSelectedItem()));
+		cb.valueProperty().addListener(e -> {
+			@SuppressWarnings("unchecked")
+			A current = (A) cb.getUserData();
+			B selected = cb.getSelectionModel().getSelectedItem();
+
+			// Showing the value of another item isn't a change
+			if (!Objects.equals(selected, getter.get(current))) {
+				setter.set(current, selected);
+			}
+		});
 
 		return cb;
 	}
 
+	@Override
+	@SuppressWarnings("unchecked")
+	public boolean updateNode(Node node, A item) {
+		ComboBox<B> cb = (ComboBox<B>) node;
+		cb.setUserData(item);
+		cb.setValue(getter.get(item));
+		return true;
+	}
+
 	@Override
 	public boolean isValid() {
 		return true;
@@ -1,7 +1,7 @@
 package gui.table;
 
-import java.util.ArrayList;
-import java.util.List;
+import java.util.HashMap;
+import java.util.Map;
 
 import javafx.scene.Node;
 import javafx.scene.control.TextField;
@@ -11,7 +11,8 @@ public class PrimitiveColumn<A, B> extends Column<A> {
 	private final Getter<A, B> getter;
 	private final Setter<A, B> setter;
 	private final Validator<A> validator;
-	private final List<Boolean> validity = new ArrayList<>();
+	// The validity of the text of each text field shown
+	private final Map<TextField, Boolean> validity = new HashMap<>();
 
 	/**
 	 * @param type
@@ -47,11 +48,11 @@ public class PrimitiveColumn<A, B> extends Column<A> {
 
 	@Override
 	public Node getNode(A item) {
-		final int id = validity.size();
 		final TextField tf = new TextField();
 		final B value = getter.get(item);
 
-		validity.add(true);
+		tf.setUserData(item);
+		validity.put(tf, true);
 
 		if (value != null) {
 			tf.setText(value.toString());
@@ -60,11 +61,14 @@ public class PrimitiveColumn<A, B> extends Column<A> {
 		}
 
 		tf.setOnKeyReleased(e -> {
+			// The item the field shows now, it changes when the field is reused
+			@SuppressWarnings("unchecked")
+			final A current = (A) tf.getUserData();
 			final String text = tf.getText();
 			final String error = ((validator == null) ? null
-					: validator.validate(item, text));
+					: validator.validate(current, text));
 
-			validity.set(id, error == null);
+			validity.put(tf, error == null);
 
 			if (error == null) {
 				B parsedValue;
@@ -75,7 +79,7 @@ public class PrimitiveColumn<A, B> extends Column<A> {
 					parsedValue = type.parse(text);
 				}
 
-				setter.set(item, parsedValue);
+				setter.set(current, parsedValue);
 
 				if (validationHandler != null) {
 					validationHandler.onValidate(null, true);
@@ -90,9 +94,33 @@ public class PrimitiveColumn<A, B> extends Column<A> {
 		return tf;
 	}
 
+	@Override
+	public boolean updateNode(Node node, A item) {
+		final TextField tf = (TextField) node;
+
+		// Leaves the text alone while it is being edited, unless the field is
+		// reused for another item
+		if (tf.getUserData() != item) {
+			tf.setUserData(item);
+			validity.put(tf, true);
+			final B value = getter.get(item);
+			tf.setText(value == null ? "" : value.toString());
+		} else if (!tf.isFocused()) {
+			final B value = getter.get(item);
+			tf.setText(value == null ? "" : value.toString());
+		}
+
+		return true;
+	}
+
+	@Override
+	public void discardNode(Node node) {
+		validity.remove(node);
+	}
+
 	@Override
 	public boolean isValid() {
-		for (boolean validity : this.validity) {
+		for (boolean validity : this.validity.values()) {
 			if (!validity)
 				return false;
 		}
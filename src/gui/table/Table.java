@@ -1,24 +1,174 @@
 package gui.table;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 
+import javafx.geometry.Orientation;
 import javafx.scene.Node;
 import javafx.scene.control.Label;
+import javafx.scene.control.ScrollBar;
 import javafx.scene.layout.ColumnConstraints;
 import javafx.scene.layout.GridPane;
+import javafx.scene.layout.HBox;
+import javafx.scene.layout.Priority;
+import javafx.scene.layout.Region;
+import javafx.scene.layout.RowConstraints;
 
 public class Table<A> {
 	private final GridPane pane = new GridPane();
 	private List<A> items = new ArrayList<>();
+	// The nodes of each row by column, null where a column has no node. When
+	// virtualized, the nodes of each row in view
+	private List<Node[]> rows = new ArrayList<>();
 	private final List<Column<A>> columns = new ArrayList<>();
 	private final ValidationHandler validationHanlder;
 
+	// Only the rows in view have nodes in a virtualized table, and the nodes
+	// are reused for the items scrolled into view
+	private final boolean virtualized;
+	private final double rowHeight;
+	private HBox view;
+	private ScrollBar scrollBar;
+	// The index of the item in the first row in view
+	private int first = 0;
+
 	public Table(ValidationHandler validationHanlder) {
 		this.validationHanlder = validationHanlder;
+		this.virtualized = false;
+		this.rowHeight = 0;
+
+		pane.setHgap(10);
+		pane.setVgap(10);
+	}
+
+	/**
+	 * Makes a virtualized table, which only has nodes for the rows in view
+	 * and scrolls itself. The rows get the fixed height, show the table with
+	 * getView
+	 */
+	public Table(ValidationHandler validationHanlder, double rowHeight) {
+		assert rowHeight > 0;
+
+		this.validationHanlder = validationHanlder;
+		this.virtualized = true;
+		this.rowHeight = rowHeight;
 
 		pane.setHgap(10);
 		pane.setVgap(10);
+		pane.getRowConstraints().add(new RowConstraints(rowHeight, rowHeight, rowHeight));
+		HBox.setHgrow(pane, Priority.ALWAYS);
+
+		scrollBar = new ScrollBar();
+		scrollBar.setOrientation(Orientation.VERTICAL);
+		scrollBar.setMin(0);
+		scrollBar.setUnitIncrement(1);
+		scrollBar.valueProperty().addListener(e -> render());
+
+		view = new HBox(pane, scrollBar);
+		view.setMinHeight(0);
+		view.setPrefHeight(20 * (rowHeight + pane.getVgap()));
+		view.heightProperty().addListener(e -> fitRows());
+		view.setOnScroll(e -> scrollTo(
+				scrollBar.getValue() - e.getDeltaY() / (rowHeight + pane.getVgap())));
+	}
+
+	/**
+	 * Makes as many rows as fit in the height of the view
+	 */
+	private void fitRows() {
+		int count = Math.max(1,
+				(int) (view.getHeight() / (rowHeight + pane.getVgap())) - 1);
+
+		while (rows.size() < count) {
+			rows.add(new Node[columns.size()]);
+			pane.getRowConstraints()
+					.add(new RowConstraints(rowHeight, rowHeight, rowHeight));
+		}
+
+		while (rows.size() > count) {
+			Node[] nodes = rows.remove(rows.size() - 1);
+
+			for (int col = 0; col < nodes.length; col++) {
+				discard(col, nodes[col]);
+			}
+			pane.getRowConstraints().remove(pane.getRowConstraints().size() - 1);
+		}
+
+		refresh();
+	}
+
+	private void scrollTo(double value) {
+		scrollBar.setValue(Math.max(scrollBar.getMin(), Math.min(scrollBar.getMax(), value)));
+	}
+
+	/**
+	 * Fits the scroll bar to the items and shows the rows in view
+	 */
+	private void refresh() {
+		scrollBar.setMax(Math.max(0, items.size() - rows.size()));
+		scrollBar.setVisibleAmount(Math.max(1, rows.size()));
+		scrollBar.setBlockIncrement(Math.max(1, rows.size() - 1));
+		scrollTo(scrollBar.getValue());
+		first = -1;
+		render();
+	}
+
+	/**
+	 * Shows the items from the scroll position in the rows, reusing the nodes
+	 * of the rows
+	 */
+	private void render() {
+		int newFirst = (int) scrollBar.getValue();
+
+		if (newFirst == first) {
+			return;
+		}
+
+		first = newFirst;
+
+		for (int row = 0; row < rows.size(); row++) {
+			int index = first + row;
+			showItem(row, index < items.size() ? items.get(index) : null);
+		}
+	}
+
+	/**
+	 * Shows the item in the row in view, or nothing if the item is null
+	 */
+	private void showItem(int row, A item) {
+		Node[] nodes = rows.get(row);
+
+		for (int col = 0; col < columns.size(); col++) {
+			Column<A> column = columns.get(col);
+			Node node = nodes[col];
+
+			if (item == null) {
+				// Kept to be reused when an item is scrolled into the row
+				discard(col, node);
+				continue;
+			}
+
+			if (node == null || !column.updateNode(node, item)) {
+				discard(col, node);
+				node = column.getNode(item);
+				nodes[col] = node;
+			}
+
+			if (node != null && node.getParent() != pane) {
+				pane.add(node, col, row + 1);
+			}
+		}
+	}
+
+	/**
+	 * Takes the node of the column out of the pane, if there is one
+	 */
+	private void discard(int col, Node node) {
+		if (node != null) {
+			pane.getChildren().remove(node);
+			columns.get(col).discardNode(node);
+		}
 	}
 
 	/**
@@ -27,8 +177,24 @@ public class Table<A> {
 	public void setItems(List<A> items) {
 		assert items != null;
 
-		pane.getChildren().removeAll();
+		if (virtualized) {
+			this.items = new ArrayList<>(items);
+			refresh();
+			return;
+		}
+
+		pane.getChildren().remove(columns.size(), pane.getChildren().size());
+
+		for (Node[] nodes : rows) {
+			for (int col = 0; col < nodes.length; col++) {
+				if (nodes[col] != null) {
+					columns.get(col).discardNode(nodes[col]);
+				}
+			}
+		}
+
 		this.items = new ArrayList<>();
+		this.rows = new ArrayList<>();
 
 		for (A item : items) {
 			addItem(item);
@@ -47,7 +213,13 @@ public class Table<A> {
 
 		this.items.add(item);
 
+		if (virtualized) {
+			refresh();
+			return;
+		}
+
 		int row = this.items.size();
+		Node[] nodes = new Node[columns.size()];
 
 		for (int col = 0; col < columns.size(); col++) {
 			Column<A> column = columns.get(col);
@@ -56,9 +228,54 @@ public class Table<A> {
 			if (node != null) {
 				pane.add(node, col, row);
 			}
+			nodes[col] = node;
+		}
+
+		rows.add(nodes);
+	}
+
+	/**
+	 * updates the row of an item in place after the item has changed
+	 * 
+	 * @param item
+	 *            must be in the table
+	 */
+	public void updateItem(A item) {
+		assert item != null;
+
+		int index = items.indexOf(item);
+		assert index >= 0;
+
+		if (virtualized) {
+			if (index >= first && index < first + rows.size()) {
+				showItem(index - first, item);
+			}
+			return;
+		}
+
+		Node[] nodes = rows.get(index);
+
+		for (int col = 0; col < columns.size(); col++) {
+			Column<A> column = columns.get(col);
+			Node node = nodes[col];
+
+			if (node != null && column.updateNode(node, item)) {
+				continue;
+			}
+
+			discard(col, node);
+			node = column.getNode(item);
+			if (node != null) {
+				pane.add(node, col, index + 1);
+			}
+			nodes[col] = node;
 		}
 	}
 
+	public boolean contains(A item) {
+		return items.contains(item);
+	}
+
 	/**
 	 * removes an item from the table
 	 * 
@@ -71,7 +288,10 @@ public class Table<A> {
 
 		this.items.remove(item);
 
-		pane.getChildren().remove(columns.size() - 1, pane.getChildren().size());
+		if (virtualized) {
+			refresh();
+			return;
+		}
 
 		setItems(new ArrayList<>(this.items));
 	}
@@ -83,6 +303,14 @@ public class Table<A> {
 		return pane;
 	}
 
+	/**
+	 * Returns the node to show the table in, the pane or, when virtualized,
+	 * the pane and its scroll bar
+	 */
+	public Region getView() {
+		return virtualized ? view : pane;
+	}
+
 	/**
 	 * adds a column to the table
 	 * 
@@ -114,6 +342,11 @@ public class Table<A> {
 		}
 		pane.getColumnConstraints().add(cc);
 		pane.add(columnName, columns.size() - 1, 0);
+
+		if (virtualized) {
+			rows.replaceAll(nodes -> Arrays.copyOf(nodes, columns.size()));
+			refresh();
+		}
 	}
 
 	public boolean isValid() {
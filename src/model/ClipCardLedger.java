@@ -0,0 +1,129 @@
+package model;
+
+import java.io.Serializable;
+import java.util.HashMap;
+import java.util.Map;
+
+import exceptions.DiscountParseException;
+
+/**
+ * Keeps the clips issued by the clip cards sold and the clips redeemed by clip
+ * card payments, so the outstanding clips and their value are known at any
+ * time. Each order remembers what it booked, so it can be booked again when it
+ * changes
+ */
+public class ClipCardLedger implements Serializable {
+	private static final long serialVersionUID = 1L;
+
+	private long issuedClips;
+	private long issuedValue;
+	private long redeemedClips;
+	private final Map<Order, Entry> entries = new HashMap<>();
+
+	/**
+	 * What an order has booked in the ledger
+	 */
+	private static class Entry implements Serializable {
+		private static final long serialVersionUID = 1L;
+
+		final long issuedClips;
+		final long issuedValue;
+		final long redeemedClips;
+
+		Entry(long issuedClips, long issuedValue, long redeemedClips) {
+			this.issuedClips = issuedClips;
+			this.issuedValue = issuedValue;
+			this.redeemedClips = redeemedClips;
+		}
+	}
+
+	/**
+	 * Books the order as it is now, replacing what it booked before. The clip
+	 * cards of the order are issued once it is paid, its clip card payments
+	 * are redeemed when they are made
+	 * 
+	 * @throws DiscountParseException
+	 *             if a line can't be priced, the order keeps what it booked
+	 */
+	public synchronized void record(Order order, PaymentStatus status)
+			throws DiscountParseException {
+		assert order != null;
+		assert status != null;
+
+		long issued = 0;
+		long value = 0;
+		long redeemed = 0;
+
+		if (status != PaymentStatus.UNPAID) {
+			for (ProductOrder productOrder : order.getProductOrders()) {
+				if (productOrder.getProduct() instanceof ClipCardProduct) {
+					issued += (long) productOrder.getAmount()
+							* ((ClipCardProduct) productOrder.getProduct()).getCardClips();
+					value += productOrder.priceOre();
+				}
+			}
+		}
+
+		for (Payment payment : order.getPayments()) {
+			if (payment.getPaymentType() == PaymentType.CLIP_CARD) {
+				redeemed += payment.getClips();
+			}
+		}
+
+		remove(order);
+
+		if (issued != 0 || redeemed != 0) {
+			entries.put(order, new Entry(issued, value, redeemed));
+			issuedClips += issued;
+			issuedValue += value;
+			redeemedClips += redeemed;
+		}
+	}
+
+	/**
+	 * Takes what the order booked out of the ledger
+	 */
+	public synchronized void remove(Order order) {
+		Entry entry = entries.remove(order);
+
+		if (entry != null) {
+			issuedClips -= entry.issuedClips;
+			issuedValue -= entry.issuedValue;
+			redeemedClips -= entry.redeemedClips;
+		}
+	}
+
+	public synchronized long getIssuedClips() {
+		return issuedClips;
+	}
+
+	public synchronized long getRedeemedClips() {
+		return redeemedClips;
+	}
+
+	/**
+	 * Returns the clips issued and not yet redeemed. It is negative if more
+	 * clips are redeemed than issued, as with cards sold before the ledger
+	 */
+	public synchronized long getOutstandingClips() {
+		return issuedClips - redeemedClips;
+	}
+
+	/**
+	 * Returns the value in øre of the outstanding clips, at the average price
+	 * paid per clip issued
+	 */
+	public synchronized long getLiabilityOre() {
+		long outstanding = getOutstandingClips();
+
+		if (issuedClips == 0 || outstanding <= 0) {
+			return 0;
+		}
+
+		return Money.share(issuedValue, outstanding, issuedClips);
+	}
+
+	public double getLiability() {
+		return Money.toKroner(getLiabilityOre());
+	}
+}
@@ -0,0 +1,40 @@
+package model;
+
+import java.io.Serializable;
+
+/**
+ * A clip card, a product that gives the buyer a number of clips to pay with
+ * later
+ */
+public class ClipCardProduct extends Product implements Serializable {
+	private static final long serialVersionUID = 1L;
+
+	private int cardClips;
+
+	public ClipCardProduct(String name, String category, String image, int cardClips) {
+		// A clip card can't be paid with clips
+		super(name, null, category, image);
+
+		assert cardClips > 0;
+
+		this.cardClips = cardClips;
+	}
+
+	/**
+	 * Returns the number of clips a card gives
+	 */
+	public int getCardClips() {
+		return cardClips;
+	}
+
+	public void setCardClips(int cardClips) {
+		assert cardClips > 0;
+
+		this.cardClips = cardClips;
+	}
+
+	@Override
+	public boolean isClipCard() {
+		return true;
+	}
+}
@@ -1,8 +1,15 @@
 package model;
 
+import java.io.IOException;
+import java.io.ObjectInputStream;
 import java.io.Serializable;
 
 public class Customer extends Person implements Comparable<Customer>, Serializable {
+	private static final long serialVersionUID = 1L;
+
+	private static final IdSequence ids = new IdSequence();
+
+	private final int id;
 	private String address;
 	private String phone;
 	private String email;
@@ -10,11 +17,25 @@ public class Customer extends Person implements Comparable<Customer>, Serializab
 	public Customer(String name, String address, String phone, String email) {
 		super(name);
 
+		this.id = ids.take();
 		this.address = address;
 		this.phone = phone;
 		this.email = email;
 	}
 
+	private void readObject(ObjectInputStream in)
+			throws IOException, ClassNotFoundException {
+		in.defaultReadObject();
+		ids.loaded(id);
+	}
+
+	/**
+	 * Returns a unique number that stays the same when saved and loaded
+	 */
+	public int getId() {
+		return id;
+	}
+
 	@Override
 	public String toString() {
 		return name;
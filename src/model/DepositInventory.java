@@ -0,0 +1,235 @@
+package model;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.TreeMap;
+
+/**
+ * Keeps the units of each deposit product that are out on rental, the deposit
+ * held for them and the days they are due back, so they are known without
+ * looking through the orders. The rental lines that are out are kept in a
+ * timing wheel by their due day, which flags them as overdue once it passes
+ */
+public class DepositInventory {
+	// What each rental line is recorded as, and the lines of each order
+	private final Map<RentalProductOrder, Line> lines = new HashMap<>();
+	private final Map<Order, List<RentalProductOrder>> linesOf = new HashMap<>();
+	private final Map<DepositProduct, Stock> stocks = new HashMap<>();
+	private final TimingWheel<RentalProductOrder> dueWheel;
+	private final Set<RentalProductOrder> overdue = new LinkedHashSet<>();
+
+	/**
+	 * The units of a rental line that are out, when it was recorded
+	 */
+	private static class Line {
+		final DepositProduct product;
+		final int out;
+		final long held;
+		final LocalDate due;
+
+		Line(DepositProduct product, int out, long held, LocalDate due) {
+			this.product = product;
+			this.out = out;
+			this.held = held;
+			this.due = due;
+		}
+	}
+
+	/**
+	 * The sums of the lines of a deposit product
+	 */
+	private static class Stock {
+		int out;
+		long held;
+		final NavigableMap<LocalDate, Integer> dueBack = new TreeMap<>();
+		final Set<RentalProductOrder> lines = new LinkedHashSet<>();
+	}
+
+	public DepositInventory(LocalDate today) {
+		dueWheel = new TimingWheel<>(today);
+	}
+
+	/**
+	 * Records the rental lines of the order as they are now, replacing what
+	 * they were recorded as before. Lines removed from the order are taken
+	 * out, and so are all its lines while its deposit isn't paid, since the
+	 * units haven't left yet
+	 */
+	public synchronized void record(Order order, boolean depositPaid) {
+		assert order != null;
+
+		List<RentalProductOrder> old = linesOf.remove(order);
+
+		if (old != null) {
+			for (RentalProductOrder productOrder : old) {
+				remove(productOrder);
+			}
+		}
+
+		List<RentalProductOrder> current = order.getRentalProductOrders();
+
+		if (!depositPaid || current.isEmpty()) {
+			return;
+		}
+
+		linesOf.put(order, current);
+
+		for (RentalProductOrder productOrder : current) {
+			add(productOrder);
+		}
+	}
+
+	/**
+	 * Records the lines of the deposit product again, used when its deposit
+	 * changes
+	 */
+	public synchronized void revalue(DepositProduct product) {
+		Stock stock = stocks.get(product);
+
+		if (stock == null) {
+			return;
+		}
+
+		for (RentalProductOrder productOrder : new ArrayList<>(stock.lines)) {
+			remove(productOrder);
+			add(productOrder);
+		}
+	}
+
+	private void add(RentalProductOrder productOrder) {
+		DepositProduct product = (DepositProduct) productOrder.getProduct();
+		int out = productOrder.getOut();
+
+		if (out == 0) {
+			return;
+		}
+
+		Line line = new Line(product, out, out * product.getDepositOre(),
+				productOrder.getDue());
+		lines.put(productOrder, line);
+
+		Stock stock = stocks.computeIfAbsent(product, p -> new Stock());
+		stock.out += line.out;
+		stock.held += line.held;
+		stock.lines.add(productOrder);
+
+		if (line.due != null) {
+			stock.dueBack.merge(line.due, line.out, Integer::sum);
+
+			if (line.due.isBefore(dueWheel.getDay())) {
+				overdue.add(productOrder);
+			} else {
+				dueWheel.schedule(productOrder, line.due);
+			}
+		}
+	}
+
+	private void remove(RentalProductOrder productOrder) {
+		Line line = lines.remove(productOrder);
+
+		if (line == null) {
+			return;
+		}
+
+		Stock stock = stocks.get(line.product);
+		stock.out -= line.out;
+		stock.held -= line.held;
+		stock.lines.remove(productOrder);
+
+		if (line.due != null) {
+			stock.dueBack.merge(line.due, -line.out, Integer::sum);
+			stock.dueBack.remove(line.due, 0);
+		}
+
+		if (stock.lines.isEmpty()) {
+			stocks.remove(line.product);
+		}
+
+		dueWheel.cancel(productOrder);
+		overdue.remove(productOrder);
+	}
+
+	public synchronized void clear() {
+		for (RentalProductOrder productOrder : new ArrayList<>(lines.keySet())) {
+			remove(productOrder);
+		}
+
+		linesOf.clear();
+	}
+
+	/**
+	 * Moves to the day and returns the rental lines that became overdue, the
+	 * lines not returned by the end of their due day
+	 */
+	public synchronized List<RentalProductOrder> advanceTo(LocalDate day) {
+		List<RentalProductOrder> newlyOverdue = dueWheel.advanceTo(day);
+		overdue.addAll(newlyOverdue);
+		return newlyOverdue;
+	}
+
+	/**
+	 * Returns the rental lines that are overdue, in the order they became it
+	 */
+	public synchronized List<RentalProductOrder> getOverdue() {
+		return new ArrayList<>(overdue);
+	}
+
+	public synchronized boolean isOverdue(RentalProductOrder productOrder) {
+		return overdue.contains(productOrder);
+	}
+
+	/**
+	 * Returns the deposit products with units out
+	 */
+	public synchronized List<DepositProduct> getProductsOut() {
+		return new ArrayList<>(stocks.keySet());
+	}
+
+	public synchronized int getUnitsOut(DepositProduct product) {
+		Stock stock = stocks.get(product);
+		return stock == null ? 0 : stock.out;
+	}
+
+	/**
+	 * Returns the deposit in øre held for the units of the product that are
+	 * out
+	 */
+	public synchronized long getDepositHeldOre(DepositProduct product) {
+		Stock stock = stocks.get(product);
+		return stock == null ? 0 : stock.held;
+	}
+
+	/**
+	 * Returns the deposit in øre held for all the units that are out
+	 */
+	public synchronized long getDepositHeldOre() {
+		long held = 0;
+
+		for (Stock stock : stocks.values()) {
+			held += stock.held;
+		}
+
+		return held;
+	}
+
+	/**
+	 * Returns the units of the product due back by each day
+	 */
+	public synchronized NavigableMap<LocalDate, Integer> getDueBack(
+			DepositProduct product) {
+		Stock stock = stocks.get(product);
+
+		if (stock == null) {
+			return Collections.emptyNavigableMap();
+		}
+
+		return Collections.unmodifiableNavigableMap(new TreeMap<>(stock.dueBack));
+	}
+}
@@ -3,7 +3,9 @@ package model;
 import java.io.Serializable;
 
 public class DepositProduct extends Product implements Serializable {
-	private double deposit;
+	private static final long serialVersionUID = 1L;
+
+	private long deposit;
 
 	public DepositProduct(String name, Integer clips, String category, String image,
 			double deposit) {
@@ -11,14 +13,18 @@ public class DepositProduct extends Product implements Serializable {
 
 		assert deposit >= 0;
 
-		this.deposit = deposit;
+		this.deposit = Money.ofKroner(deposit);
 	}
 
 	public double getDeposit() {
+		return Money.toKroner(deposit);
+	}
+
+	public long getDepositOre() {
 		return deposit;
 	}
 
 	public void setDeposit(double deposit) {
-		this.deposit = deposit;
+		this.deposit = Money.ofKroner(deposit);
 	}
 }
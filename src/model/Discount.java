@@ -5,27 +5,45 @@ import exceptions.DiscountParseException;
 import java.io.Serializable;
 
 public class Discount implements Serializable {
-	private double discountAmount;
+	private static final long serialVersionUID = 1L;
+
+	// øre for SUBTRACT and NEW, hundredths of a percent for PERCENT
+	private long discountAmount;
 	private DiscountType discountType;
 
 	public String getValue() {
 		if (discountType == null) {
 			return null;
 		} else if (discountType == DiscountType.SUBTRACT) {
-			return "-" + Double.toString(discountAmount);
+			return "-" + formatAmount(discountAmount);
 		} else if (discountType == DiscountType.PERCENT) {
-			return Double.toString(discountAmount) + "%";
+			return formatAmount(discountAmount) + "%";
 		} else {
-			return Double.toString(discountAmount);
+			return formatAmount(discountAmount);
 		}
 	}
 
+	private static String formatAmount(long hundredths) {
+		if (hundredths % 100 == 0) {
+			return Long.toString(hundredths / 100);
+		}
+		return Double.toString(hundredths / 100.0);
+	}
+
+	/**
+	 * @param discountAmount
+	 *            kroner for SUBTRACT and NEW, a fraction for PERCENT
+	 */
 	public void setDiscount(double discountAmount, DiscountType discountType) {
 		assert discountAmount >= 0;
 		assert discountType != null;
 
 		this.discountType = discountType;
-		this.discountAmount = discountAmount;
+		if (discountType == DiscountType.PERCENT) {
+			this.discountAmount = Math.round(discountAmount * 10000);
+		} else {
+			this.discountAmount = Money.ofKroner(discountAmount);
+		}
 	}
 
 	/**
@@ -38,7 +56,8 @@ public class Discount implements Serializable {
 		assert discount != null && discount.matches("(-?\\d+)|(\\d+%?)");
 
 		if (discount.isEmpty()) {
-			setDiscount(0, null);
+			discountType = null;
+			discountAmount = 0;
 		} else if (discount.startsWith("-")) {
 			setDiscount(Double.parseDouble(discount.substring(1, discount.length())),
 					DiscountType.SUBTRACT);
@@ -56,9 +75,9 @@ public class Discount implements Serializable {
 	}
 
 	/**
-	 * Returns the price after applying the appropriate discount
+	 * Returns the price in øre after applying the appropriate discount
 	 */
-	public double getPrice(double total) throws DiscountParseException {
+	public long getPrice(long total) throws DiscountParseException {
 		assert total >= 0;
 
 		if (discountType == null) {
@@ -67,16 +86,16 @@ public class Discount implements Serializable {
 
 		if (discountType == DiscountType.SUBTRACT) {
 			if (discountAmount > total) {
-				throw new DiscountParseException(
-						discountAmount + " rabat er h\u00F8jere end " + total);
+				throw new DiscountParseException(Money.toKroner(discountAmount)
+						+ " rabat er h\u00F8jere end " + Money.toKroner(total));
 			}
 			return total - discountAmount;
 		} else if (discountType == DiscountType.PERCENT) {
-			if (discountAmount > 1) {
+			if (discountAmount > 10000) {
 				throw new DiscountParseException(
-						discountAmount * 100 + "% er mere end 100% rabat");
+						formatAmount(discountAmount) + "% er mere end 100% rabat");
 			}
-			return total * (1 - discountAmount);
+			return Money.minusPercent(total, discountAmount);
 		} else {
 			return discountAmount;
 		}
@@ -0,0 +1,204 @@
+package model;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The discount rules of a pricelist compiled into arrays indexed by product id,
+ * so the price of a product order is found without looking at the rules. A plan
+ * never changes, orders keep the plan of their pricelist from when they were
+ * made
+ */
+public class DiscountPlan implements Serializable {
+	private static final long serialVersionUID = 1L;
+
+	public static final DiscountPlan EMPTY = new Builder().build();
+
+	// Best percentage in hundredths of a percent by product id
+	private final long[] percent;
+	// Quantity break by product id, a quantity of zero means none
+	private final int[] breakQuantity;
+	private final long[] breakPrice;
+	// Time windows in minutes of the day, with a percentage by product id
+	private final int[] windowFrom;
+	private final int[] windowTo;
+	private final long[][] windowPercent;
+	private final Map<Customer, Long> customerRates;
+
+	private DiscountPlan(Builder builder) {
+		percent = builder.percent;
+		breakQuantity = builder.breakQuantity;
+		breakPrice = builder.breakPrice;
+		windowFrom = builder.windowFrom.stream().mapToInt(Integer::intValue).toArray();
+		windowTo = builder.windowTo.stream().mapToInt(Integer::intValue).toArray();
+		windowPercent = builder.windowPercent.toArray(new long[0][]);
+		customerRates = new HashMap<>(builder.customerRates);
+	}
+
+	public static DiscountPlan compile(Pricelist pricelist, List<DiscountRule> rules) {
+		if (rules.isEmpty()) {
+			return EMPTY;
+		}
+
+		Builder builder = new Builder();
+		for (DiscountRule rule : rules) {
+			rule.compile(builder, pricelist);
+		}
+
+		return builder.build();
+	}
+
+	/**
+	 * Returns the customer's percentage in hundredths of a percent
+	 */
+	public long customerRate(Customer customer) {
+		if (customer == null) {
+			return 0;
+		}
+
+		return customerRates.getOrDefault(customer, 0L);
+	}
+
+	/**
+	 * Returns the lowest price in øre any of the rules gives the product order
+	 * 
+	 * @param minute
+	 *            the minute of the day the product order was made
+	 * @param customerRate
+	 *            the percentage of the order's customer
+	 */
+	public long linePrice(int productId, long unitPrice, int amount, int minute,
+			long customerRate) {
+		long full = unitPrice * amount;
+		long best = full;
+		long bestPercent = customerRate;
+
+		if (productId < percent.length) {
+			bestPercent = Math.max(bestPercent, percent[productId]);
+
+			int quantity = breakQuantity[productId];
+			if (quantity > 0 && amount >= quantity) {
+				best = Math.min(best, amount / quantity * breakPrice[productId]
+						+ amount % quantity * unitPrice);
+			}
+
+			bestPercent = Math.max(bestPercent, windowPercent(productId, minute));
+		}
+
+		if (bestPercent > 0) {
+			best = Math.min(best, Money.minusPercent(full, bestPercent));
+		}
+
+		return best;
+	}
+
+	/**
+	 * Returns true if the time windows give the product the same percentage at
+	 * both minutes of the day, so a line made at one can take units added at
+	 * the other
+	 */
+	public boolean sameWindowPercent(int productId, int minute, int otherMinute) {
+		if (productId >= percent.length) {
+			return true;
+		}
+
+		return windowPercent(productId, minute) == windowPercent(productId, otherMinute);
+	}
+
+	private long windowPercent(int productId, int minute) {
+		long bestPercent = 0;
+
+		for (int w = 0; w < windowFrom.length; w++) {
+			if (inWindow(w, minute)) {
+				bestPercent = Math.max(bestPercent, windowPercent[w][productId]);
+			}
+		}
+
+		return bestPercent;
+	}
+
+	private boolean inWindow(int window, int minute) {
+		int from = windowFrom[window];
+		int to = windowTo[window];
+
+		if (from <= to) {
+			return minute >= from && minute < to;
+		}
+
+		// Past midnight
+		return minute >= from || minute < to;
+	}
+
+	/**
+	 * Collects the compiled rules, keeping the best rule where they overlap
+	 */
+	static class Builder {
+		private long[] percent = new long[0];
+		private int[] breakQuantity = new int[0];
+		private long[] breakPrice = new long[0];
+		private final List<Integer> windowFrom = new ArrayList<>();
+		private final List<Integer> windowTo = new ArrayList<>();
+		private final List<long[]> windowPercent = new ArrayList<>();
+		private final Map<Customer, Long> customerRates = new HashMap<>();
+
+		private void ensureCapacity(int productId) {
+			if (productId < percent.length) {
+				return;
+			}
+
+			int length = Math.max(productId + 1, percent.length * 2);
+			percent = Arrays.copyOf(percent, length);
+			breakQuantity = Arrays.copyOf(breakQuantity, length);
+			breakPrice = Arrays.copyOf(breakPrice, length);
+
+			for (int w = 0; w < windowPercent.size(); w++) {
+				windowPercent.set(w, Arrays.copyOf(windowPercent.get(w), length));
+			}
+		}
+
+		void percent(int productId, long basisPoints) {
+			ensureCapacity(productId);
+			percent[productId] = Math.max(percent[productId], basisPoints);
+		}
+
+		void quantityBreak(int productId, int quantity, long price) {
+			ensureCapacity(productId);
+
+			int oldQuantity = breakQuantity[productId];
+			// Keeps the break with the lowest price per unit
+			if (oldQuantity == 0 || price * oldQuantity < breakPrice[productId] * quantity) {
+				breakQuantity[productId] = quantity;
+				breakPrice[productId] = price;
+			}
+		}
+
+		/**
+		 * Adds a time window and returns its index
+		 */
+		int window(int from, int to) {
+			windowFrom.add(from);
+			windowTo.add(to);
+			windowPercent.add(new long[percent.length]);
+			return windowPercent.size() - 1;
+		}
+
+		void windowPercent(int window, int productId, long basisPoints) {
+			ensureCapacity(productId);
+
+			long[] percents = windowPercent.get(window);
+			percents[productId] = Math.max(percents[productId], basisPoints);
+		}
+
+		void customerRate(Customer customer, long basisPoints) {
+			customerRates.merge(customer, basisPoints, Math::max);
+		}
+
+		DiscountPlan build() {
+			return new DiscountPlan(this);
+		}
+	}
+}
@@ -0,0 +1,177 @@
+package model;
+
+import java.io.Serializable;
+import java.time.LocalTime;
+
+/**
+ * A discount rule of a pricelist. The rules are compiled into a DiscountPlan,
+ * where the best rule for each product order wins
+ */
+public abstract class DiscountRule implements Serializable {
+	private static final long serialVersionUID = 1L;
+
+	/**
+	 * Adds the rule to the plan being built for the pricelist
+	 */
+	abstract void compile(DiscountPlan.Builder plan, Pricelist pricelist);
+
+	/**
+	 * Every full quantity of the product costs the price, e.g. a 6-pack
+	 */
+	public static DiscountRule quantityBreak(Product product, int quantity,
+			double price) {
+		return new QuantityBreak(product, quantity, Money.ofKroner(price));
+	}
+
+	/**
+	 * A percentage off every product in the category
+	 */
+	public static DiscountRule categoryPercent(String category, double percent) {
+		return new CategoryPercent(category, basisPoints(percent));
+	}
+
+	/**
+	 * A percentage off the products in the category, or all products if
+	 * category is null, for product orders made between from and to
+	 */
+	public static DiscountRule happyHour(String category, LocalTime from,
+			LocalTime to, double percent) {
+		return new HappyHour(category, from, to, basisPoints(percent));
+	}
+
+	/**
+	 * A percentage off everything the customer buys
+	 */
+	public static DiscountRule customerRate(Customer customer, double percent) {
+		return new CustomerRate(customer, basisPoints(percent));
+	}
+
+	private static long basisPoints(double percent) {
+		assert percent >= 0 && percent <= 100;
+
+		return Math.round(percent * 100);
+	}
+
+	private static String formatPercent(long basisPoints) {
+		return basisPoints / 100.0 + "%";
+	}
+
+	static int minuteOfDay(LocalTime time) {
+		return time.getHour() * 60 + time.getMinute();
+	}
+
+	private static class QuantityBreak extends DiscountRule {
+		private static final long serialVersionUID = 1L;
+
+		private final Product product;
+		private final int quantity;
+		private final long price;
+
+		QuantityBreak(Product product, int quantity, long price) {
+			assert product != null;
+			assert quantity > 1;
+			assert price >= 0;
+
+			this.product = product;
+			this.quantity = quantity;
+			this.price = price;
+		}
+
+		@Override
+		void compile(DiscountPlan.Builder plan, Pricelist pricelist) {
+			plan.quantityBreak(product.getId(), quantity, price);
+		}
+
+		@Override
+		public String toString() {
+			return quantity + " " + product + " for " + Money.format(price);
+		}
+	}
+
+	private static class CategoryPercent extends DiscountRule {
+		private static final long serialVersionUID = 1L;
+
+		private final String category;
+		private final long basisPoints;
+
+		CategoryPercent(String category, long basisPoints) {
+			assert category != null;
+
+			this.category = category;
+			this.basisPoints = basisPoints;
+		}
+
+		@Override
+		void compile(DiscountPlan.Builder plan, Pricelist pricelist) {
+			for (Product product : pricelist.getProducts()) {
+				if (category.equals(product.getCategory())) {
+					plan.percent(product.getId(), basisPoints);
+				}
+			}
+		}
+
+		@Override
+		public String toString() {
+			return formatPercent(basisPoints) + " på " + category;
+		}
+	}
+
+	private static class HappyHour extends DiscountRule {
+		private static final long serialVersionUID = 1L;
+
+		private final String category;
+		private final LocalTime from;
+		private final LocalTime to;
+		private final long basisPoints;
+
+		HappyHour(String category, LocalTime from, LocalTime to, long basisPoints) {
+			assert from != null;
+			assert to != null;
+
+			this.category = category;
+			this.from = from;
+			this.to = to;
+			this.basisPoints = basisPoints;
+		}
+
+		@Override
+		void compile(DiscountPlan.Builder plan, Pricelist pricelist) {
+			int window = plan.window(minuteOfDay(from), minuteOfDay(to));
+
+			for (Product product : pricelist.getProducts()) {
+				if (category == null || category.equals(product.getCategory())) {
+					plan.windowPercent(window, product.getId(), basisPoints);
+				}
+			}
+		}
+
+		@Override
+		public String toString() {
+			return "Happy hour " + from + "-" + to + " " + formatPercent(basisPoints);
+		}
+	}
+
+	private static class CustomerRate extends DiscountRule {
+		private static final long serialVersionUID = 1L;
+
+		private final Customer customer;
+		private final long basisPoints;
+
+		CustomerRate(Customer customer, long basisPoints) {
+			assert customer != null;
+
+			this.customer = customer;
+			this.basisPoints = basisPoints;
+		}
+
+		@Override
+		void compile(DiscountPlan.Builder plan, Pricelist pricelist) {
+			plan.customerRate(customer, basisPoints);
+		}
+
+		@Override
+		public String toString() {
+			return formatPercent(basisPoints) + " til " + customer.getName();
+		}
+	}
+}
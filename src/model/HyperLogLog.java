@@ -0,0 +1,138 @@
+package model;
+
+import java.io.Serializable;
+import java.util.Arrays;
+
+/**
+ * Estimates the number of distinct values added, in at most 1 KB. Up to a few
+ * hundred values are kept as their hashes and counted exactly, after that 1024
+ * registers give an estimate within about 3%. Sketches can be merged, but a
+ * value can't be taken out again
+ */
+public class HyperLogLog implements Serializable {
+	private static final long serialVersionUID = 1L;
+
+	private static final int P = 10;
+	private static final int M = 1 << P;
+	// The number of hashes kept before switching to the registers, which take
+	// the same memory
+	private static final int SPARSE_LIMIT = M / 8;
+
+	// The distinct hashes in ascending order, null once the registers are used
+	private long[] sparse = new long[0];
+	private byte[] registers;
+
+	public HyperLogLog() {
+	}
+
+	public HyperLogLog(HyperLogLog other) {
+		sparse = other.sparse == null ? null : other.sparse.clone();
+		registers = other.registers == null ? null : other.registers.clone();
+	}
+
+	/**
+	 * Spreads the bits of a hash code over 64 bits
+	 */
+	public static long hash(long value) {
+		value ^= value >>> 33;
+		value *= 0xff51afd7ed558ccdL;
+		value ^= value >>> 33;
+		value *= 0xc4ceb9fe1a85ec53L;
+		value ^= value >>> 33;
+		return value;
+	}
+
+	public void add(long hash) {
+		if (registers != null) {
+			addToRegisters(hash);
+			return;
+		}
+
+		int i = Arrays.binarySearch(sparse, hash);
+
+		if (i >= 0) {
+			return;
+		}
+
+		i = -i - 1;
+		long[] longer = new long[sparse.length + 1];
+		System.arraycopy(sparse, 0, longer, 0, i);
+		longer[i] = hash;
+		System.arraycopy(sparse, i, longer, i + 1, sparse.length - i);
+		sparse = longer;
+
+		if (sparse.length > SPARSE_LIMIT) {
+			toRegisters();
+		}
+	}
+
+	private void addToRegisters(long hash) {
+		int index = (int) (hash >>> (64 - P));
+		// The position of the first one bit of the rest of the hash
+		byte rank = (byte) (Long.numberOfLeadingZeros((hash << P) | (1L << (P - 1))) + 1);
+
+		if (rank > registers[index]) {
+			registers[index] = rank;
+		}
+	}
+
+	private void toRegisters() {
+		registers = new byte[M];
+
+		for (long hash : sparse) {
+			addToRegisters(hash);
+		}
+
+		sparse = null;
+	}
+
+	/**
+	 * Adds the values of another sketch to this one
+	 */
+	public void merge(HyperLogLog other) {
+		if (other.registers == null) {
+			for (long hash : other.sparse) {
+				add(hash);
+			}
+			return;
+		}
+
+		if (registers == null) {
+			toRegisters();
+		}
+
+		for (int i = 0; i < M; i++) {
+			registers[i] = (byte) Math.max(registers[i], other.registers[i]);
+		}
+	}
+
+	/**
+	 * Returns the estimated number of distinct values
+	 */
+	public long estimate() {
+		if (registers == null) {
+			return sparse.length;
+		}
+
+		double sum = 0;
+		int zeros = 0;
+
+		for (byte register : registers) {
+			sum += 1.0 / (1L << register);
+
+			if (register == 0) {
+				zeros++;
+			}
+		}
+
+		double alpha = 0.7213 / (1 + 1.079 / M);
+		double estimate = alpha * M * M / sum;
+
+		// Linear counting is better while many registers are empty
+		if (estimate <= 2.5 * M && zeros > 0) {
+			estimate = M * Math.log((double) M / zeros);
+		}
+
+		return Math.round(estimate);
+	}
+}
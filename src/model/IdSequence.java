@@ -0,0 +1,17 @@
+package model;
+
+/**
+ * Hands out the small unique ids used to index entities in arrays. Ids of
+ * loaded entities are reported back, so new entities never reuse them
+ */
+final class IdSequence {
+	private int next = 0;
+
+	synchronized int take() {
+		return next++;
+	}
+
+	synchronized void loaded(int id) {
+		next = Math.max(next, id + 1);
+	}
+}
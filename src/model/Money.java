@@ -0,0 +1,44 @@
+package model;
+
+import java.util.Locale;
+
+/**
+ * Amounts of money are stored as a whole number of øre in a long, so sums and
+ * comparisons are exact. These helpers convert to and from kroner at the edges
+ */
+public final class Money {
+	private Money() {
+	}
+
+	/**
+	 * Converts kroner to øre, rounded to the nearest øre
+	 */
+	public static long ofKroner(double kroner) {
+		return Math.round(kroner * 100);
+	}
+
+	public static double toKroner(long ore) {
+		return ore / 100.0;
+	}
+
+	/**
+	 * Returns the part of the amount, rounded to the nearest øre
+	 */
+	public static long share(long amount, long part, long whole) {
+		assert whole > 0;
+
+		return Math.round((double) amount * part / whole);
+	}
+
+	/**
+	 * Returns the amount with the percentage taken off, percentage is given in
+	 * hundredths of a percent
+	 */
+	public static long minusPercent(long amount, long basisPoints) {
+		return amount - share(amount, basisPoints, 10000);
+	}
+
+	public static String format(long ore) {
+		return String.format(Locale.GERMAN, "%.2f kr.", toKroner(ore));
+	}
+}
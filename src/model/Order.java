@@ -2,74 +2,270 @@ package model;
 
 import exceptions.DiscountParseException;
 import exceptions.InvalidPaymentAmount;
+import exceptions.OrderSealedException;
 import javafx.util.Pair;
 
 import java.io.Serializable;
 import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 public class Order implements Payable, Serializable {
-	private final List<ProductOrder> products = new ArrayList<>();
-	private final List<RentalProductOrder> productsRental = new ArrayList<>();
+	private static final long serialVersionUID = 1L;
+
+	// Insertion ordered sets, so a product order is removed in constant time
+	private final Set<ProductOrder> products = new LinkedHashSet<>();
+	private final Set<RentalProductOrder> productsRental = new LinkedHashSet<>();
 	private final List<Payment> payments = new ArrayList<>();
 	private User user;
 	private Pricelist pricelist;
+	private final DiscountPlan discountPlan;
 	private Discount discount;
 	private Customer customer;
-	private final LocalDate date = LocalDate.now();
+	private final LocalDate date;
+	private final LocalDateTime time;
+	// Set when the sale is registered after it was made, its lines are priced
+	// at the time of the order rather than when they are added
+	private final boolean registeredLater;
+
+	private PaymentStatus status = PaymentStatus.UNPAID;
+	// Set when the day of the order is closed, the order can't change after
+	private boolean sealed;
+	// The status is worked out again when it is next asked for after a change
+	private transient boolean statusValid = false;
+	private transient RuntimeException statusError;
+	private transient PaymentStatusListener statusListener;
+
+	// Cached aggregates, recalculated lazily after a change. SalesAggregate.of
+	// fills them from fork join worker threads; an order is summed by one
+	// worker only and the join makes its writes visible to the caller, which
+	// is safe as long as the order isn't changed meanwhile
+	private transient boolean linesValid = false;
+	private transient long subtotal;
+	private transient long deposit;
+	private transient long depositAfterReturn;
+	private transient boolean allReturned;
+	private transient boolean paymentsValid = false;
+	private transient long paidWithoutClips;
+	private transient int clipsPaid;
+	private transient boolean clipValueValid = false;
+	private transient long clipValue;
+
+	// The line a repeated product is merged into, and the gift line of each
+	// product, built on first use after loading
+	private transient Map<Product, ProductOrder> lineIndex;
+	private transient Map<Product, ProductOrder> giftIndex;
+
+	// The product lines as an array, so they are summed up without an
+	// iterator. Made again when a line is added or removed
+	private transient ProductOrder[] lineArray;
+
+	// Product orders that can be paid with clips, ordered by value per clip
+	private transient boolean clipIndexValid = false;
+	private transient int clipLineCount;
+	private transient int[] clipLineClips;
+	private transient long[] clipLinePrice;
+	private transient double[] clipLineRatio;
 
 	public Order(User user, Pricelist pricelist) {
+		this(user, pricelist, LocalDateTime.now(), false);
+	}
+
+	/**
+	 * Creates an order made at the given time, used to register a sale after
+	 * it was made. The lines get the prices in force at that time
+	 */
+	public Order(User user, Pricelist pricelist, LocalDateTime time) {
+		this(user, pricelist, time, true);
+	}
+
+	private Order(User user, Pricelist pricelist, LocalDateTime time,
+			boolean registeredLater) {
 		assert user != null;
 		assert pricelist != null;
+		assert time != null;
 
 		this.user = user;
 		this.pricelist = pricelist;
+		this.discountPlan = pricelist.getDiscountPlan();
+		this.date = time.toLocalDate();
+		this.time = time;
+		this.registeredLater = registeredLater;
 	}
 
 	/**
-	 * Calls the appropriate create method.
+	 * Adds one of the product to the order. A product already in the order is
+	 * merged into its line by increasing the amount, unless the line is a gift,
+	 * has a discount or was made in another happy hour than now. Deposit
+	 * products always get a line of their own
 	 * 
 	 * @see #createProductOrder(Product)
 	 * @see #createRentalProductOrder(DepositProduct)
 	 */
 	public ProductOrder addProduct(Product product) {
 		assert product != null;
+		checkWritable();
 
 		if (product instanceof DepositProduct) {
 			return createRentalProductOrder((DepositProduct) product);
-		} else {
-			return createProductOrder(product);
 		}
+
+		ProductOrder line = lineIndex().get(product);
+
+		if (line != null && !line.getGift() && line.getDiscount().isEmpty()
+				&& discountPlan.sameWindowPercent(product.getId(),
+						line.getMinuteOfDay(), lineMinute())) {
+			line.setAmount(line.getAmount() + 1);
+			return line;
+		}
+
+		return createProductOrder(product);
+	}
+
+	/**
+	 * Adds the product as a gift, in a line of its own
+	 */
+	public ProductOrder addGift(Product product) {
+		assert product != null;
+		assert !(product instanceof DepositProduct);
+		checkWritable();
+
+		ProductOrder line = giftIndex().get(product);
+
+		if (line != null) {
+			line.setAmount(line.getAmount() + 1);
+			return line;
+		}
+
+		line = newLine(product);
+		line.setGiftStatus();
+		giftIndex.put(product, line);
+		return line;
+	}
+
+	/**
+	 * Removes the gift line of the product, returns null if there is none
+	 */
+	public ProductOrder removeGift(Product product) {
+		assert product != null;
+		checkWritable();
+
+		ProductOrder line = giftIndex().get(product);
+
+		if (line != null) {
+			removeProductOrder(line);
+		}
+
+		return line;
 	}
 
 	/**
-	 * Removes a product from the appropriate list
+	 * Removes the line of a product, returns null if the product isn't in the
+	 * order
 	 */
 	public ProductOrder removeProduct(Product product) {
 		assert product != null;
+		checkWritable();
 
-		for (int i = 0; i < products.size(); i++) {
-			ProductOrder po = products.get(i);
+		ProductOrder line = lineIndex().get(product);
 
-			if (po.getProduct().equals(product)) {
-				products.remove(po);
+		// The index only holds the newest line a product is merged into, an
+		// older line with a discount is found by looking through the lines
+		if (line == null) {
+			for (ProductOrder productOrder : products) {
+				if (productOrder.getProduct().equals(product)) {
+					line = productOrder;
+					break;
+				}
+			}
+		}
 
-				return po;
+		if (line == null) {
+			for (RentalProductOrder rentalLine : productsRental) {
+				if (rentalLine.getProduct().equals(product)) {
+					line = rentalLine;
+					break;
+				}
 			}
 		}
 
-		for (int i = 0; i < productsRental.size(); i++) {
-			ProductOrder po = productsRental.get(i);
+		if (line != null) {
+			removeProductOrder(line);
+		}
 
-			if (po.getProduct().equals(product)) {
-				productsRental.remove(i);
+		return line;
+	}
 
-				return po;
-			}
+	/**
+	 * Removes a line from the order
+	 */
+	public void removeProductOrder(ProductOrder productOrder) {
+		assert productOrder != null;
+		checkWritable();
+
+		boolean removed = products.remove(productOrder)
+				|| productsRental.remove(productOrder);
+		assert removed;
+
+		Product product = productOrder.getProduct();
+		lineIndex().remove(product, productOrder);
+		giftIndex().remove(product, productOrder);
+
+		productOrder.setOrder(null);
+		lineArray = null;
+		linesChanged();
+	}
+
+	/**
+	 * Returns the minute of the day a line made now gets
+	 */
+	private int lineMinute() {
+		return DiscountRule.minuteOfDay(
+				registeredLater ? time.toLocalTime() : LocalTime.now());
+	}
+
+	private ProductOrder[] lineArray() {
+		if (lineArray == null) {
+			lineArray = products.toArray(new ProductOrder[products.size()]);
+		}
+
+		return lineArray;
+	}
+
+	private Map<Product, ProductOrder> lineIndex() {
+		if (lineIndex == null) {
+			buildIndexes();
 		}
 
-		return null;
+		return lineIndex;
+	}
+
+	private Map<Product, ProductOrder> giftIndex() {
+		if (giftIndex == null) {
+			buildIndexes();
+		}
+
+		return giftIndex;
+	}
+
+	private void buildIndexes() {
+		lineIndex = new HashMap<>();
+		giftIndex = new HashMap<>();
+
+		for (ProductOrder productOrder : products) {
+			if (productOrder.getGift()) {
+				giftIndex.put(productOrder.getProduct(), productOrder);
+			} else {
+				lineIndex.put(productOrder.getProduct(), productOrder);
+			}
+		}
 	}
 
 	public User getUser() {
@@ -81,13 +277,26 @@ public class Order implements Payable, Serializable {
 	}
 
 	/**
-	 * Creates a ProductOrder with a product
+	 * Creates a ProductOrder with a product, which later additions of the
+	 * product are merged into
 	 */
 	public ProductOrder createProductOrder(Product product) {
 		assert product != null;
+		checkWritable();
 
-		ProductOrder productOrder = new ProductOrder(product, this.pricelist);
+		ProductOrder productOrder = newLine(product);
+		lineIndex().put(product, productOrder);
+		return productOrder;
+	}
+
+	private ProductOrder newLine(Product product) {
+		ProductOrder productOrder = registeredLater
+				? new ProductOrder(product, pricelist, time)
+				: new ProductOrder(product, pricelist);
+		productOrder.setOrder(this);
 		products.add(productOrder);
+		lineArray = null;
+		linesChanged();
 		return productOrder;
 	}
 
@@ -96,20 +305,98 @@ public class Order implements Payable, Serializable {
 	 */
 	public RentalProductOrder createRentalProductOrder(DepositProduct product) {
 		assert product != null;
+		checkWritable();
 
-		RentalProductOrder rentalProductOrder = new RentalProductOrder(product,
-				this.pricelist);
+		RentalProductOrder rentalProductOrder = registeredLater
+				? new RentalProductOrder(product, pricelist, time)
+				: new RentalProductOrder(product, pricelist);
+		rentalProductOrder.setDue(date.plusDays(RentalProductOrder.RENTAL_DAYS));
+		rentalProductOrder.setOrder(this);
 		productsRental.add(rentalProductOrder);
+		linesChanged();
 		return rentalProductOrder;
 	}
 
+	/**
+	 * Invalidates the cached totals of the product orders
+	 */
+	void linesChanged() {
+		linesValid = false;
+		clipValueValid = false;
+		clipIndexValid = false;
+		invalidateStatus();
+	}
+
+	/**
+	 * Recalculates the cached totals of the product orders if needed
+	 */
+	private void validateLines() throws DiscountParseException {
+		if (linesValid) {
+			return;
+		}
+
+		long subtotal = 0;
+		for (ProductOrder productOrder : lineArray()) {
+			subtotal += productOrder.priceOre();
+		}
+
+		long deposit = 0;
+		long depositAfterReturn = 0;
+		boolean allReturned = true;
+		for (RentalProductOrder productOrder : productsRental) {
+			subtotal += productOrder.priceOre();
+			deposit += productOrder.getDepositOre();
+			depositAfterReturn += productOrder.getDepositAfterReturnOre();
+			allReturned &= productOrder.isReturned();
+		}
+
+		this.subtotal = subtotal;
+		this.deposit = deposit;
+		this.depositAfterReturn = depositAfterReturn;
+		this.allReturned = allReturned;
+		linesValid = true;
+	}
+
+	/**
+	 * Recalculates the cached payment sums if needed
+	 */
+	private void validatePayments() {
+		if (paymentsValid) {
+			return;
+		}
+
+		long paid = 0;
+		int clips = 0;
+		for (Payment payment : payments) {
+			if (payment.getPaymentType() == PaymentType.CLIP_CARD) {
+				clips += payment.getClips();
+			} else {
+				paid += payment.getAmountOre();
+			}
+		}
+
+		paidWithoutClips = paid;
+		clipsPaid = clips;
+		paymentsValid = true;
+	}
+
+	public String getDiscount() {
+		if (discount == null || discount.getValue() == null) {
+			return "";
+		}
+
+		return discount.getValue();
+	}
+
 	public void setDiscount(String str) throws DiscountParseException {
 		assert str != null;
+		checkWritable();
 
 		if (discount == null) {
 			discount = new Discount();
 		}
 		discount.setDiscount(str);
+		invalidateStatus();
 	}
 
 	public List<ProductOrder> getProductOrders() {
@@ -135,27 +422,27 @@ public class Order implements Payable, Serializable {
 
 	@Override
 	public double getPrice() {
-		double price = totalPrice();
-
-		Double deposit = totalDeposit();
-
-		if (deposit != null) {
-			price += deposit;
-		}
+		return Money.toKroner(getPriceOre());
+	}
 
-		return price;
+	@Override
+	public long getPriceOre() {
+		return totalPriceOre() + totalDepositOre();
 	}
 
 	/**
 	 * Calculate the total price NOTE: Doesn't include deposit
 	 */
 	public double totalPrice() throws DiscountParseException {
-		double sum = 0;
-		for (ProductOrder productOrder : getAllProducts()) {
-			if (!productOrder.getGift()) {
-				sum += productOrder.price();
-			}
-		}
+		return Money.toKroner(totalPriceOre());
+	}
+
+	/**
+	 * Calculate the total price in øre NOTE: Doesn't include deposit
+	 */
+	public long totalPriceOre() throws DiscountParseException {
+		validateLines();
+		long sum = subtotal;
 
 		if (discount != null) {
 			sum = discount.getPrice(sum);
@@ -167,53 +454,49 @@ public class Order implements Payable, Serializable {
 	 * Checks if all products are returned
 	 */
 	public boolean allRentalsReturned() {
-		for (RentalProductOrder order : productsRental) {
-			if (!order.isReturned()) {
-				return false;
-			}
-		}
-		return true;
+		validateLines();
+		return allReturned;
 	}
 
 	/**
 	 * Calculate the total deposit after the products are returned
 	 */
 	public double totalDepositAfterReturn() throws DiscountParseException {
-		double sum = 0;
-		for (RentalProductOrder productOrder : productsRental) {
-			sum += productOrder.getDepositAfterReturn();
-		}
-		return sum;
+		return Money.toKroner(totalDepositAfterReturnOre());
+	}
 
+	public long totalDepositAfterReturnOre() throws DiscountParseException {
+		validateLines();
+		return depositAfterReturn;
 	}
 
 	/**
-	 * Calculate the total deposit
+	 * Calculate the total deposit, null if there is no deposit
 	 */
 	public Double totalDeposit() {
-		double sum = 0;
-		for (RentalProductOrder productOrder : productsRental) {
-			sum += productOrder.getDeposit();
-		}
+		long deposit = totalDepositOre();
 
-		if (sum == 0) {
+		if (deposit == 0) {
 			return null;
 		}
 
-		return sum;
+		return Money.toKroner(deposit);
+	}
+
+	/**
+	 * Calculate the total deposit in øre
+	 */
+	public long totalDepositOre() {
+		validateLines();
+		return deposit;
 	}
 
 	/**
 	 * Calculate the amount of clip card paid
 	 */
-	private Integer totalClipCardPaid() {
-		int sum = 0;
-		for (Payment payment : payments) {
-			if (payment.getPaymentType() == PaymentType.CLIP_CARD) {
-				sum += payment.getAmount();
-			}
-		}
-		return sum;
+	private int totalClipCardPaid() {
+		validatePayments();
+		return clipsPaid;
 	}
 
 	/**
@@ -221,63 +504,161 @@ public class Order implements Payable, Serializable {
 	 * always try to maximize the value of each clip card
 	 */
 	public double totalPaymentClipCard() {
-		double sum = 0;
+		return Money.toKroner(totalPaymentClipCardOre());
+	}
+
+	public long totalPaymentClipCardOre() {
+		if (clipValueValid) {
+			return clipValue;
+		}
+
+		long sum = 0;
 		int clips = totalClipCardPaid();
 
 		if (clips == 0) {
 			return 0;
 		}
-		List<ProductOrder> productOrders = new ArrayList<>(this.products);
 
-		productOrders.sort((ProductOrder p1, ProductOrder p2) -> {
-			double p1ClipRatio = p1.individualPrice()
-					/ (double) p1.getProduct().getClips();
-			double p2ClipRatio = p2.individualPrice()
-					/ (double) p2.getProduct().getClips();
-			return Double.compare(p2ClipRatio, p1ClipRatio);
-		});
+		validateClipIndex();
 
-		for (ProductOrder productOrder : productOrders) {
-			int orderClips = productOrder.getProduct().getClips()
-					* productOrder.getAmount();
+		for (int i = 0; i < clipLineCount; i++) {
+			int orderClips = clipLineClips[i];
 			if (clips > orderClips) {
 				clips -= orderClips;
-				sum += productOrder.price();
+				sum += clipLinePrice[i];
 			} else {
-				sum += (productOrder.individualPrice()
-						/ (double) productOrder.getProduct().getClips()) * clips;
+				sum += Money.share(clipLinePrice[i], clips, orderClips);
+				clipValue = sum;
+				clipValueValid = true;
 				return sum;
 			}
 		}
 		throw new InvalidPaymentAmount("");
 	}
 
+	/**
+	 * Rebuilds the clip index if the product orders have changed. It allocates
+	 * nothing, the arrays are only reallocated when the order grows beyond
+	 * their size
+	 */
+	private void validateClipIndex() throws DiscountParseException {
+		if (clipIndexValid) {
+			return;
+		}
+
+		if (clipLineClips == null || clipLineClips.length < products.size()) {
+			int size = Math.max(8, products.size());
+			clipLineClips = new int[size];
+			clipLinePrice = new long[size];
+			clipLineRatio = new double[size];
+		}
+
+		int count = 0;
+		for (ProductOrder productOrder : lineArray()) {
+			Integer productClips = productOrder.getProduct().getClips();
+
+			if (productClips == null || productClips <= 0
+					|| productOrder.getAmount() == 0) {
+				continue;
+			}
+
+			long price = productOrder.priceOre();
+			double ratio = (double) price / productOrder.getAmount() / productClips;
+
+			// Insertion sort, highest value per clip first
+			int j = count;
+			while (j > 0 && clipLineRatio[j - 1] < ratio) {
+				clipLineClips[j] = clipLineClips[j - 1];
+				clipLinePrice[j] = clipLinePrice[j - 1];
+				clipLineRatio[j] = clipLineRatio[j - 1];
+				j--;
+			}
+			clipLineClips[j] = productClips * productOrder.getAmount();
+			clipLinePrice[j] = price;
+			clipLineRatio[j] = ratio;
+			count++;
+		}
+
+		clipLineCount = count;
+		clipIndexValid = true;
+	}
+
 	@Override
 	public void pay(Payment payment) {
 		assert payment != null;
+		checkWritable();
 
-		payments.add(payment);
+		List<Payment> added = Collections.singletonList(payment);
+		addPayments(added);
+
+		// Clips beyond what the order can take throw while the overpayment is
+		// worked out, the payment is taken off again either way
 		try {
-			paymentStatus();
+			if (overpaidOre() > 0) {
+				throw new InvalidPaymentAmount("The order was overpaid");
+			}
 		} catch (InvalidPaymentAmount e) {
-			payments.remove(payment);
-			throw new InvalidPaymentAmount(e.getMessage());
+			removePayments(added);
+			throw e;
 		}
 	}
 
+	@Override
+	public void addPayments(List<Payment> payments) {
+		checkWritable();
+		this.payments.addAll(payments);
+		paymentsChanged();
+	}
+
+	@Override
+	public void removePayments(List<Payment> payments) {
+		checkWritable();
+		this.payments.removeAll(payments);
+		paymentsChanged();
+	}
+
 	/**
-	 * Calculate the total of all payments, including clip cards
+	 * Returns the amount paid over the price and deposit. When everything is
+	 * returned the order can't be overpaid, the surplus is deposit not yet paid
+	 * back
 	 */
 	@Override
-	public double totalPayment() {
-		double sum = 0;
-		for (Payment payment : payments) {
-			if (payment.getPaymentType() != PaymentType.CLIP_CARD) {
-				sum += payment.getAmount();
+	public long overpaidOre() {
+		if (products.isEmpty() && productsRental.isEmpty()) {
+			return 0;
+		}
+
+		long payment = totalPaymentOre();
+		long maxPayment = totalPriceOre();
+
+		if (hasRentalOrder()) {
+			if (allRentalsReturned()) {
+				return 0;
 			}
+			maxPayment += deposit;
 		}
-		sum += totalPaymentClipCard();
-		return sum;
+
+		return Math.max(0, payment - maxPayment);
+	}
+
+	private void paymentsChanged() {
+		paymentsValid = false;
+		clipValueValid = false;
+		invalidateStatus();
+	}
+
+	/**
+	 * Calculate the total of all payments, including clip cards
+	 */
+	@Override
+	public double totalPayment() {
+		return Money.toKroner(totalPaymentOre());
+	}
+
+	@Override
+	public long totalPaymentOre() {
+		validatePayments();
+		return paidWithoutClips + totalPaymentClipCardOre();
 	}
 
 	public List<Payment> getPayments() {
@@ -285,43 +666,132 @@ public class Order implements Payable, Serializable {
 	}
 
 	/**
-	 * Calculates the current status of an order
+	 * Returns the current status of the order, worked out again after payments,
+	 * lines or returns change
+	 * 
+	 * @throws InvalidPaymentAmount
+	 *             if the order is overpaid
+	 * @throws DiscountParseException
+	 *             if a discount can't be applied
 	 */
 	@Override
 	public PaymentStatus paymentStatus()
 			throws DiscountParseException, InvalidPaymentAmount {
-		if (getAllProducts().size() == 0) {
+		if (!statusValid) {
+			updateStatus();
+		}
+
+		if (statusError != null) {
+			throw statusError;
+		}
+
+		return status;
+	}
+
+	/**
+	 * Makes the order read only, done when its day is closed
+	 */
+	public void seal() {
+		sealed = true;
+	}
+
+	public boolean isSealed() {
+		return sealed;
+	}
+
+	/**
+	 * Must be called before the order or one of its lines is changed
+	 * 
+	 * @throws OrderSealedException
+	 *             if the order is sealed
+	 */
+	void checkWritable() {
+		if (sealed) {
+			throw new OrderSealedException("The day of the order is closed");
+		}
+	}
+
+	public void setStatusListener(PaymentStatusListener statusListener) {
+		this.statusListener = statusListener;
+	}
+
+	/**
+	 * Marks the status to be worked out again, and tells the listener that it
+	 * may have changed. The totals aren't summed until the status is asked for
+	 */
+	private void invalidateStatus() {
+		if (statusValid) {
+			statusValid = false;
+
+			if (statusListener != null) {
+				statusListener.statusStale(this);
+			}
+		}
+	}
+
+	/**
+	 * Moves the order to its new status after a change, and tells the listener
+	 * about the transition
+	 */
+	private void updateStatus() {
+		PaymentStatus newStatus;
+		statusValid = true;
+
+		try {
+			newStatus = computeStatus();
+			statusError = null;
+		} catch (DiscountParseException | InvalidPaymentAmount e) {
+			// The status stays until the order is valid again
+			statusError = e;
+			return;
+		}
+
+		PaymentStatus oldStatus = status;
+		status = newStatus;
+
+		if (oldStatus != newStatus && statusListener != null) {
+			statusListener.statusChanged(this, oldStatus, newStatus);
+		}
+	}
+
+	/**
+	 * Calculates the status of the order from the lines and payments
+	 */
+	private PaymentStatus computeStatus()
+			throws DiscountParseException, InvalidPaymentAmount {
+		if (products.isEmpty() && productsRental.isEmpty()) {
 			return PaymentStatus.UNPAID;
 		}
+
+		long payment = totalPaymentOre();
+		long price = totalPriceOre();
+
 		if (hasRentalOrder()) {
 			if (allRentalsReturned()) {
-				double returnPrice = totalDepositAfterReturn();
-				if (totalPayment() == totalPrice() + returnPrice) {
+				long returnPrice = price + depositAfterReturn;
+				if (payment == returnPrice) {
 					return PaymentStatus.ORDERPAID;
-				} else if (totalPayment() < totalPrice() + returnPrice) {
+				} else if (payment < returnPrice) {
 					return PaymentStatus.UNPAID;
-				} else if (totalPayment() > totalPrice() + returnPrice) {
+				} else {
 					return PaymentStatus.DEPOSITNOTPAIDBACK;
 				}
-			} else if (totalPayment() < totalDeposit()) {
+			} else if (payment < deposit) {
 				return PaymentStatus.UNPAID;
-			} else if (totalPayment() >= totalDeposit()
-					&& totalPayment() <= totalPrice() + totalDeposit()) {
+			} else if (payment <= price + deposit) {
 				return PaymentStatus.DEPOSITPAID;
 			} else {
 				throw new InvalidPaymentAmount("The order was overpaid");
 			}
 		} else {
-			if (totalPayment() < totalPrice()) {
+			if (payment < price) {
 				return PaymentStatus.UNPAID;
-			} else if (totalPayment() == totalPrice()) {
+			} else if (payment == price) {
 				return PaymentStatus.ORDERPAID;
 			} else {
 				throw new InvalidPaymentAmount("The order was overpaid");
 			}
 		}
-
-		return null;
 	}
 
 	public Customer getCustomer() {
@@ -329,30 +799,50 @@ public class Order implements Payable, Serializable {
 	}
 
 	public void setCustomer(Customer c) {
+		checkWritable();
 		customer = c;
+		linesChanged();
+	}
+
+	/**
+	 * Returns the price in øre of the product order after the discount rules
+	 * of the pricelist
+	 */
+	long linePrice(ProductOrder productOrder) {
+		return discountPlan.linePrice(productOrder.getProduct().getId(),
+				productOrder.getOriginalPriceOre(), productOrder.getAmount(),
+				productOrder.getMinuteOfDay(), discountPlan.customerRate(customer));
 	}
 
 	public LocalDate getDate() {
 		return date;
 	}
 
+	/**
+	 * Returns the time the order was made
+	 */
+	public LocalDateTime getTime() {
+		return time;
+	}
+
 	@Override
 	public Pair<Integer, Double> totalClipCardPrice() {
 		int clips = 0;
-		double priceWithoutClips = 0;
+		long priceWithoutClips = 0;
 
 		for (ProductOrder po : getAllProducts()) {
-			try {
-				Integer c = po.getProduct().getClips() * po.getAmount();
-				clips += c;
-			} catch (Exception e) {
-				priceWithoutClips += po.price();
+			Integer productClips = po.getProduct().getClips();
+
+			if (productClips != null) {
+				clips += productClips * po.getAmount();
+			} else {
+				priceWithoutClips += po.priceOre();
 			}
 		}
 
 		clips -= totalClipCardPaid();
 
-		return new Pair<>(clips, priceWithoutClips);
+		return new Pair<>(clips, Money.toKroner(priceWithoutClips));
 	}
 
 	@Override
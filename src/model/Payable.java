@@ -4,6 +4,8 @@ import exceptions.DiscountParseException;
 import exceptions.InvalidPaymentAmount;
 import javafx.util.Pair;
 
+import java.util.List;
+
 public interface Payable {
 
 	/**
@@ -11,6 +13,19 @@ public interface Payable {
 	 */
 	void pay(Payment payment);
 
+	/**
+	 * Adds the payments without checking the amount, callers must check
+	 * overpaidOre() and remove them again if needed
+	 */
+	void addPayments(List<Payment> payments);
+
+	void removePayments(List<Payment> payments);
+
+	/**
+	 * Returns how many øre the payments exceed what can be paid, or 0
+	 */
+	long overpaidOre();
+
 	/**
 	 * Returns the PaymentStatus of a the object on which it is called
 	 */
@@ -23,11 +38,23 @@ public interface Payable {
 	 */
 	double totalPayment();
 
+	/**
+	 * Sums up all payments in øre
+	 * 
+	 * @see #totalPayment()
+	 */
+	long totalPaymentOre();
+
 	/**
 	 * Returns the total price for the payable object
 	 */
 	double getPrice();
 
+	/**
+	 * Returns the total price in øre
+	 */
+	long getPriceOre();
+
 	/**
 	 * Returns the total price for the payable object, if paid fully with clip
 	 * card
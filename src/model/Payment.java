@@ -7,22 +7,70 @@ import java.time.format.FormatStyle;
 import java.util.Locale;
 
 public class Payment implements Serializable {
+	private static final long serialVersionUID = 1L;
+
 	private PaymentType paymentType;
-	private double amount;
+	// The amount in øre, 0 for clip card payments which only have clips
+	private long amount;
+	private int clips;
 	private LocalDateTime date;
 
+	/**
+	 * Creates a payment of an amount in kroner, or of a number of clips for
+	 * clip card payments
+	 */
 	public Payment(PaymentType paymentType, double amount) {
 		assert paymentType != null;
 
 		this.paymentType = paymentType;
-		this.amount = amount;
+
+		if (paymentType == PaymentType.CLIP_CARD) {
+			assert amount == Math.rint(amount);
+
+			this.clips = (int) amount;
+		} else {
+			this.amount = Money.ofKroner(amount);
+		}
+
 		this.date = LocalDateTime.now();
 	}
 
+	/**
+	 * Creates a payment of an amount in øre
+	 */
+	public static Payment ofOre(PaymentType paymentType, long amount) {
+		assert paymentType != PaymentType.CLIP_CARD;
+
+		Payment payment = new Payment(paymentType, 0);
+		payment.amount = amount;
+		return payment;
+	}
+
+	/**
+	 * Returns the amount in kroner, or the number of clips for clip card
+	 * payments
+	 */
 	public double getAmount() {
+		if (paymentType == PaymentType.CLIP_CARD) {
+			return clips;
+		}
+
+		return Money.toKroner(amount);
+	}
+
+	/**
+	 * Returns the amount in øre, 0 for clip card payments
+	 */
+	public long getAmountOre() {
 		return amount;
 	}
 
+	public int getClips() {
+		assert paymentType == PaymentType.CLIP_CARD;
+
+		return clips;
+	}
+
 	public PaymentType getPaymentType() {
 		return paymentType;
 	}
@@ -37,6 +85,7 @@ public class Payment implements Serializable {
 				.format(DateTimeFormatter.ofLocalizedDateTime(FormatStyle.MEDIUM,
 						FormatStyle.SHORT))
 				+ " " + paymentType + " "
-				+ String.format(Locale.GERMAN, "%.2fkr.", amount);
+				+ (paymentType == PaymentType.CLIP_CARD ? clips + " klip"
+						: String.format(Locale.GERMAN, "%.2fkr.", getAmount()));
 	}
 }
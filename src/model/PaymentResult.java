@@ -0,0 +1,54 @@
+package model;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * The outcome of paying a set of payments at once
+ */
+public class PaymentResult {
+	private final List<Payment> payments;
+	private final PaymentStatus status;
+	private final long changeDue;
+
+	public PaymentResult(List<Payment> payments, PaymentStatus status, long changeDue) {
+		assert payments != null;
+		assert status != null;
+		assert changeDue >= 0;
+
+		this.payments = Collections.unmodifiableList(new ArrayList<>(payments));
+		this.status = status;
+		this.changeDue = changeDue;
+	}
+
+	/**
+	 * Returns the payments as they were added, with the change taken off the
+	 * cash payment
+	 */
+	public List<Payment> getPayments() {
+		return payments;
+	}
+
+	public PaymentStatus getStatus() {
+		return status;
+	}
+
+	/**
+	 * Returns the cash to hand back to the customer
+	 */
+	public double getChangeDue() {
+		return Money.toKroner(changeDue);
+	}
+
+	public long getChangeDueOre() {
+		return changeDue;
+	}
+
+	/**
+	 * Returns true if the order is paid, or the deposit is for a rental
+	 */
+	public boolean isPaid() {
+		return status == PaymentStatus.ORDERPAID || status == PaymentStatus.DEPOSITPAID;
+	}
+}
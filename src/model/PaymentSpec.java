@@ -0,0 +1,33 @@
+package model;
+
+/**
+ * One tender of a payment, e.g. the cash part of a split payment
+ */
+public class PaymentSpec {
+	private final PaymentType paymentType;
+	private final double amount;
+
+	/**
+	 * @param amount
+	 *            kroner, or the number of clips for clip card payments
+	 */
+	public PaymentSpec(PaymentType paymentType, double amount) {
+		assert paymentType != null;
+		assert amount >= 0;
+
+		this.paymentType = paymentType;
+		this.amount = amount;
+	}
+
+	public PaymentType getPaymentType() {
+		return paymentType;
+	}
+
+	public double getAmount() {
+		return amount;
+	}
+
+	public Payment toPayment() {
+		return new Payment(paymentType, amount);
+	}
+}
@@ -0,0 +1,16 @@
+package model;
+
+/**
+ * Is told when an order or tour moves to another payment status
+ */
+@FunctionalInterface
+public interface PaymentStatusListener {
+	void statusChanged(Payable payable, PaymentStatus oldStatus, PaymentStatus newStatus);
+
+	/**
+	 * Is told when a change may have moved the payable to another status,
+	 * which is worked out when the status is next asked for
+	 */
+	default void statusStale(Payable payable) {
+	}
+}
@@ -3,6 +3,8 @@ package model;
 import java.io.Serializable;
 
 public class Person implements Serializable {
+	private static final long serialVersionUID = 1L;
+
 	protected String name;
 
 	public Person(String name) {
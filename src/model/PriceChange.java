@@ -0,0 +1,57 @@
+package model;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * A record of the prices changed in one repricing, used to undo it
+ */
+public class PriceChange {
+	private final Pricelist pricelist;
+	private final Product[] products;
+	private final long[] oldPrices;
+	private final long[] newPrices;
+
+	public PriceChange(Pricelist pricelist, Product[] products, long[] oldPrices,
+			long[] newPrices) {
+		assert pricelist != null;
+		assert products.length == oldPrices.length;
+		assert products.length == newPrices.length;
+
+		this.pricelist = pricelist;
+		this.products = products.clone();
+		this.oldPrices = oldPrices.clone();
+		this.newPrices = newPrices.clone();
+	}
+
+	public Pricelist getPricelist() {
+		return pricelist;
+	}
+
+	public List<Product> getProducts() {
+		return Collections.unmodifiableList(Arrays.asList(products));
+	}
+
+	public int size() {
+		return products.length;
+	}
+
+	/**
+	 * Returns the price in øre before the change, or Pricelist.NOT_LISTED
+	 */
+	public long getOldPriceOre(int index) {
+		return oldPrices[index];
+	}
+
+	public long getNewPriceOre(int index) {
+		return newPrices[index];
+	}
+
+	/**
+	 * Returns the change that undoes this one
+	 */
+	public PriceChange inverse() {
+		return new PriceChange(pricelist, products, newPrices, oldPrices);
+	}
+}
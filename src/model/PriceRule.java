@@ -0,0 +1,68 @@
+package model;
+
+/**
+ * Calculates a new price in øre from the current price of a product, used to
+ * reprice many products at once. The current price is Pricelist.NOT_LISTED if
+ * the product isn't in the pricelist, returning NOT_LISTED removes the product
+ * from the pricelist
+ */
+@FunctionalInterface
+public interface PriceRule {
+	long reprice(Product product, long price);
+
+	/**
+	 * Applies the other rule to the result of this one
+	 */
+	default PriceRule andThen(PriceRule other) {
+		assert other != null;
+
+		return (product, price) -> {
+			long result = reprice(product, price);
+			return result == Pricelist.NOT_LISTED ? result : other.reprice(product, result);
+		};
+	}
+
+	/**
+	 * Changes listed prices by a percentage, negative to lower them
+	 */
+	static PriceRule percent(double percent) {
+		long basisPoints = Math.round(percent * 100);
+
+		return (product, price) -> {
+			if (price == Pricelist.NOT_LISTED) {
+				return price;
+			}
+
+			return Math.max(0, price + Money.share(price, basisPoints, 10000));
+		};
+	}
+
+	/**
+	 * Rounds listed prices to the nearest multiple of the amount in kroner
+	 */
+	static PriceRule roundTo(double kroner) {
+		long step = Money.ofKroner(kroner);
+		assert step > 0;
+
+		return (product, price) -> {
+			if (price == Pricelist.NOT_LISTED) {
+				return price;
+			}
+
+			return Math.round((double) price / step) * step;
+		};
+	}
+
+	/**
+	 * Takes the prices of another pricelist, products not in it keep their
+	 * price
+	 */
+	static PriceRule copyFrom(Pricelist source) {
+		assert source != null;
+
+		return (product, price) -> {
+			long sourcePrice = source.priceOrNotListed(product);
+			return sourcePrice == Pricelist.NOT_LISTED ? price : sourcePrice;
+		};
+	}
+}
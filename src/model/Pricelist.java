@@ -1,20 +1,67 @@
 package model;
 
+import exceptions.ProductNotInPricelistException;
+
+import java.io.IOException;
+import java.io.ObjectInputStream;
 import java.io.Serializable;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
 import java.util.ArrayList;
-import java.util.HashMap;
-import java.util.Map;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
 
 public class Pricelist implements Serializable {
+	private static final long serialVersionUID = 1L;
+
+	/**
+	 * Marks a product that is not in the pricelist
+	 */
+	public static final long NOT_LISTED = -1;
+
+	private static final long BEGINNING = Long.MIN_VALUE;
+	private static final IdSequence ids = new IdSequence();
+
+	private final int id;
 	private String name;
-	private final Map<Product, Double> products = new HashMap<>();
+	// Price in øre indexed by product id, a row in the pricelist x product
+	// price matrix. Holds the prices in force right now
+	private long[] prices = new long[0];
+	// The price versions of each product indexed by product id. The times are
+	// epoch millis in ascending order, the first is always BEGINNING
+	private long[][] versionTimes = new long[0][];
+	private long[][] versionPrices = new long[0][];
+	private Product[] productsById = new Product[0];
+	private final List<Product> products = new ArrayList<>();
+	// An unmodifiable copy of the products, made again when they change
+	private transient List<Product> productsSnapshot;
+	private final List<DiscountRule> rules = new ArrayList<>();
+	private transient DiscountPlan discountPlan;
+	// Epoch millis of the next scheduled price change, zero after loading so
+	// the prices get recalculated
+	private transient long nextChange;
 
 	public Pricelist(String name) {
 		assert name != null && !name.isEmpty();
 
+		this.id = ids.take();
 		this.name = name;
 	}
 
+	private void readObject(ObjectInputStream in)
+			throws IOException, ClassNotFoundException {
+		in.defaultReadObject();
+		ids.loaded(id);
+	}
+
+	/**
+	 * Returns a small unique number, used to index pricelists in arrays
+	 */
+	public int getId() {
+		return id;
+	}
+
 	public String getName() {
 		return name;
 	}
@@ -23,24 +70,346 @@ public class Pricelist implements Serializable {
 	 * Returns the price of a product
 	 */
 	public double getPrice(Product key) {
-		return products.get(key);
+		return Money.toKroner(getPriceOre(key));
+	}
+
+	/**
+	 * Returns the price of a product in øre
+	 * 
+	 * @throws ProductNotInPricelistException
+	 *             if the product is not in the pricelist
+	 */
+	public long getPriceOre(Product key) {
+		long price = priceOrNotListed(key);
+
+		if (price == NOT_LISTED) {
+			throw new ProductNotInPricelistException(
+					key + " er ikke i prislisten " + name);
+		}
+
+		return price;
 	}
 
+	/**
+	 * Returns the price of a product in øre at a given time
+	 * 
+	 * @throws ProductNotInPricelistException
+	 *             if the product was not in the pricelist at that time
+	 */
+	public long getPriceOre(Product key, LocalDateTime time) {
+		long price = priceAt(key, time);
+
+		if (price == NOT_LISTED) {
+			throw new ProductNotInPricelistException(
+					key + " er ikke i prislisten " + name);
+		}
+
+		return price;
+	}
+
+	/**
+	 * Returns the price of a product in øre, or NOT_LISTED
+	 */
+	public long priceOrNotListed(Product key) {
+		int productId = key.getId();
+
+		if (System.currentTimeMillis() >= nextChange) {
+			updatePrices();
+		}
+
+		if (productId >= prices.length) {
+			return NOT_LISTED;
+		}
+
+		return prices[productId];
+	}
+
+	/**
+	 * Returns the price of a product in øre that was in force at the time, or
+	 * NOT_LISTED
+	 */
+	public long priceAt(Product key, LocalDateTime time) {
+		assert time != null;
+
+		int productId = key.getId();
+
+		if (productId >= versionTimes.length || versionTimes[productId] == null) {
+			return NOT_LISTED;
+		}
+
+		int i = versionIndex(versionTimes[productId], toMillis(time));
+		return versionPrices[productId][i];
+	}
+
+	/**
+	 * Returns the index of the version in force at the time
+	 */
+	private static int versionIndex(long[] times, long time) {
+		int i = Arrays.binarySearch(times, time);
+
+		if (i < 0) {
+			i = -i - 2; // the version before the insertion point
+		}
+
+		return i;
+	}
+
+	private static long toMillis(LocalDateTime time) {
+		return time.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+	}
+
+	/**
+	 * Recalculates the prices in force after a scheduled change
+	 */
+	private void updatePrices() {
+		long now = System.currentTimeMillis();
+		long next = Long.MAX_VALUE;
+
+		for (int productId = 0; productId < versionTimes.length; productId++) {
+			long[] times = versionTimes[productId];
+
+			if (times == null) {
+				continue;
+			}
+
+			int i = versionIndex(times, now);
+			setCurrentPrice(productId, versionPrices[productId][i]);
+
+			if (i + 1 < times.length) {
+				next = Math.min(next, times[i + 1]);
+			}
+		}
+
+		nextChange = next;
+	}
+
+	/**
+	 * Updates the price row and the list of products in force
+	 */
+	private void setCurrentPrice(int productId, long price) {
+		long oldPrice = prices[productId];
+
+		if (oldPrice == NOT_LISTED && price != NOT_LISTED) {
+			products.add(productsById[productId]);
+			productsSnapshot = null;
+			discountPlan = null;
+		} else if (oldPrice != NOT_LISTED && price == NOT_LISTED) {
+			products.remove(productsById[productId]);
+			productsSnapshot = null;
+			discountPlan = null;
+		}
+
+		prices[productId] = price;
+	}
+
+	public boolean isListed(Product product) {
+		return priceOrNotListed(product) != NOT_LISTED;
+	}
+
+	/**
+	 * Sets the price from right now as a new version, so the prices before
+	 * are kept, and so are scheduled price changes. A product that isn't in
+	 * the pricelist yet is listed at the price since the beginning
+	 */
 	public void setPrice(Product product, double price) {
+		setPriceOre(product, Money.ofKroner(price));
+	}
+
+	public void setPriceOre(Product product, long price) {
 		assert product != null;
 		assert price >= 0;
 
-		products.put(product, price);
+		int productId = product.getId();
+
+		if (!hasVersions(product)) {
+			addProduct(product, price);
+		} else {
+			putVersion(productId, System.currentTimeMillis(), price);
+		}
+
+		setCurrentPrice(productId, price);
+	}
+
+	/**
+	 * Applies all the new prices of a change as versions from right now, a
+	 * price of NOT_LISTED unlists the product from now. The prices before the
+	 * change are kept, also when it is undone
+	 */
+	public void apply(PriceChange change) {
+		assert change.getPricelist() == this;
+
+		List<Product> changed = change.getProducts();
+		long now = System.currentTimeMillis();
+
+		for (int i = 0; i < changed.size(); i++) {
+			Product product = changed.get(i);
+			long price = change.getNewPriceOre(i);
+
+			if (!hasVersions(product)) {
+				if (price == NOT_LISTED) {
+					continue;
+				}
+
+				addProduct(product, NOT_LISTED);
+			}
+
+			putVersion(product.getId(), now, price);
+			setCurrentPrice(product.getId(), price);
+		}
+	}
+
+	/**
+	 * Schedules a new price of a product from the given time, replacing a
+	 * version from the same time. The product is added to the pricelist from
+	 * that time if it isn't listed
+	 */
+	public void schedulePrice(Product product, double price, LocalDateTime from) {
+		schedulePriceOre(product, Money.ofKroner(price), from);
+	}
+
+	public void schedulePriceOre(Product product, long price, LocalDateTime from) {
+		assert product != null;
+		assert price >= 0;
+		assert from != null;
+
+		int productId = product.getId();
+		long time = toMillis(from);
+
+		if (!hasVersions(product)) {
+			addProduct(product, NOT_LISTED);
+		}
+
+		putVersion(productId, time, price);
+
+		// Recalculated on the next lookup
+		nextChange = Math.min(nextChange, time);
+	}
+
+	/**
+	 * Inserts a price version from the time, replacing a version from the
+	 * same time
+	 */
+	private void putVersion(int productId, long time, long price) {
+		long[] times = versionTimes[productId];
+		int i = Arrays.binarySearch(times, time);
+
+		if (i >= 0) {
+			versionPrices[productId][i] = price;
+		} else {
+			i = -i - 1;
+			versionTimes[productId] = insert(times, i, time);
+			versionPrices[productId] = insert(versionPrices[productId], i, price);
+		}
+	}
+
+	private static long[] insert(long[] array, int index, long value) {
+		long[] result = new long[array.length + 1];
+
+		System.arraycopy(array, 0, result, 0, index);
+		result[index] = value;
+		System.arraycopy(array, index, result, index + 1, array.length - index);
+
+		return result;
+	}
+
+	private boolean hasVersions(Product product) {
+		int productId = product.getId();
+
+		return productId < versionTimes.length && versionTimes[productId] != null;
 	}
 
-	public ArrayList<Product> getProducts() {
-		return new ArrayList<>(products.keySet());
+	/**
+	 * Adds the first version of a product, in force since the beginning
+	 */
+	private void addProduct(Product product, long price) {
+		int productId = product.getId();
+
+		if (productId >= prices.length) {
+			int length = Math.max(productId + 1, prices.length * 2);
+			int oldLength = prices.length;
+
+			prices = Arrays.copyOf(prices, length);
+			Arrays.fill(prices, oldLength, length, NOT_LISTED);
+			versionTimes = Arrays.copyOf(versionTimes, length);
+			versionPrices = Arrays.copyOf(versionPrices, length);
+			productsById = Arrays.copyOf(productsById, length);
+		}
+
+		versionTimes[productId] = new long[] { BEGINNING };
+		versionPrices[productId] = new long[] { price };
+		productsById[productId] = product;
 	}
 
+	/**
+	 * Returns the products in the pricelist right now. The list is an
+	 * unmodifiable snapshot shared until the products change, so a price
+	 * lookup that brings a scheduled change into force while it is iterated
+	 * doesn't change it
+	 */
+	public List<Product> getProducts() {
+		if (System.currentTimeMillis() >= nextChange) {
+			updatePrices();
+		}
+
+		if (productsSnapshot == null) {
+			productsSnapshot = Collections.unmodifiableList(new ArrayList<>(products));
+		}
+
+		return productsSnapshot;
+	}
+
+	/**
+	 * Removes the product and all its price versions, also a product that is
+	 * only scheduled to be listed
+	 */
 	public void removeProduct(Product product) {
-		assert products.containsKey(product);
+		assert hasVersions(product);
 
-		products.remove(product);
+		int productId = product.getId();
+
+		setCurrentPrice(productId, NOT_LISTED);
+		versionTimes[productId] = null;
+		versionPrices[productId] = null;
+		productsById[productId] = null;
+	}
+
+	public List<DiscountRule> getRules() {
+		return new ArrayList<>(rules);
+	}
+
+	public void addRule(DiscountRule rule) {
+		assert rule != null;
+
+		rules.add(rule);
+		discountPlan = null;
+	}
+
+	public void removeRule(DiscountRule rule) {
+		rules.remove(rule);
+		discountPlan = null;
+	}
+
+	/**
+	 * Returns the discount rules compiled for the products in the pricelist
+	 */
+	public DiscountPlan getDiscountPlan() {
+		if (System.currentTimeMillis() >= nextChange) {
+			updatePrices();
+		}
+
+		if (discountPlan == null) {
+			discountPlan = DiscountPlan.compile(this, rules);
+		}
+
+		return discountPlan;
+	}
+
+	/**
+	 * Must be called when a product changes category, so the plan is compiled
+	 * again
+	 */
+	public void invalidateDiscountPlan() {
+		discountPlan = null;
 	}
 
 	@Override
@@ -0,0 +1,66 @@
+package model;
+
+import java.io.Serializable;
+import java.time.DayOfWeek;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.format.TextStyle;
+import java.time.temporal.TemporalAdjusters;
+import java.util.Locale;
+
+/**
+ * Makes a pricelist the selected one at a time of day, every day or on one day
+ * of the week
+ */
+public class PricelistSchedule implements Serializable {
+	private static final long serialVersionUID = 1L;
+
+	private final Pricelist pricelist;
+	private final DayOfWeek day;
+	private final LocalTime time;
+
+	/**
+	 * day is null for every day
+	 */
+	public PricelistSchedule(Pricelist pricelist, DayOfWeek day, LocalTime time) {
+		assert pricelist != null;
+		assert time != null;
+
+		this.pricelist = pricelist;
+		this.day = day;
+		this.time = time;
+	}
+
+	public Pricelist getPricelist() {
+		return pricelist;
+	}
+
+	public DayOfWeek getDay() {
+		return day;
+	}
+
+	public LocalTime getTime() {
+		return time;
+	}
+
+	/**
+	 * Returns the first time after now the pricelist is selected
+	 */
+	public LocalDateTime nextAfter(LocalDateTime now) {
+		LocalDateTime next = now.with(time);
+
+		if (day == null) {
+			return next.isAfter(now) ? next : next.plusDays(1);
+		}
+
+		next = next.with(TemporalAdjusters.nextOrSame(day));
+		return next.isAfter(now) ? next : next.plusWeeks(1);
+	}
+
+	@Override
+	public String toString() {
+		String days = day == null ? "alle dage"
+				: day.getDisplayName(TextStyle.FULL, new Locale("da"));
+		return pricelist + ", " + days + " kl. " + time;
+	}
+}
@@ -1,22 +1,48 @@
 package model;
 
+import java.io.IOException;
+import java.io.ObjectInputStream;
 import java.io.Serializable;
 
 public class Product implements Serializable, Comparable<Product> {
+	private static final long serialVersionUID = 1L;
+
+	private static final IdSequence ids = new IdSequence();
+
+	private final int id;
 	private String name;
 	private Integer clips;
 	private String category;
 	private String image;
+	// The name without the serving, cached since statistics need it per line
+	private transient String beerName;
+	// The product as it is sold now, shared by the lines made until the name
+	// or category changes
+	private transient SoldProduct sold;
 
 	public Product(String name, Integer clips, String category, String image) {
 		assert name != null && !name.isEmpty();
 
+		this.id = ids.take();
 		this.name = name;
 		this.clips = clips;
 		this.category = category;
 		this.image = image;
 	}
 
+	private void readObject(ObjectInputStream in)
+			throws IOException, ClassNotFoundException {
+		in.defaultReadObject();
+		ids.loaded(id);
+	}
+
+	/**
+	 * Returns a small unique number, used to index products in arrays
+	 */
+	public int getId() {
+		return id;
+	}
+
 	public String getName() {
 		return name;
 	}
@@ -33,10 +59,65 @@ public class Product implements Serializable, Comparable<Product> {
 		assert name != null && !name.isEmpty();
 
 		this.name = name;
+		beerName = null;
+		sold = null;
+	}
+
+	/**
+	 * Returns the product with the name and category it has now, for a line
+	 * made now
+	 */
+	SoldProduct sold() {
+		if (sold == null) {
+			sold = new SoldProduct(this);
+		}
+
+		return sold;
+	}
+
+	/**
+	 * Returns true if the product is a beer, on draught, in a bottle or in a
+	 * keg
+	 */
+	public boolean isBeer() {
+		return isBeerCategory(category);
+	}
+
+	static boolean isBeerCategory(String category) {
+		return "fadøl".equals(category) || "flaske".equals(category)
+				|| "fustage".equals(category);
+	}
+
+	/**
+	 * Returns the name of the beer, the part of the name before the serving
+	 */
+	public String getBeerName() {
+		if (beerName == null) {
+			beerName = beerNameOf(name);
+		}
+
+		return beerName;
+	}
+
+	static String beerNameOf(String name) {
+		return name.split(",")[0].trim();
+	}
+
+	/**
+	 * Returns true if the product is a clip card. Products named "Klippekort"
+	 * made before clip cards got their own type count as well
+	 */
+	public boolean isClipCard() {
+		return isClipCardName(name);
+	}
+
+	static boolean isClipCardName(String name) {
+		return name.startsWith("Klippekort");
 	}
 
 	public void setCategory(String category) {
 		this.category = category;
+		sold = null;
 	}
 
 	public void setClips(Integer clips) {
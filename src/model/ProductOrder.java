@@ -1,27 +1,92 @@
 package model;
 
 import exceptions.DiscountParseException;
+import exceptions.OrderSealedException;
 
 import java.io.Serializable;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
 
 public class ProductOrder implements Serializable {
+	private static final long serialVersionUID = 1L;
+
 	private Discount discount = null;
 	private int amount = 1;
 	private Product product;
-	private double price;
+	// The name and category of the product when the line was made
+	private final SoldProduct sold;
+	private long price;
 	private boolean giftStatus = false; // Bruges til klassificering af
 										// gaveobjekter
+	private Order order;
+	// When the product order was made, for time of day discounts
+	private final int minuteOfDay;
 
 	public ProductOrder(Product product, Pricelist pricelist) {
 		assert product != null;
 		assert pricelist != null;
 
 		this.product = product;
-		this.price = pricelist.getPrice(product);
+		this.sold = product.sold();
+		this.price = pricelist.getPriceOre(product);
+		this.minuteOfDay = DiscountRule.minuteOfDay(LocalTime.now());
+	}
+
+	/**
+	 * Creates a product order of a sale made at the given time, at the price
+	 * in force then
+	 */
+	public ProductOrder(Product product, Pricelist pricelist, LocalDateTime time) {
+		assert product != null;
+		assert pricelist != null;
+		assert time != null;
+
+		this.product = product;
+		this.sold = product.sold();
+		this.price = pricelist.getPriceOre(product, time);
+		this.minuteOfDay = DiscountRule.minuteOfDay(time.toLocalTime());
+	}
+
+	/**
+	 * Returns the order the line is on, or null
+	 */
+	public Order getOrder() {
+		return order;
+	}
+
+	/**
+	 * Sets the order that holds this product order, so its totals can be
+	 * invalidated when this changes
+	 */
+	void setOrder(Order order) {
+		this.order = order;
+	}
+
+	/**
+	 * Must be called before the product order is changed
+	 * 
+	 * @throws OrderSealedException
+	 *             if the order is sealed by a day close
+	 */
+	protected void checkWritable() {
+		if (order != null) {
+			order.checkWritable();
+		}
+	}
+
+	/**
+	 * Must be called whenever something that affects the price changes
+	 */
+	protected void changed() {
+		if (order != null) {
+			order.linesChanged();
+		}
 	}
 
 	public void setGiftStatus() {
+		checkWritable();
 		this.giftStatus = true;
+		changed();
 	}
 
 	public boolean getGift() {
@@ -39,10 +104,17 @@ public class ProductOrder implements Serializable {
 	 * Returns the price of the product order with the discount applied
 	 */
 	public double price() throws DiscountParseException {
+		return Money.toKroner(priceOre());
+	}
+
+	/**
+	 * Returns the price in øre of the product order with the discount applied
+	 */
+	public long priceOre() throws DiscountParseException {
 		if (getGift()) {
 			return 0;
 		}
-		double p = price * amount;
+		long p = order == null ? price * amount : order.linePrice(this);
 
 		if (discount != null) {
 			p = discount.getPrice(p);
@@ -61,29 +133,49 @@ public class ProductOrder implements Serializable {
 
 	public void setDiscount(String str) throws DiscountParseException {
 		assert str != null && !str.isEmpty();
+		checkWritable();
 
 		if (discount == null) {
 			discount = new Discount();
 		}
 
 		discount.setDiscount(str);
+		changed();
 	}
 
 	public Product getProduct() {
 		return product;
 	}
 
+	/**
+	 * Returns the product with the name and category it had when the line was
+	 * made
+	 */
+	public SoldProduct getSoldProduct() {
+		return sold;
+	}
+
 	public int getAmount() {
 		return amount;
 	}
 
 	public void setAmount(int amount) {
 		assert amount >= 0;
+		checkWritable();
 
 		this.amount = amount;
+		changed();
 	}
 
 	public double getOriginalPrice() {
+		return Money.toKroner(price);
+	}
+
+	public long getOriginalPriceOre() {
 		return price;
 	}
+
+	public int getMinuteOfDay() {
+		return minuteOfDay;
+	}
 }
@@ -0,0 +1,151 @@
+package model;
+
+import java.io.Serializable;
+
+/**
+ * Estimates quantiles of non negative values within 1% of the true value. The
+ * values are counted in buckets growing by 2% each, so the memory depends on
+ * the ratio of the largest to the smallest value, not on the number of values.
+ * Sketches can be merged and values taken out again
+ */
+public class QuantileSketch implements Serializable {
+	private static final long serialVersionUID = 1L;
+
+	private static final double ACCURACY = 0.01;
+	private static final double GAMMA = (1 + ACCURACY) / (1 - ACCURACY);
+	private static final double LOG_GAMMA = Math.log(GAMMA);
+
+	// The counts of the buckets from offset on, bucket i holds the values in
+	// (GAMMA^(i-1), GAMMA^i]
+	private long[] counts = new long[0];
+	private int offset;
+	private long zeros;
+	private long count;
+
+	public QuantileSketch() {
+	}
+
+	public QuantileSketch(QuantileSketch other) {
+		counts = other.counts.clone();
+		offset = other.offset;
+		zeros = other.zeros;
+		count = other.count;
+	}
+
+	private static int bucketOf(double value) {
+		return (int) Math.ceil(Math.log(value) / LOG_GAMMA);
+	}
+
+	public void add(double value) {
+		add(value, 1);
+	}
+
+	/**
+	 * Takes a value that was added out again
+	 */
+	public void remove(double value) {
+		add(value, -1);
+	}
+
+	private void add(double value, long n) {
+		assert value >= 0;
+
+		count += n;
+
+		if (value == 0) {
+			zeros += n;
+			return;
+		}
+
+		int bucket = bucketOf(value);
+		cover(bucket, bucket);
+		counts[bucket - offset] += n;
+	}
+
+	/**
+	 * Makes room for the buckets from first to last
+	 */
+	private void cover(int first, int last) {
+		if (counts.length == 0) {
+			counts = new long[last - first + 1];
+			offset = first;
+			return;
+		}
+
+		int newOffset = Math.min(offset, first);
+		int newEnd = Math.max(offset + counts.length, last + 1);
+
+		if (newOffset == offset && newEnd == offset + counts.length) {
+			return;
+		}
+
+		long[] wider = new long[newEnd - newOffset];
+		System.arraycopy(counts, 0, wider, offset - newOffset, counts.length);
+		counts = wider;
+		offset = newOffset;
+	}
+
+	/**
+	 * Adds the values of another sketch to this one
+	 */
+	public void merge(QuantileSketch other) {
+		merge(other, 1);
+	}
+
+	/**
+	 * Takes the values of another sketch, that were added to this one, out
+	 * again
+	 */
+	public void subtract(QuantileSketch other) {
+		merge(other, -1);
+	}
+
+	private void merge(QuantileSketch other, long sign) {
+		count += sign * other.count;
+		zeros += sign * other.zeros;
+
+		if (other.counts.length == 0) {
+			return;
+		}
+
+		cover(other.offset, other.offset + other.counts.length - 1);
+
+		for (int i = 0; i < other.counts.length; i++) {
+			counts[other.offset + i - offset] += sign * other.counts[i];
+		}
+	}
+
+	public long getCount() {
+		return count;
+	}
+
+	/**
+	 * Returns the estimated value at the quantile, 0.5 for the median, or 0 if
+	 * there are no values
+	 */
+	public double quantile(double q) {
+		assert q >= 0 && q <= 1;
+
+		if (count <= 0) {
+			return 0;
+		}
+
+		long rank = (long) (q * (count - 1));
+
+		if (rank < zeros) {
+			return 0;
+		}
+
+		long seen = zeros;
+
+		for (int i = 0; i < counts.length; i++) {
+			seen += counts[i];
+
+			if (seen > rank) {
+				return 2 * Math.pow(GAMMA, offset + i) / (GAMMA + 1);
+			}
+		}
+
+		return 2 * Math.pow(GAMMA, offset + counts.length - 1) / (GAMMA + 1);
+	}
+}
@@ -1,16 +1,33 @@
 package model;
 
 import java.io.Serializable;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
 
 public class RentalProductOrder extends ProductOrder implements Serializable {
+	private static final long serialVersionUID = 1L;
+
+	/**
+	 * The days a rental is out before it is due back, unless set otherwise
+	 */
+	public static final int RENTAL_DAYS = 14;
+
 	private int unused = 0;
 	private int returned = 0;
 	private int notReturned = 0;
+	// The last day to return the products, set when the line is added to an
+	// order
+	private LocalDate due;
 
 	public RentalProductOrder(Product product, Pricelist pricelist) {
 		super(product, pricelist);
 	}
 
+	public RentalProductOrder(Product product, Pricelist pricelist,
+			LocalDateTime time) {
+		super(product, pricelist, time);
+	}
+
 	/**
 	 * Returns true if all items are returned and accounted for
 	 */
@@ -22,7 +39,28 @@ public class RentalProductOrder extends ProductOrder implements Serializable {
 	 * Get the total deposit price
 	 */
 	public double getDeposit() {
-		return ((DepositProduct) getProduct()).getDeposit() * getAmount();
+		return Money.toKroner(getDepositOre());
+	}
+
+	public long getDepositOre() {
+		return ((DepositProduct) getProduct()).getDepositOre() * getAmount();
+	}
+
+	/**
+	 * Returns the number of items that are neither returned, unused nor
+	 * settled as not returned
+	 */
+	public int getOut() {
+		return Math.max(0, getAmount() - returned - unused - notReturned);
+	}
+
+	public LocalDate getDue() {
+		return due;
+	}
+
+	public void setDue(LocalDate due) {
+		checkWritable();
+		this.due = due;
 	}
 
 	public int getUnused() {
@@ -39,20 +77,26 @@ public class RentalProductOrder extends ProductOrder implements Serializable {
 
 	public void setUnused(int unused) {
 		assert unused >= 0;
+		checkWritable();
 
 		this.unused = unused;
+		changed();
 	}
 
 	public void setReturned(int returned) {
 		assert returned >= 0;
+		checkWritable();
 
 		this.returned = returned;
+		changed();
 	}
 
 	public void setNotReturned(int notReturned) {
 		assert notReturned >= 0;
+		checkWritable();
 
 		this.notReturned = notReturned;
+		changed();
 	}
 
 	/**
@@ -60,9 +104,15 @@ public class RentalProductOrder extends ProductOrder implements Serializable {
 	 * unopened returned items is also calculated here
 	 */
 	public double getDepositAfterReturn() {
-		double sum = getNotReturned() * ((DepositProduct) getProduct()).getDeposit();
+		return Money.toKroner(getDepositAfterReturnOre());
+	}
+
+	public long getDepositAfterReturnOre() {
+		long sum = getNotReturned() * ((DepositProduct) getProduct()).getDepositOre();
 
-		sum -= getUnused() * individualPrice();
+		if (getUnused() > 0) {
+			sum -= Money.share(priceOre(), getUnused(), getAmount());
+		}
 
 		return sum;
 	}
@@ -0,0 +1,13 @@
+package model;
+
+/**
+ * Is given the report of the part of a range summed up so far, while a long
+ * report is being made
+ */
+@FunctionalInterface
+public interface ReportProgress {
+	/**
+	 * done is the part of the range summed up, from 0 to 1
+	 */
+	void partial(StatisticsReport report, double done);
+}
@@ -0,0 +1,328 @@
+package model;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+
+/**
+ * Keeps the sales of the paid orders summed up in hourly, daily, monthly and
+ * yearly buckets and in total, so a report doesn't have to scan the orders.
+ * A counted order is appended to the sales facts, and the rows appended are
+ * rolled up into the buckets; a changed order is taken out again by the rows
+ * cancelling its old rows
+ */
+public class RunningSales {
+	private static final int HOUR = 0;
+	private static final int DAY = 1;
+	private static final int MONTH = 2;
+	private static final int YEAR = 3;
+	private static final int LOG_SIZE = 256;
+
+	// The buckets of each level by their start time, the hours are sorted so
+	// the first and last sale are known
+	private final NavigableMap<LocalDateTime, SalesAggregate> hours = new TreeMap<>();
+	private final List<Map<LocalDateTime, SalesAggregate>> levels = new ArrayList<>();
+	private SalesAggregate total = new SalesAggregate();
+	private final SalesFacts facts;
+	// The rows of the facts summed up into the buckets so far
+	private int rolledUp;
+	// Counts the changes, the times of the orders of the latest changes are
+	// logged by version so a cached report knows if it is affected
+	private long version;
+	private final LocalDateTime[] logTimes = new LocalDateTime[LOG_SIZE];
+
+	public RunningSales() {
+		this(new SalesFacts());
+	}
+
+	public RunningSales(SalesFacts facts) {
+		assert facts != null;
+
+		this.facts = facts;
+		levels.add(hours);
+		levels.add(new HashMap<>());
+		levels.add(new HashMap<>());
+		levels.add(new HashMap<>());
+	}
+
+	/**
+	 * Returns the start of the bucket of the level the time is in
+	 */
+	private static LocalDateTime bucketOf(int level, LocalDateTime time) {
+		switch (level) {
+		case HOUR:
+			return time.truncatedTo(ChronoUnit.HOURS);
+		case DAY:
+			return time.truncatedTo(ChronoUnit.DAYS);
+		case MONTH:
+			return time.truncatedTo(ChronoUnit.DAYS).withDayOfMonth(1);
+		default:
+			return time.truncatedTo(ChronoUnit.DAYS).withDayOfYear(1);
+		}
+	}
+
+	/**
+	 * Returns the start of the bucket after the bucket starting at the time
+	 */
+	private static LocalDateTime next(int level, LocalDateTime bucket) {
+		switch (level) {
+		case HOUR:
+			return bucket.plusHours(1);
+		case DAY:
+			return bucket.plusDays(1);
+		case MONTH:
+			return bucket.plusMonths(1);
+		default:
+			return bucket.plusYears(1);
+		}
+	}
+
+	/**
+	 * Counts the order as it is now, replacing what it was counted as before
+	 */
+	public synchronized void count(Order order) {
+		assert order != null;
+
+		// Nothing is appended, and no cached report goes out of date, when
+		// the order sums up to the same rows as before. An order that can't
+		// be priced keeps its last rows
+		if (facts.append(order)) {
+			rollUp();
+		}
+	}
+
+	/**
+	 * Takes the order out of the sums if it is counted
+	 */
+	public synchronized void uncount(Order order) {
+		facts.cancel(order);
+		rollUp();
+	}
+
+	/**
+	 * Adds the rows appended to the facts since the last roll-up to the
+	 * buckets, an order or cancel at a time
+	 */
+	private void rollUp() {
+		int size = facts.size();
+
+		while (rolledUp < size) {
+			SalesAggregate rows = new SalesAggregate();
+			LocalDateTime time = facts.getTime(rolledUp);
+			rolledUp = facts.addRows(rolledUp, rows);
+			add(time, rows);
+		}
+	}
+
+	/**
+	 * Adds the sales to the buckets of the time and the total, dropping the
+	 * buckets left without orders
+	 */
+	private void add(LocalDateTime time, SalesAggregate sales) {
+		logChange(time);
+
+		for (int level = HOUR; level <= YEAR; level++) {
+			Map<LocalDateTime, SalesAggregate> buckets = levels.get(level);
+			LocalDateTime key = bucketOf(level, time);
+			SalesAggregate bucket = buckets.computeIfAbsent(key, t -> new SalesAggregate());
+			bucket.merge(sales);
+
+			if (bucket.getOrderCount() == 0) {
+				buckets.remove(key);
+			}
+		}
+
+		total.merge(sales);
+	}
+
+	private void logChange(LocalDateTime time) {
+		version++;
+		logTimes[(int) (version % LOG_SIZE)] = time;
+	}
+
+	/**
+	 * Forgets what the order added, keeping it in the sums. Used for orders
+	 * that can't change anymore, they can't be taken out again after
+	 */
+	public synchronized void archive(Order order) {
+		facts.forget(order);
+	}
+
+	/**
+	 * Adds the sales of a closed day from its Z report, instead of counting
+	 * its orders
+	 */
+	public synchronized void addClosedDay(ZReport report) {
+		assert report != null;
+
+		for (int hour = 0; hour < 24; hour++) {
+			SalesAggregate sales = report.getHour(hour);
+
+			if (sales == null) {
+				continue;
+			}
+
+			add(report.getDay().atTime(hour, 0), sales);
+		}
+	}
+
+	/**
+	 * Returns the number of changes made so far
+	 */
+	public synchronized long getVersion() {
+		return version;
+	}
+
+	/**
+	 * Returns true if an order in [from, to) has changed since the version,
+	 * or if that can't be known because the changes are no longer logged
+	 */
+	public synchronized boolean changedSince(long since, LocalDateTime from,
+			LocalDateTime to) {
+		if (since >= version) {
+			return false;
+		}
+
+		if (version - since > LOG_SIZE) {
+			return true;
+		}
+
+		// The same widening to whole hours as the report
+		LocalDateTime start = from == null ? null : bucketOf(HOUR, from);
+		LocalDateTime stop = to == null ? null : ceilHour(to);
+
+		for (long v = since + 1; v <= version; v++) {
+			LocalDateTime time = logTimes[(int) (v % LOG_SIZE)];
+
+			if ((start == null || !time.isBefore(start))
+					&& (stop == null || time.isBefore(stop))) {
+				return true;
+			}
+		}
+
+		return false;
+	}
+
+	public synchronized boolean isCounted(Order order) {
+		return facts.hasRows(order);
+	}
+
+	/**
+	 * Returns the facts the buckets are rolled up from, the lines of the
+	 * counted orders that aren't closed
+	 */
+	public SalesFacts getFacts() {
+		return facts;
+	}
+
+	public synchronized void clear() {
+		for (Map<LocalDateTime, SalesAggregate> buckets : levels) {
+			buckets.clear();
+		}
+
+		facts.clear();
+		rolledUp = 0;
+		total = new SalesAggregate();
+		// Every cached report is out of date
+		version += LOG_SIZE + 1;
+	}
+
+	/**
+	 * Returns the report of the orders made in [from, to), a null bound is
+	 * open. The bounds are widened to whole hours
+	 */
+	public StatisticsReport report(LocalDateTime from, LocalDateTime to) {
+		return report(from, to, null);
+	}
+
+	/**
+	 * Returns the report of the orders made in [from, to) like report, giving
+	 * the progress the report of the months and years summed up so far. The
+	 * buckets are copied under the lock and summed up after, so counting
+	 * orders isn't held up by a long report
+	 */
+	public StatisticsReport report(LocalDateTime from, LocalDateTime to,
+			ReportProgress progress) {
+		List<SalesAggregate> buckets = new ArrayList<>();
+		List<Double> done = new ArrayList<>();
+
+		synchronized (this) {
+			if (hours.isEmpty()) {
+				return new SalesAggregate().toReport();
+			}
+
+			// Only the hours with sales need to be walked
+			LocalDateTime first = hours.firstKey();
+			LocalDateTime end = next(HOUR, hours.lastKey());
+			LocalDateTime start = from == null || from.isBefore(first) ? first
+					: bucketOf(HOUR, from);
+			LocalDateTime stop = to == null || to.isAfter(end) ? end : ceilHour(to);
+
+			if (start.equals(first) && stop.equals(end)) {
+				return copy(total).toReport();
+			}
+
+			collect(start, stop, buckets, done);
+		}
+
+		SalesAggregate sum = new SalesAggregate();
+
+		for (int i = 0; i < buckets.size(); i++) {
+			sum.merge(buckets.get(i));
+
+			if (progress != null && done.get(i) != null) {
+				progress.partial(sum.toReport(), done.get(i));
+			}
+		}
+
+		return sum.toReport();
+	}
+
+	private static SalesAggregate copy(SalesAggregate aggregate) {
+		SalesAggregate copy = new SalesAggregate();
+		copy.merge(aggregate);
+		return copy;
+	}
+
+	private static LocalDateTime ceilHour(LocalDateTime time) {
+		LocalDateTime hour = bucketOf(HOUR, time);
+		return hour.equals(time) ? hour : next(HOUR, hour);
+	}
+
+	/**
+	 * Copies the buckets between two whole hours, taking the largest bucket
+	 * that starts at the time and fits before the stop each step. A range
+	 * takes at most the hours and days up to a month at each end, the months
+	 * up to a year at each end and the years. For the months and years the
+	 * part of the range done after them is added to done, else null
+	 */
+	private void collect(LocalDateTime start, LocalDateTime stop,
+			List<SalesAggregate> buckets, List<Double> done) {
+		LocalDateTime time = start;
+		double hours = Duration.between(start, stop).toHours();
+
+		while (time.isBefore(stop)) {
+			int level = YEAR;
+
+			while (level > HOUR && (!bucketOf(level, time).equals(time)
+					|| next(level, time).isAfter(stop))) {
+				level--;
+			}
+
+			SalesAggregate bucket = levels.get(level).get(time);
+			time = next(level, time);
+
+			if (bucket != null) {
+				buckets.add(copy(bucket));
+				done.add(level >= MONTH
+						? Duration.between(start, time).toHours() / hours : null);
+			}
+		}
+	}
+}
@@ -0,0 +1,371 @@
+package model;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.RandomAccess;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Sums up the sales of a number of orders in a single pass. The sums are kept
+ * in øre in arrays indexed by the ids of the pricelists and users, and by the
+ * products as they were sold, and are only grouped by name when the report is
+ * made. A product is reported under the name and category it had when the
+ * line was made
+ */
+public class SalesAggregate implements Serializable {
+	private static final long serialVersionUID = 1L;
+
+	/**
+	 * The number of orders a fork join task sums up itself instead of
+	 * splitting them further
+	 */
+	static final int LEAF_SIZE = 1000;
+
+	// Sales and number of lines of all lines and of the lines that are not
+	// rentals, by the index the sold product got in soldIndex
+	private final Map<SoldProduct, Integer> soldIndex = new HashMap<>();
+	private SoldProduct[] products = new SoldProduct[0];
+	private long[] productSales = new long[0];
+	private int[] productLines = new int[0];
+	private long[] productSalesNoRental = new long[0];
+	private int[] linesNoRental = new int[0];
+	private long[] pricelistSales = new long[0];
+	private int[] pricelistOrders = new int[0];
+	private Pricelist[] pricelists = new Pricelist[0];
+	private long[] userSales = new long[0];
+	private int[] userOrders = new int[0];
+	private User[] users = new User[0];
+	private int clipCardUses;
+	private long total;
+	private int orderCount;
+	// Sketches of the customers and the sizes of the orders, made when first
+	// needed so the aggregates of single orders stay small
+	private HyperLogLog customers;
+	private QuantileSketch orderTotals;
+	private QuantileSketch lineCounts;
+
+	/**
+	 * Sums up the orders, splitting them over the common fork join pool when
+	 * there are more than one leaf of them. The orders must not change while
+	 * they are summed up
+	 */
+	public static SalesAggregate of(List<Order> orders) {
+		return of(orders, ForkJoinPool.commonPool());
+	}
+
+	/**
+	 * Sums up the orders like of, splitting them over the pool
+	 */
+	public static SalesAggregate of(List<Order> orders, ForkJoinPool pool) {
+		assert orders != null;
+		assert pool != null;
+
+		if (!(orders instanceof RandomAccess)) {
+			orders = new ArrayList<>(orders);
+		}
+
+		if (orders.size() <= LEAF_SIZE) {
+			return sum(orders, 0, orders.size());
+		}
+
+		return pool.invoke(new SumTask(orders, 0, orders.size()));
+	}
+
+	private static SalesAggregate sum(List<Order> orders, int from, int to) {
+		SalesAggregate aggregate = new SalesAggregate();
+
+		for (int i = from; i < to; i++) {
+			aggregate.add(orders.get(i));
+		}
+
+		return aggregate;
+	}
+
+	/**
+	 * Sums up a range of orders by splitting it in halves until a range is
+	 * no longer than a leaf, the partial aggregates are merged on the way back
+	 */
+	private static class SumTask extends RecursiveTask<SalesAggregate> {
+		private static final long serialVersionUID = 1L;
+
+		private final List<Order> orders;
+		private final int from;
+		private final int to;
+
+		SumTask(List<Order> orders, int from, int to) {
+			this.orders = orders;
+			this.from = from;
+			this.to = to;
+		}
+
+		@Override
+		protected SalesAggregate compute() {
+			if (to - from <= LEAF_SIZE) {
+				return sum(orders, from, to);
+			}
+
+			int middle = (from + to) >>> 1;
+			SumTask left = new SumTask(orders, from, middle);
+			left.fork();
+
+			SalesAggregate aggregate = new SumTask(orders, middle, to).compute();
+			aggregate.merge(left.join());
+			return aggregate;
+		}
+	}
+
+	/**
+	 * Adds the sales of the order
+	 */
+	public void add(Order order) {
+		assert order != null;
+
+		List<ProductOrder> lines = order.getProductOrders();
+		List<RentalProductOrder> rentalLines = order.getRentalProductOrders();
+		int clips = 0;
+
+		for (Payment p : order.getPayments()) {
+			if (p.getPaymentType() == PaymentType.CLIP_CARD) {
+				clips += p.getClips();
+			}
+		}
+
+		addOrder(order.getPricelist(), order.getUser(), order.totalPriceOre(),
+				lines.size() + rentalLines.size(), clips,
+				order.getCustomer() == null ? -1 : order.getCustomer().getId(), 1);
+
+		for (ProductOrder po : lines) {
+			addLines(po.getSoldProduct(), po.priceOre(), 1, false);
+		}
+
+		for (ProductOrder po : rentalLines) {
+			addLines(po.getSoldProduct(), po.priceOre(), 1, true);
+		}
+	}
+
+	/**
+	 * Adds the sums of an order without its lines, or takes them out again
+	 * with a sign of -1 and the sums negated. A customer id below 0 is no
+	 * customer, and a customer is only counted when the order is added
+	 */
+	void addOrder(Pricelist pricelist, User user, long price, int lines, int clips,
+			int customerId, int sign) {
+		assert sign == 1 || sign == -1;
+
+		addPricelist(pricelist, price, sign);
+		addUser(user, price, sign);
+		total += price;
+		orderCount += sign;
+		clipCardUses += clips;
+
+		if (sign > 0) {
+			if (customerId >= 0) {
+				customers().add(HyperLogLog.hash(customerId));
+			}
+
+			orderTotals().add(price);
+			lineCounts().add(lines);
+		} else {
+			orderTotals().remove(-price);
+			lineCounts().remove(-lines);
+		}
+	}
+
+	/**
+	 * Adds the sum of a number of lines of the product, negative to take them
+	 * out again
+	 */
+	void addLines(SoldProduct product, long price, int lines, boolean rental) {
+		int id = addProduct(product, price, lines);
+
+		if (!rental) {
+			productSalesNoRental[id] += price;
+			linesNoRental[id] += lines;
+		}
+	}
+
+	/**
+	 * Adds the sums of another aggregate to this one. The other aggregate may
+	 * hold orders taken out again, groups left with no orders or lines drop
+	 * out of the report. Customers can't be taken out and stay counted
+	 */
+	public void merge(SalesAggregate other) {
+		assert other != null;
+
+		for (int otherId = 0; otherId < other.soldIndex.size(); otherId++) {
+			int id = addProduct(other.products[otherId], other.productSales[otherId],
+					other.productLines[otherId]);
+			productSalesNoRental[id] += other.productSalesNoRental[otherId];
+			linesNoRental[id] += other.linesNoRental[otherId];
+		}
+
+		for (int id = 0; id < other.pricelists.length; id++) {
+			if (other.pricelists[id] != null) {
+				addPricelist(other.pricelists[id], other.pricelistSales[id],
+						other.pricelistOrders[id]);
+			}
+		}
+
+		for (int id = 0; id < other.users.length; id++) {
+			if (other.users[id] != null) {
+				addUser(other.users[id], other.userSales[id], other.userOrders[id]);
+			}
+		}
+
+		clipCardUses += other.clipCardUses;
+		total += other.total;
+		orderCount += other.orderCount;
+
+		if (other.customers != null) {
+			customers().merge(other.customers);
+		}
+
+		if (other.orderTotals != null) {
+			orderTotals().merge(other.orderTotals);
+			lineCounts().merge(other.lineCounts);
+		}
+	}
+
+	private HyperLogLog customers() {
+		if (customers == null) {
+			customers = new HyperLogLog();
+		}
+
+		return customers;
+	}
+
+	private QuantileSketch orderTotals() {
+		if (orderTotals == null) {
+			orderTotals = new QuantileSketch();
+		}
+
+		return orderTotals;
+	}
+
+	private QuantileSketch lineCounts() {
+		if (lineCounts == null) {
+			lineCounts = new QuantileSketch();
+		}
+
+		return lineCounts;
+	}
+
+	public int getOrderCount() {
+		return orderCount;
+	}
+
+	private int addProduct(SoldProduct product, long price, int lines) {
+		Integer index = soldIndex.get(product);
+		int id;
+
+		if (index != null) {
+			id = index;
+		} else {
+			id = soldIndex.size();
+			soldIndex.put(product, id);
+
+			if (id >= products.length) {
+				int length = Math.max(8, products.length * 2);
+
+				productSales = Arrays.copyOf(productSales, length);
+				productLines = Arrays.copyOf(productLines, length);
+				productSalesNoRental = Arrays.copyOf(productSalesNoRental, length);
+				linesNoRental = Arrays.copyOf(linesNoRental, length);
+				products = Arrays.copyOf(products, length);
+			}
+
+			products[id] = product;
+		}
+
+		productSales[id] += price;
+		productLines[id] += lines;
+		return id;
+	}
+
+	private void addPricelist(Pricelist pricelist, long price, int orders) {
+		int id = pricelist.getId();
+
+		if (id >= pricelists.length) {
+			int length = Math.max(id + 1, pricelists.length * 2);
+
+			pricelistSales = Arrays.copyOf(pricelistSales, length);
+			pricelistOrders = Arrays.copyOf(pricelistOrders, length);
+			pricelists = Arrays.copyOf(pricelists, length);
+		}
+
+		pricelists[id] = pricelist;
+		pricelistSales[id] += price;
+		pricelistOrders[id] += orders;
+	}
+
+	private void addUser(User user, long price, int orders) {
+		int id = user.getId();
+
+		if (id >= users.length) {
+			int length = Math.max(id + 1, users.length * 2);
+
+			userSales = Arrays.copyOf(userSales, length);
+			userOrders = Arrays.copyOf(userOrders, length);
+			users = Arrays.copyOf(users, length);
+		}
+
+		users[id] = user;
+		userSales[id] += price;
+		userOrders[id] += orders;
+	}
+
+	/**
+	 * Groups the sums into a report
+	 */
+	public StatisticsReport toReport() {
+		Map<Pricelist, Long> salesPrPricelist = new HashMap<>();
+		Map<String, Long> salesPrBeer = new HashMap<>();
+		Map<String, Long> salesPrCategory = new HashMap<>();
+		Map<User, Long> salesPrUser = new HashMap<>();
+		long clipCardSales = 0;
+
+		for (int id = 0; id < soldIndex.size(); id++) {
+			SoldProduct p = products[id];
+
+			if (productLines[id] == 0) {
+				continue;
+			}
+
+			String category = p.getCategory();
+
+			if (p.isBeer()) {
+				salesPrBeer.merge(p.getBeerName(), productSales[id], Long::sum);
+			}
+
+			if (p.isClipCard()) {
+				clipCardSales += productSalesNoRental[id];
+			}
+
+			if (linesNoRental[id] > 0) {
+				salesPrCategory.merge(category, productSalesNoRental[id], Long::sum);
+			}
+		}
+
+		for (int id = 0; id < pricelists.length; id++) {
+			if (pricelistOrders[id] > 0) {
+				salesPrPricelist.put(pricelists[id], pricelistSales[id]);
+			}
+		}
+
+		for (int id = 0; id < users.length; id++) {
+			if (userOrders[id] > 0) {
+				salesPrUser.put(users[id], userSales[id]);
+			}
+		}
+
+		return new StatisticsReport(salesPrPricelist, salesPrBeer, salesPrCategory,
+				salesPrUser, clipCardSales, clipCardUses, total,
+				new HyperLogLog(customers()), new QuantileSketch(orderTotals()),
+				new QuantileSketch(lineCounts()));
+	}
+}
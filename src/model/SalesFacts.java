@@ -0,0 +1,410 @@
+package model;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The lines of the paid orders stored column by column in primitive arrays, so
+ * reports can scan them without walking the orders. Rows are only appended, an
+ * order that changes after checkout gets its new rows appended and its old
+ * rows cancelled by rows with the opposite sign.
+ *
+ * Each order adds a row per line and then an order row with product id
+ * NO_PRODUCT, holding the difference between the order total and the lines,
+ * the clips paid, the customer and the number of lines. The rows of an order
+ * and of a cancel are appended together, so the order row ends them
+ */
+public class SalesFacts {
+	/**
+	 * The product and category id of an order row, and the customer id of an
+	 * order without a customer
+	 */
+	public static final int NO_PRODUCT = -1;
+
+	private int size;
+	private int[] epochDay = new int[16];
+	private short[] minuteOfDay = new short[16];
+	private int[] productId = new int[16];
+	// The product with the name and category it was sold under
+	private int[] soldId = new int[16];
+	private int[] categoryId = new int[16];
+	private int[] userId = new int[16];
+	private int[] pricelistId = new int[16];
+	private int[] customerId = new int[16];
+	// The amount of a line, the number of lines of an order row
+	private int[] amount = new int[16];
+	private long[] priceOre = new long[16];
+	private long[] discountOre = new long[16];
+	// The ordinal of the payment type that paid the most of the order, or -1
+	private byte[] paymentType = new byte[16];
+	// 1 for a row added, -1 for a row that cancels an earlier row
+	private byte[] sign = new byte[16];
+	private boolean[] rental = new boolean[16];
+	private int[] clips = new int[16];
+
+	// The entities by id, for turning the ids of a scan into a report
+	private final Map<SoldProduct, Integer> soldIds = new HashMap<>();
+	private SoldProduct[] sold = new SoldProduct[0];
+	private User[] users = new User[0];
+	private Pricelist[] pricelists = new Pricelist[0];
+	private final Map<String, Integer> categoryIds = new HashMap<>();
+	// The first row and the row after the last of each order's latest rows
+	private final Map<Order, int[]> orderRows = new HashMap<>();
+
+	public synchronized int size() {
+		return size;
+	}
+
+	/**
+	 * Appends the rows of a paid order and cancels its earlier rows. Returns
+	 * false and leaves the table as it was if the rows are the same as the
+	 * order's latest rows
+	 */
+	public synchronized boolean append(Order order) {
+		assert order != null;
+
+		List<ProductOrder> lines = order.getProductOrders();
+		List<RentalProductOrder> rentalLines = order.getRentalProductOrders();
+
+		// Priced before anything is appended, so an order that can't be
+		// priced leaves the table as it was
+		long total = order.totalPriceOre();
+		long[] linePrices = new long[lines.size() + rentalLines.size()];
+		for (int i = 0; i < lines.size(); i++) {
+			linePrices[i] = lines.get(i).priceOre();
+		}
+		for (int i = 0; i < rentalLines.size(); i++) {
+			linePrices[lines.size() + i] = rentalLines.get(i).priceOre();
+		}
+
+		LocalDateTime time = order.getTime();
+		int day = (int) time.toLocalDate().toEpochDay();
+		short minute = (short) (time.getHour() * 60 + time.getMinute());
+		int user = register(order.getUser());
+		int pricelist = register(order.getPricelist());
+		byte type = mainPaymentType(order);
+		int first = size;
+		long linesTotal = 0;
+
+		for (int i = 0; i < linePrices.length; i++) {
+			ProductOrder po = i < lines.size() ? lines.get(i)
+					: rentalLines.get(i - lines.size());
+			long price = linePrices[i];
+
+			int row = newRow(day, minute, user, pricelist, type, (byte) 1);
+			productId[row] = po.getProduct().getId();
+			soldId[row] = register(po.getSoldProduct());
+			categoryId[row] = registerCategory(po.getSoldProduct().getCategory());
+			amount[row] = po.getAmount();
+			priceOre[row] = price;
+			discountOre[row] = po.getOriginalPriceOre() * po.getAmount() - price;
+			rental[row] = po instanceof RentalProductOrder;
+			linesTotal += price;
+		}
+
+		int row = newRow(day, minute, user, pricelist, type, (byte) 1);
+		customerId[row] = order.getCustomer() == null ? NO_PRODUCT
+				: order.getCustomer().getId();
+		amount[row] = linePrices.length;
+		priceOre[row] = total - linesTotal;
+		discountOre[row] = linesTotal - total;
+		clips[row] = clipsPaid(order);
+
+		int[] old = orderRows.get(order);
+
+		if (old != null && sameRows(old[0], old[1], first)) {
+			size = first;
+			return false;
+		}
+
+		cancel(order);
+		orderRows.put(order, new int[] { first, first + linePrices.length + 1 });
+		return true;
+	}
+
+	/**
+	 * Cancels the rows of the order if it has any
+	 */
+	public synchronized void cancel(Order order) {
+		int[] rows = orderRows.remove(order);
+
+		if (rows == null) {
+			return;
+		}
+
+		for (int old = rows[0]; old < rows[1]; old++) {
+			int row = newRow(epochDay[old], minuteOfDay[old], userId[old],
+					pricelistId[old], paymentType[old], (byte) -sign[old]);
+			productId[row] = productId[old];
+			soldId[row] = soldId[old];
+			categoryId[row] = categoryId[old];
+			customerId[row] = customerId[old];
+			amount[row] = -amount[old];
+			priceOre[row] = -priceOre[old];
+			discountOre[row] = -discountOre[old];
+			rental[row] = rental[old];
+			clips[row] = -clips[old];
+		}
+	}
+
+	/**
+	 * Forgets the rows of the order, keeping them in the table. Used for
+	 * orders that can't change anymore, their rows can't be cancelled after
+	 */
+	public synchronized void forget(Order order) {
+		orderRows.remove(order);
+	}
+
+	public synchronized boolean hasRows(Order order) {
+		return orderRows.containsKey(order);
+	}
+
+	public synchronized void clear() {
+		size = 0;
+		orderRows.clear();
+	}
+
+	/**
+	 * Returns true if the rows starting at the row other are the same as the
+	 * rows in [first, end)
+	 */
+	private boolean sameRows(int first, int end, int other) {
+		if (size - other != end - first) {
+			return false;
+		}
+
+		for (int row = first; row < end; row++, other++) {
+			if (epochDay[row] != epochDay[other] || minuteOfDay[row] != minuteOfDay[other]
+					|| productId[row] != productId[other] || soldId[row] != soldId[other]
+					|| categoryId[row] != categoryId[other] || userId[row] != userId[other]
+					|| pricelistId[row] != pricelistId[other]
+					|| customerId[row] != customerId[other] || amount[row] != amount[other]
+					|| priceOre[row] != priceOre[other]
+					|| discountOre[row] != discountOre[other]
+					|| paymentType[row] != paymentType[other] || rental[row] != rental[other]
+					|| clips[row] != clips[other]) {
+				return false;
+			}
+		}
+
+		return true;
+	}
+
+	private static byte mainPaymentType(Order order) {
+		long[] paid = new long[PaymentType.values().length];
+		int main = -1;
+
+		for (Payment p : order.getPayments()) {
+			int type = p.getPaymentType().ordinal();
+			paid[type] += p.getAmountOre();
+
+			if (main == -1 || paid[type] > paid[main]) {
+				main = type;
+			}
+		}
+
+		return (byte) main;
+	}
+
+	private static int clipsPaid(Order order) {
+		int clips = 0;
+
+		for (Payment p : order.getPayments()) {
+			if (p.getPaymentType() == PaymentType.CLIP_CARD) {
+				clips += p.getClips();
+			}
+		}
+
+		return clips;
+	}
+
+	private int newRow(int day, short minute, int user, int pricelist, byte type,
+			byte rowSign) {
+		if (size == epochDay.length) {
+			grow();
+		}
+
+		int row = size++;
+		epochDay[row] = day;
+		minuteOfDay[row] = minute;
+		productId[row] = NO_PRODUCT;
+		soldId[row] = NO_PRODUCT;
+		categoryId[row] = NO_PRODUCT;
+		userId[row] = user;
+		pricelistId[row] = pricelist;
+		customerId[row] = NO_PRODUCT;
+		paymentType[row] = type;
+		sign[row] = rowSign;
+		amount[row] = 0;
+		priceOre[row] = 0;
+		discountOre[row] = 0;
+		rental[row] = false;
+		clips[row] = 0;
+		return row;
+	}
+
+	private void grow() {
+		int length = epochDay.length * 2;
+
+		epochDay = Arrays.copyOf(epochDay, length);
+		minuteOfDay = Arrays.copyOf(minuteOfDay, length);
+		productId = Arrays.copyOf(productId, length);
+		soldId = Arrays.copyOf(soldId, length);
+		categoryId = Arrays.copyOf(categoryId, length);
+		userId = Arrays.copyOf(userId, length);
+		pricelistId = Arrays.copyOf(pricelistId, length);
+		customerId = Arrays.copyOf(customerId, length);
+		amount = Arrays.copyOf(amount, length);
+		priceOre = Arrays.copyOf(priceOre, length);
+		discountOre = Arrays.copyOf(discountOre, length);
+		paymentType = Arrays.copyOf(paymentType, length);
+		sign = Arrays.copyOf(sign, length);
+		rental = Arrays.copyOf(rental, length);
+		clips = Arrays.copyOf(clips, length);
+	}
+
+	private int register(SoldProduct product) {
+		Integer id = soldIds.get(product);
+
+		if (id == null) {
+			id = soldIds.size();
+			soldIds.put(product, id);
+
+			if (id >= sold.length) {
+				sold = Arrays.copyOf(sold, Math.max(8, sold.length * 2));
+			}
+
+			sold[id] = product;
+		}
+
+		return id;
+	}
+
+	private int register(User user) {
+		int id = user.getId();
+
+		if (id >= users.length) {
+			users = Arrays.copyOf(users, Math.max(id + 1, users.length * 2));
+		}
+
+		users[id] = user;
+		return id;
+	}
+
+	private int register(Pricelist pricelist) {
+		int id = pricelist.getId();
+
+		if (id >= pricelists.length) {
+			pricelists = Arrays.copyOf(pricelists,
+					Math.max(id + 1, pricelists.length * 2));
+		}
+
+		pricelists[id] = pricelist;
+		return id;
+	}
+
+	private int registerCategory(String category) {
+		Integer id = categoryIds.get(category);
+
+		if (id == null) {
+			id = categoryIds.size();
+			categoryIds.put(category, id);
+		}
+
+		return id;
+	}
+
+	/**
+	 * Returns the time of the row to the minute
+	 */
+	synchronized LocalDateTime getTime(int row) {
+		assert row >= 0 && row < size;
+
+		return LocalDate.ofEpochDay(epochDay[row]).atTime(minuteOfDay[row] / 60,
+				minuteOfDay[row] % 60);
+	}
+
+	/**
+	 * Adds the rows of the order or cancel starting at the row to the
+	 * aggregate, and returns the row after them
+	 */
+	synchronized int addRows(int first, SalesAggregate aggregate) {
+		assert first >= 0 && first < size;
+
+		long orderTotal = 0;
+		int row = first;
+
+		while (productId[row] != NO_PRODUCT) {
+			aggregate.addLines(sold[soldId[row]], priceOre[row], sign[row], rental[row]);
+			orderTotal += priceOre[row];
+			row++;
+		}
+
+		addOrderRow(row, orderTotal + priceOre[row], aggregate);
+		return row + 1;
+	}
+
+	private void addOrderRow(int row, long orderTotal, SalesAggregate aggregate) {
+		aggregate.addOrder(pricelists[pricelistId[row]], users[userId[row]], orderTotal,
+				amount[row], clips[row], customerId[row], sign[row]);
+	}
+
+	/**
+	 * Returns the report of the rows of the days in [from, to), a null bound
+	 * is open. The products are reported under the name and category they
+	 * were sold under. The orders of closed days are read from their Z
+	 * reports and are not in the table
+	 */
+	public synchronized StatisticsReport report(LocalDate from, LocalDate to) {
+		int fromDay = from == null ? Integer.MIN_VALUE : (int) from.toEpochDay();
+		int toDay = to == null ? Integer.MAX_VALUE : (int) to.toEpochDay();
+
+		// The lines are summed up by sold id in arrays and handed to the
+		// aggregate after the scan, the orders are added as they are met
+		int soldCount = soldIds.size();
+		long[] sales = new long[soldCount];
+		int[] lines = new int[soldCount];
+		long[] rentalSales = new long[soldCount];
+		int[] rentalLines = new int[soldCount];
+		SalesAggregate aggregate = new SalesAggregate();
+		long orderTotal = 0;
+
+		for (int row = 0; row < size; row++) {
+			int day = epochDay[row];
+
+			if (day < fromDay || day >= toDay) {
+				continue;
+			}
+
+			long price = priceOre[row];
+			int id = soldId[row];
+			orderTotal += price;
+
+			if (id == NO_PRODUCT) {
+				addOrderRow(row, orderTotal, aggregate);
+				orderTotal = 0;
+			} else if (rental[row]) {
+				rentalSales[id] += price;
+				rentalLines[id] += sign[row];
+			} else {
+				sales[id] += price;
+				lines[id] += sign[row];
+			}
+		}
+
+		for (int id = 0; id < soldCount; id++) {
+			if (lines[id] != 0) {
+				aggregate.addLines(sold[id], sales[id], lines[id], false);
+			}
+			if (rentalLines[id] != 0) {
+				aggregate.addLines(sold[id], rentalSales[id], rentalLines[id], true);
+			}
+		}
+
+		return aggregate.toReport();
+	}
+}
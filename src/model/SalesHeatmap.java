@@ -0,0 +1,73 @@
+package model;
+
+import java.time.DayOfWeek;
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * The sales in øre by day of the week and hour of the day, in a 7 x 24 array
+ */
+public class SalesHeatmap {
+	private final long[] cells = new long[7 * 24];
+	// The cell and amount each order added, so it can be taken out again
+	private final Map<Order, long[]> contributions = new HashMap<>();
+
+	private static int cell(DayOfWeek day, int hour) {
+		return (day.getValue() - 1) * 24 + hour;
+	}
+
+	/**
+	 * Counts the order as it is now, replacing what it was counted as before
+	 */
+	public synchronized void count(Order order) {
+		assert order != null;
+
+		long price = order.totalPriceOre();
+		LocalDateTime time = order.getTime();
+		int cell = cell(time.getDayOfWeek(), time.getHour());
+
+		uncount(order);
+
+		cells[cell] += price;
+		contributions.put(order, new long[] { cell, price });
+	}
+
+	public synchronized void uncount(Order order) {
+		long[] contribution = contributions.remove(order);
+
+		if (contribution != null) {
+			cells[(int) contribution[0]] -= contribution[1];
+		}
+	}
+
+	public synchronized void clear() {
+		contributions.clear();
+
+		for (int i = 0; i < cells.length; i++) {
+			cells[i] = 0;
+		}
+	}
+
+	/**
+	 * Returns the sales in øre of the hour on the day of the week
+	 */
+	public synchronized long get(DayOfWeek day, int hour) {
+		assert hour >= 0 && hour < 24;
+
+		return cells[cell(day, hour)];
+	}
+
+	/**
+	 * Returns the largest sales of an hour, for scaling the map
+	 */
+	public synchronized long max() {
+		long max = 0;
+
+		for (long cell : cells) {
+			max = Math.max(max, cell);
+		}
+
+		return max;
+	}
+}
@@ -0,0 +1,81 @@
+package model;
+
+import java.io.Serializable;
+import java.util.Objects;
+
+/**
+ * A product with the name and category it had when a line of it was made.
+ * The sales are grouped by it, so renaming a product or moving it to another
+ * category later doesn't move the sales already made
+ */
+public final class SoldProduct implements Serializable {
+	private static final long serialVersionUID = 1L;
+
+	private final Product product;
+	private final String name;
+	private final String category;
+	private final int hash;
+	private transient String beerName;
+
+	SoldProduct(Product product) {
+		assert product != null;
+
+		this.product = product;
+		this.name = product.getName();
+		this.category = product.getCategory();
+		this.hash = Objects.hash(product.getId(), name, category);
+	}
+
+	public Product getProduct() {
+		return product;
+	}
+
+	public String getName() {
+		return name;
+	}
+
+	public String getCategory() {
+		return category;
+	}
+
+	public boolean isBeer() {
+		return Product.isBeerCategory(category);
+	}
+
+	public String getBeerName() {
+		if (beerName == null) {
+			beerName = Product.beerNameOf(name);
+		}
+
+		return beerName;
+	}
+
+	public boolean isClipCard() {
+		return Product.isClipCardName(name);
+	}
+
+	@Override
+	public boolean equals(Object o) {
+		if (this == o) {
+			return true;
+		}
+
+		if (!(o instanceof SoldProduct)) {
+			return false;
+		}
+
+		SoldProduct other = (SoldProduct) o;
+		return product == other.product && name.equals(other.name)
+				&& Objects.equals(category, other.category);
+	}
+
+	@Override
+	public int hashCode() {
+		return hash;
+	}
+
+	@Override
+	public String toString() {
+		return name;
+	}
+}
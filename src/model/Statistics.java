@@ -1,34 +1,63 @@
 package model;
 
-import java.util.HashMap;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 
 import service.Service;
 
 public class Statistics {
+	private static final int CACHE_SIZE = 16;
+
 	private final Service service = Service.getInstance();
-	private List<Order> orders;
+	private StatisticsReport report;
+	// The reports made so far by their range, least recently used first
+	private final Map<List<LocalDateTime>, CachedReport> cache = new LinkedHashMap<List<LocalDateTime>, CachedReport>(
+			CACHE_SIZE, 0.75f, true) {
+		@Override
+		protected boolean removeEldestEntry(
+				Map.Entry<List<LocalDateTime>, CachedReport> eldest) {
+			return size() > CACHE_SIZE;
+		}
+	};
 
 	/**
-	 * Returns a map with the total sales of each pricelist used in an order
+	 * A report and the version of the running sales it was made from
 	 */
-	public Map<Pricelist, Double> getSalesPrPricelist() {
-		Map<Pricelist, Double> sales = new HashMap<>();
+	private static class CachedReport {
+		final StatisticsReport report;
+		final long version;
 
-		for (Order o : orders) {
-			Double currentTotal = sales.get(o.getPricelist());
+		CachedReport(StatisticsReport report, long version) {
+			this.report = report;
+			this.version = version;
+		}
+	}
 
-			if (currentTotal == null) {
-				currentTotal = 0.0;
-			}
+	/**
+	 * Makes a report of the orders in one pass, split over several threads
+	 * when there are many orders
+	 */
+	public static StatisticsReport report(List<Order> orders) {
+		return SalesAggregate.of(orders).toReport();
+	}
 
-			currentTotal += o.totalPrice();
+	/**
+	 * Returns the report of the time period set last
+	 */
+	public StatisticsReport getReport() {
+		assert report != null;
 
-			sales.put(o.getPricelist(), currentTotal);
-		}
+		return report;
+	}
 
-		return sales;
+	/**
+	 * Returns a map with the total sales of each pricelist used in an order
+	 */
+	public Map<Pricelist, Double> getSalesPrPricelist() {
+		return getReport().getSalesPrPricelist();
 	}
 
 	/**
@@ -36,65 +65,21 @@ public class Statistics {
 	 * in an order NOTE: Products not sold will not show up in the map
 	 */
 	public Map<String, Double> getSalesPrBeer() {
-		Map<String, Double> sales = new HashMap<>();
-
-		for (Order o : orders) {
-			for (ProductOrder po : o.getAllProducts()) {
-				Product p = po.getProduct();
-				String category = po.getProduct().getCategory();
-
-				if (category.equals("fadøl") || category.equals("flaske")
-						|| category.equals("fustage")) {
-
-					String name = p.getName().split(",")[0].trim();
-					Double currentTotal = sales.get(name);
-
-					if (currentTotal == null) {
-						currentTotal = 0.0;
-					}
-
-					currentTotal += po.price();
-
-					sales.put(name, currentTotal);
-				}
-			}
-		}
-
-		return sales;
+		return getReport().getSalesPrBeer();
 	}
 
 	/**
 	 * Returns the total sales price if all clip cards sold
 	 */
 	public double getClipCardSales() {
-		double d = 0;
-
-		for (Order o : orders) {
-			for (ProductOrder po : o.getProductOrders()) {
-				if (po.getProduct().getName().startsWith("Klippekort")) {
-					d += po.price();
-				}
-			}
-		}
-
-		return d;
+		return getReport().getClipCardSales();
 	}
 
 	/**
 	 * Returns the total amount of clips used for all orders
 	 */
 	public int getClipCardUses() {
-		int d = 0;
-
-		for (Order o : orders) {
-			for (Payment p : o.getPayments()) {
-				if (p.getPaymentType() == PaymentType.CLIP_CARD) {
-					d += p.getAmount();
-				}
-			}
-		}
-
-		return d;
+		return getReport().getClipCardUses();
 	}
 
 	/**
@@ -102,24 +87,7 @@ public class Statistics {
 	 * an order NOTE: Categories with no sale will not show up
 	 */
 	public Map<String, Double> getSalesPrCategory() {
-		Map<String, Double> sales = new HashMap<>();
-
-		for (Order o : orders) {
-			for (ProductOrder po : o.getProductOrders()) {
-				String category = po.getProduct().getCategory();
-				Double currentTotal = sales.get(category);
-
-				if (currentTotal == null) {
-					currentTotal = 0.0;
-				}
-
-				currentTotal += po.price();
-
-				sales.put(category, currentTotal);
-			}
-		}
-
-		return sales;
+		return getReport().getSalesPrCategory();
 	}
 
 	/**
@@ -127,42 +95,85 @@ public class Statistics {
 	 * users with no sales will not show up
 	 */
 	public Map<User, Double> getSalesPrUser() {
-		Map<User, Double> sales = new HashMap<>();
-
-		for (Order o : orders) {
-			Double currentTotal = sales.get(o.getUser());
-
-			if (currentTotal == null) {
-				currentTotal = 0.0;
-			}
+		return getReport().getSalesPrUser();
+	}
 
-			currentTotal += o.totalPrice();
+	/**
+	 * Returns the estimated number of distinct customers
+	 */
+	public long getDistinctCustomers() {
+		return getReport().getDistinctCustomers();
+	}
 
-			sales.put(o.getUser(), currentTotal);
-		}
+	/**
+	 * Returns the estimated order total at the quantile, 0.5 for the median
+	 */
+	public double getOrderTotalQuantile(double q) {
+		return getReport().getOrderTotalQuantile(q);
+	}
 
-		return sales;
+	/**
+	 * Returns the estimated number of lines of an order at the quantile
+	 */
+	public long getLineCountQuantile(double q) {
+		return getReport().getLineCountQuantile(q);
 	}
 
 	/**
 	 * Returns the sum of the total price of all orders
 	 */
 	public double getTotalSales() {
-		double total = 0;
-
-		for (Order o : orders) {
-			total += o.totalPrice();
-		}
-
-		return total;
+		return getReport().getTotalSales();
 	}
 
 	/**
-	 * Limits the orders to a specific time period
+	 * Limits the orders to the paid orders of a specific time period, the
+	 * report is read from the running sales of the service
 	 */
 	public void setTimePeriod(TimePeriod timePeriod) {
+		setTimePeriod(timePeriod, null);
+	}
+
+	/**
+	 * Limits the orders to a time period, giving the progress partial reports
+	 * unless the report is cached
+	 */
+	public void setTimePeriod(TimePeriod timePeriod, ReportProgress progress) {
 		assert timePeriod != null;
 
-		orders = service.getOrdersInPeriod(timePeriod);
+		report = cachedReport(service.getPeriodStart(timePeriod), null, progress);
+	}
+
+	/**
+	 * Limits the orders to the paid orders made in [from, to)
+	 */
+	public void setRange(LocalDateTime from, LocalDateTime to) {
+		setRange(from, to, null);
+	}
+
+	public void setRange(LocalDateTime from, LocalDateTime to,
+			ReportProgress progress) {
+		report = cachedReport(from, to, progress);
+	}
+
+	/**
+	 * Returns the cached report of the range, unless a paid order in the
+	 * range has changed since it was made
+	 */
+	private StatisticsReport cachedReport(LocalDateTime from, LocalDateTime to,
+			ReportProgress progress) {
+		List<LocalDateTime> key = Arrays.asList(from, to);
+		CachedReport cached = cache.get(key);
+
+		if (cached != null && !service.salesChangedSince(cached.version, from, to)) {
+			return cached.report;
+		}
+
+		// Read before the report is made, so a change made meanwhile makes
+		// the report out of date rather than being missed
+		long version = service.getSalesVersion();
+		StatisticsReport report = service.getSalesReport(from, to, progress);
+		cache.put(key, new CachedReport(report, version));
+		return report;
 	}
 }
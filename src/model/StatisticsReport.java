@@ -0,0 +1,146 @@
+package model;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * The sales statistics of a set of orders, made by a SalesAggregate. A report
+ * never changes after it is made
+ */
+public final class StatisticsReport {
+	private final Map<Pricelist, Long> salesPrPricelistOre;
+	private final Map<String, Long> salesPrBeerOre;
+	private final Map<String, Long> salesPrCategoryOre;
+	private final Map<User, Long> salesPrUserOre;
+	private final Map<Pricelist, Double> salesPrPricelist;
+	private final Map<String, Double> salesPrBeer;
+	private final Map<String, Double> salesPrCategory;
+	private final Map<User, Double> salesPrUser;
+	private final long clipCardSales;
+	private final int clipCardUses;
+	private final long totalSales;
+	private final HyperLogLog customers;
+	private final QuantileSketch orderTotals;
+	private final QuantileSketch lineCounts;
+
+	StatisticsReport(Map<Pricelist, Long> salesPrPricelist,
+			Map<String, Long> salesPrBeer, Map<String, Long> salesPrCategory,
+			Map<User, Long> salesPrUser, long clipCardSales, int clipCardUses,
+			long totalSales, HyperLogLog customers, QuantileSketch orderTotals,
+			QuantileSketch lineCounts) {
+		this.salesPrPricelistOre = Collections.unmodifiableMap(salesPrPricelist);
+		this.salesPrBeerOre = Collections.unmodifiableMap(salesPrBeer);
+		this.salesPrCategoryOre = Collections.unmodifiableMap(salesPrCategory);
+		this.salesPrUserOre = Collections.unmodifiableMap(salesPrUser);
+		this.salesPrPricelist = toKroner(salesPrPricelist);
+		this.salesPrBeer = toKroner(salesPrBeer);
+		this.salesPrCategory = toKroner(salesPrCategory);
+		this.salesPrUser = toKroner(salesPrUser);
+		this.clipCardSales = clipCardSales;
+		this.clipCardUses = clipCardUses;
+		this.totalSales = totalSales;
+		this.customers = customers;
+		this.orderTotals = orderTotals;
+		this.lineCounts = lineCounts;
+	}
+
+	private static <K> Map<K, Double> toKroner(Map<K, Long> sums) {
+		Map<K, Double> kroner = new HashMap<>();
+
+		for (Map.Entry<K, Long> entry : sums.entrySet()) {
+			kroner.put(entry.getKey(), Money.toKroner(entry.getValue()));
+		}
+
+		return Collections.unmodifiableMap(kroner);
+	}
+
+	/**
+	 * Returns the total sales of each pricelist used in an order
+	 */
+	public Map<Pricelist, Double> getSalesPrPricelist() {
+		return salesPrPricelist;
+	}
+
+	/**
+	 * Returns the total price spent on each 'beer' product. Products not sold
+	 * will not show up
+	 */
+	public Map<String, Double> getSalesPrBeer() {
+		return salesPrBeer;
+	}
+
+	/**
+	 * Returns the total price of all sales for each category. Categories with
+	 * no sale will not show up
+	 */
+	public Map<String, Double> getSalesPrCategory() {
+		return salesPrCategory;
+	}
+
+	/**
+	 * Returns the total price of all sales made by each user. Users with no
+	 * sales will not show up
+	 */
+	public Map<User, Double> getSalesPrUser() {
+		return salesPrUser;
+	}
+
+	Map<Pricelist, Long> getSalesPrPricelistOre() {
+		return salesPrPricelistOre;
+	}
+
+	Map<String, Long> getSalesPrBeerOre() {
+		return salesPrBeerOre;
+	}
+
+	Map<String, Long> getSalesPrCategoryOre() {
+		return salesPrCategoryOre;
+	}
+
+	Map<User, Long> getSalesPrUserOre() {
+		return salesPrUserOre;
+	}
+
+	public double getClipCardSales() {
+		return Money.toKroner(clipCardSales);
+	}
+
+	public long getClipCardSalesOre() {
+		return clipCardSales;
+	}
+
+	public int getClipCardUses() {
+		return clipCardUses;
+	}
+
+	public double getTotalSales() {
+		return Money.toKroner(totalSales);
+	}
+
+	public long getTotalSalesOre() {
+		return totalSales;
+	}
+
+	/**
+	 * Returns the estimated number of distinct customers of the orders
+	 */
+	public long getDistinctCustomers() {
+		return customers.estimate();
+	}
+
+	/**
+	 * Returns the estimated order total in kroner at the quantile, 0.5 for the
+	 * median
+	 */
+	public double getOrderTotalQuantile(double q) {
+		return Money.toKroner(Math.round(orderTotals.quantile(q)));
+	}
+
+	/**
+	 * Returns the estimated number of lines of an order at the quantile
+	 */
+	public long getLineCountQuantile(double q) {
+		return Math.round(lineCounts.quantile(q));
+	}
+}
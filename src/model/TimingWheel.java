@@ -0,0 +1,107 @@
+package model;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Keeps items by the day they are due, in a wheel of slots by day. Moving the
+ * wheel to a new day only looks at the slots of the days passed, so the items
+ * that became overdue are found without looking at all the items. Items due
+ * more than a turn of the wheel ahead share a slot and wait for their turn
+ */
+public class TimingWheel<T> {
+	private static final int SLOTS = 64;
+
+	private final List<Set<T>> slots = new ArrayList<>();
+	private final Map<T, LocalDate> dueDays = new HashMap<>();
+	// Every item due before the day has been taken out as overdue
+	private LocalDate day;
+
+	public TimingWheel(LocalDate day) {
+		assert day != null;
+
+		this.day = day;
+
+		for (int i = 0; i < SLOTS; i++) {
+			slots.add(new LinkedHashSet<>());
+		}
+	}
+
+	private Set<T> slotOf(LocalDate due) {
+		return slots.get((int) Math.floorMod(due.toEpochDay(), (long) SLOTS));
+	}
+
+	/**
+	 * Returns the day the wheel has moved to
+	 */
+	public LocalDate getDay() {
+		return day;
+	}
+
+	/**
+	 * Adds the item, due at the end of the due day. It replaces the item if
+	 * it is in the wheel already
+	 */
+	public void schedule(T item, LocalDate due) {
+		assert item != null;
+		assert !due.isBefore(day);
+
+		cancel(item);
+		dueDays.put(item, due);
+		slotOf(due).add(item);
+	}
+
+	/**
+	 * Takes the item out of the wheel, if it is in it
+	 */
+	public void cancel(T item) {
+		LocalDate due = dueDays.remove(item);
+
+		if (due != null) {
+			slotOf(due).remove(item);
+		}
+	}
+
+	public boolean contains(T item) {
+		return dueDays.containsKey(item);
+	}
+
+	/**
+	 * Moves the wheel to the day, and takes out and returns the items due
+	 * before it
+	 */
+	public List<T> advanceTo(LocalDate newDay) {
+		List<T> overdue = new ArrayList<>();
+
+		if (!newDay.isAfter(day)) {
+			return overdue;
+		}
+
+		long days = newDay.toEpochDay() - day.toEpochDay();
+
+		// The slots of the days from the old day up to the new day, or every
+		// slot once if the wheel turns all the way round
+		for (long i = 0; i < Math.min(days, SLOTS); i++) {
+			Iterator<T> items = slotOf(day.plusDays(i)).iterator();
+
+			while (items.hasNext()) {
+				T item = items.next();
+
+				if (dueDays.get(item).isBefore(newDay)) {
+					items.remove();
+					dueDays.remove(item);
+					overdue.add(item);
+				}
+			}
+		}
+
+		day = newDay;
+		return overdue;
+	}
+}
@@ -0,0 +1,171 @@
+package model;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Finds the best selling beers in a stream of orders with the space saving
+ * algorithm. A fixed number of beers are counted, a new beer takes the place
+ * of the beer with the lowest count and starts from that count, which is kept
+ * as the possible error. Any beer that sold more than the total divided by the
+ * capacity is guaranteed to be counted
+ */
+public class TopSellers {
+	/**
+	 * A counted beer, the count is at most the error too high
+	 */
+	public static class Item {
+		private final String name;
+		private final long count;
+		private final long error;
+
+		Item(String name, long count, long error) {
+			this.name = name;
+			this.count = count;
+			this.error = error;
+		}
+
+		public String getName() {
+			return name;
+		}
+
+		public long getCount() {
+			return count;
+		}
+
+		public long getError() {
+			return error;
+		}
+
+		@Override
+		public String toString() {
+			return name + " " + count;
+		}
+	}
+
+	private final int capacity;
+	private final String[] names;
+	private final long[] counts;
+	private final long[] errors;
+	private final Map<String, Integer> slots = new HashMap<>();
+	// The beers and amounts each order added, so they can be taken out again
+	private final Map<Order, Map<String, Long>> contributions = new HashMap<>();
+
+	/**
+	 * Creates a counter of the capacity given, which should be a few times the
+	 * number of beers asked for
+	 */
+	public TopSellers(int capacity) {
+		assert capacity > 0;
+
+		this.capacity = capacity;
+		names = new String[capacity];
+		counts = new long[capacity];
+		errors = new long[capacity];
+	}
+
+	/**
+	 * Counts the beers of the order, replacing what it was counted as before
+	 */
+	public synchronized void count(Order order) {
+		assert order != null;
+
+		uncount(order);
+
+		Map<String, Long> amounts = new HashMap<>();
+
+		for (ProductOrder po : order.getAllProducts()) {
+			Product p = po.getProduct();
+
+			if (p.isBeer() && !po.getGift()) {
+				amounts.merge(p.getBeerName(), (long) po.getAmount(), Long::sum);
+			}
+		}
+
+		for (Map.Entry<String, Long> entry : amounts.entrySet()) {
+			add(entry.getKey(), entry.getValue());
+		}
+
+		contributions.put(order, amounts);
+	}
+
+	/**
+	 * Takes the beers of the order out of the counts, a beer that has lost its
+	 * place since keeps its count
+	 */
+	public synchronized void uncount(Order order) {
+		Map<String, Long> amounts = contributions.remove(order);
+
+		if (amounts == null) {
+			return;
+		}
+
+		for (Map.Entry<String, Long> entry : amounts.entrySet()) {
+			Integer slot = slots.get(entry.getKey());
+
+			if (slot != null) {
+				counts[slot] = Math.max(errors[slot], counts[slot] - entry.getValue());
+			}
+		}
+	}
+
+	private void add(String name, long amount) {
+		Integer slot = slots.get(name);
+
+		if (slot == null) {
+			slot = slots.size() < capacity ? slots.size() : minSlot();
+
+			if (names[slot] != null) {
+				slots.remove(names[slot]);
+			}
+
+			errors[slot] = counts[slot];
+			names[slot] = name;
+			slots.put(name, slot);
+		}
+
+		counts[slot] += amount;
+	}
+
+	private int minSlot() {
+		int min = 0;
+
+		for (int slot = 1; slot < capacity; slot++) {
+			if (counts[slot] < counts[min]) {
+				min = slot;
+			}
+		}
+
+		return min;
+	}
+
+	public synchronized void clear() {
+		slots.clear();
+		contributions.clear();
+
+		for (int slot = 0; slot < capacity; slot++) {
+			names[slot] = null;
+			counts[slot] = 0;
+			errors[slot] = 0;
+		}
+	}
+
+	/**
+	 * Returns the n best selling beers, best first
+	 */
+	public synchronized List<Item> top(int n) {
+		List<Item> items = new ArrayList<>();
+
+		for (int slot = 0; slot < capacity; slot++) {
+			if (names[slot] != null && counts[slot] > 0) {
+				items.add(new Item(names[slot], counts[slot], errors[slot]));
+			}
+		}
+
+		Collections.sort(items, (a, b) -> Long.compare(b.count, a.count));
+		return items.size() > n ? new ArrayList<>(items.subList(0, n)) : items;
+	}
+}
@@ -1,7 +1,6 @@
 package model;
 
 import exceptions.DiscountParseException;
-import exceptions.InvalidPaymentAmount;
 import javafx.util.Pair;
 
 import java.io.Serializable;
@@ -11,11 +10,15 @@ import java.util.ArrayList;
 import java.util.List;
 
 public class Tour implements Payable, Serializable {
+	private static final long serialVersionUID = 1L;
+
 	private final List<Payment> payments = new ArrayList<>();
 	private int persons;
 	private LocalDateTime date;
-	private double price;
+	private long price;
 	private Duration duration;
+	private PaymentStatus status = PaymentStatus.UNPAID;
+	private transient PaymentStatusListener statusListener;
 	// private User user; //Bliver ikke brugt, da vi ikke nåede den del af
 	// statistikken
 
@@ -29,20 +32,33 @@ public class Tour implements Payable, Serializable {
 
 		this.persons = persons;
 		this.date = date;
-		this.price = price;
+		this.price = Money.ofKroner(price);
 		this.duration = duration;
 		// this.user = user;
+		updateStatus();
 	}
 
 	/**
-	 * Calculates the current payment status
+	 * Returns the current payment status, kept up to date as payments and the
+	 * price change
 	 */
 	@Override
 	public PaymentStatus paymentStatus() throws DiscountParseException {
-		if (totalPayment() >= price) {
-			return PaymentStatus.ORDERPAID;
+		return status;
+	}
+
+	public void setStatusListener(PaymentStatusListener statusListener) {
+		this.statusListener = statusListener;
+	}
+
+	private void updateStatus() {
+		PaymentStatus oldStatus = status;
+		status = totalPaymentOre() >= price ? PaymentStatus.ORDERPAID
+				: PaymentStatus.UNPAID;
+
+		if (oldStatus != status && statusListener != null) {
+			statusListener.statusChanged(this, oldStatus, status);
 		}
-		return PaymentStatus.UNPAID;
 	}
 
 	public int getPersons() {
@@ -66,13 +82,18 @@ public class Tour implements Payable, Serializable {
 	}
 
 	public double totalPrice() {
+		return Money.toKroner(price);
+	}
+
+	public long totalPriceOre() {
 		return price;
 	}
 
 	public void setPrice(double price) {
 		assert price >= 0;
 
-		this.price = price;
+		this.price = Money.ofKroner(price);
+		updateStatus();
 	}
 
 	public Duration getDuration() {
@@ -90,9 +111,14 @@ public class Tour implements Payable, Serializable {
 	 */
 	@Override
 	public double totalPayment() {
-		double sum = 0;
+		return Money.toKroner(totalPaymentOre());
+	}
+
+	@Override
+	public long totalPaymentOre() {
+		long sum = 0;
 		for (Payment payment : payments) {
-			sum += payment.getAmount();
+			sum += payment.getAmountOre();
 		}
 		return sum;
 	}
@@ -102,6 +128,11 @@ public class Tour implements Payable, Serializable {
 		return 0;
 	}
 
+	@Override
+	public long getPriceOre() {
+		return 0;
+	}
+
 	@Override
 	public Pair<Integer, Double> totalClipCardPrice() {
 		return null;
@@ -112,10 +143,23 @@ public class Tour implements Payable, Serializable {
 		assert payment != null;
 
 		payments.add(payment);
-		try {
-			paymentStatus();
-		} catch (InvalidPaymentAmount e) {
-			payments.remove(payment);
-		}
+		updateStatus();
+	}
+
+	@Override
+	public void addPayments(List<Payment> payments) {
+		this.payments.addAll(payments);
+		updateStatus();
+	}
+
+	@Override
+	public void removePayments(List<Payment> payments) {
+		this.payments.removeAll(payments);
+		updateStatus();
+	}
+
+	@Override
+	public long overpaidOre() {
+		return Math.max(0, totalPaymentOre() - price);
 	}
 }
@@ -2,6 +2,8 @@ package model;
 
 import javax.crypto.SecretKeyFactory;
 import javax.crypto.spec.PBEKeySpec;
+import java.io.IOException;
+import java.io.ObjectInputStream;
 import java.io.Serializable;
 import java.security.NoSuchAlgorithmException;
 import java.security.spec.InvalidKeySpecException;
@@ -10,6 +12,11 @@ import java.util.Arrays;
 import java.util.Random;
 
 public class User extends Person implements Serializable {
+	private static final long serialVersionUID = 1L;
+
+	private static final IdSequence ids = new IdSequence();
+
+	private final int id;
 	private String username;
 	private byte[] passwordHash;
 	private final byte[] salt = new byte[16];
@@ -22,12 +29,26 @@ public class User extends Person implements Serializable {
 		assert username != null;
 		assert permission != null;
 
+		this.id = ids.take();
 		this.username = username;
 		this.permission = permission;
 
 		setPassword(password);
 	}
 
+	private void readObject(ObjectInputStream in)
+			throws IOException, ClassNotFoundException {
+		in.defaultReadObject();
+		ids.loaded(id);
+	}
+
+	/**
+	 * Returns a small unique number, used to index users in arrays
+	 */
+	public int getId() {
+		return id;
+	}
+
 	public boolean isDeleted() {
 		return isDeleted;
 	}
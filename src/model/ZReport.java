@@ -0,0 +1,198 @@
+package model;
+
+import java.io.Serializable;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * The end of day report of the paid orders of a day, made when the day is
+ * closed. The sales are grouped by name when the report is made, so renaming
+ * a pricelist, user or product later doesn't change it. A report also keeps
+ * the sales of each hour so the running sales can be read from it instead of
+ * the orders
+ */
+public final class ZReport implements Serializable {
+	private static final long serialVersionUID = 1L;
+
+	private final LocalDate day;
+	private final LocalDateTime closedAt;
+	private final int orderCount;
+	// Payments in øre by type, the clip card payments are counted in clips
+	private final Map<PaymentType, Long> payments;
+	private final int clipsPaid;
+	private final SalesAggregate[] hours = new SalesAggregate[24];
+	// Sales in øre by name
+	private final Map<String, Long> salesPrPricelist;
+	private final Map<String, Long> salesPrUser;
+	private final Map<String, Long> salesPrBeer;
+	private final Map<String, Long> salesPrCategory;
+	private final long clipCardSales;
+	private final int clipCardUses;
+	private final long totalSales;
+
+	/**
+	 * Sums up the orders of the day in one pass over each hour
+	 */
+	public ZReport(LocalDate day, List<Order> orders) {
+		assert day != null;
+		assert orders != null;
+
+		this.day = day;
+		this.closedAt = LocalDateTime.now();
+		this.orderCount = orders.size();
+
+		Map<PaymentType, Long> payments = new EnumMap<>(PaymentType.class);
+		int clipsPaid = 0;
+		List<List<Order>> ordersPrHour = new ArrayList<>();
+
+		for (int hour = 0; hour < 24; hour++) {
+			ordersPrHour.add(new ArrayList<>());
+		}
+
+		for (Order order : orders) {
+			assert order.getDate().equals(day);
+
+			ordersPrHour.get(order.getTime().getHour()).add(order);
+
+			for (Payment payment : order.getPayments()) {
+				if (payment.getPaymentType() == PaymentType.CLIP_CARD) {
+					clipsPaid += payment.getClips();
+				} else {
+					payments.merge(payment.getPaymentType(), payment.getAmountOre(),
+							Long::sum);
+				}
+			}
+		}
+
+		SalesAggregate sales = new SalesAggregate();
+
+		// A busy hour is split over several threads
+		for (int hour = 0; hour < 24; hour++) {
+			if (!ordersPrHour.get(hour).isEmpty()) {
+				hours[hour] = SalesAggregate.of(ordersPrHour.get(hour));
+				sales.merge(hours[hour]);
+			}
+		}
+
+		StatisticsReport report = sales.toReport();
+		this.payments = Collections.unmodifiableMap(payments);
+		this.clipsPaid = clipsPaid;
+		this.salesPrPricelist = byName(report.getSalesPrPricelistOre(),
+				Pricelist::getName);
+		this.salesPrUser = byName(report.getSalesPrUserOre(), User::getName);
+		this.salesPrBeer = byName(report.getSalesPrBeerOre(), Function.identity());
+		this.salesPrCategory = byName(report.getSalesPrCategoryOre(),
+				Function.identity());
+		this.clipCardSales = report.getClipCardSalesOre();
+		this.clipCardUses = report.getClipCardUses();
+		this.totalSales = report.getTotalSalesOre();
+	}
+
+	private static <K> Map<String, Long> byName(Map<K, Long> sales,
+			Function<K, String> name) {
+		Map<String, Long> byName = new HashMap<>();
+
+		for (Map.Entry<K, Long> entry : sales.entrySet()) {
+			byName.merge(name.apply(entry.getKey()), entry.getValue(), Long::sum);
+		}
+
+		return Collections.unmodifiableMap(byName);
+	}
+
+	public LocalDate getDay() {
+		return day;
+	}
+
+	public LocalDateTime getClosedAt() {
+		return closedAt;
+	}
+
+	public int getOrderCount() {
+		return orderCount;
+	}
+
+	/**
+	 * Returns the amount paid with the payment type in kroner, or the number of
+	 * clips for clip cards
+	 */
+	public double getPayments(PaymentType type) {
+		if (type == PaymentType.CLIP_CARD) {
+			return clipsPaid;
+		}
+
+		return Money.toKroner(getPaymentsOre(type));
+	}
+
+	/**
+	 * Returns the amount paid with the payment type in øre, 0 for clip cards
+	 */
+	public long getPaymentsOre(PaymentType type) {
+		return payments.getOrDefault(type, 0L);
+	}
+
+	public int getClipsPaid() {
+		return clipsPaid;
+	}
+
+	/**
+	 * Returns the sales of the day in øre by the name of the pricelist
+	 */
+	public Map<String, Long> getSalesPrPricelistOre() {
+		return salesPrPricelist;
+	}
+
+	/**
+	 * Returns the sales of the day in øre by the name of the user who made
+	 * them
+	 */
+	public Map<String, Long> getSalesPrUserOre() {
+		return salesPrUser;
+	}
+
+	public Map<String, Long> getSalesPrBeerOre() {
+		return salesPrBeer;
+	}
+
+	public Map<String, Long> getSalesPrCategoryOre() {
+		return salesPrCategory;
+	}
+
+	public double getClipCardSales() {
+		return Money.toKroner(clipCardSales);
+	}
+
+	public int getClipCardUses() {
+		return clipCardUses;
+	}
+
+	public double getTotalSales() {
+		return Money.toKroner(totalSales);
+	}
+
+	public long getTotalSalesOre() {
+		return totalSales;
+	}
+
+	/**
+	 * Returns a copy of the sales of the hour, or null if nothing was sold in
+	 * it
+	 */
+	SalesAggregate getHour(int hour) {
+		assert hour >= 0 && hour < 24;
+
+		if (hours[hour] == null) {
+			return null;
+		}
+
+		SalesAggregate copy = new SalesAggregate();
+		copy.merge(hours[hour]);
+		return copy;
+	}
+}
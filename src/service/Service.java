@@ -1,28 +1,363 @@
 package service;
 
 import java.io.IOException;
+import java.time.DayOfWeek;
 import java.time.Duration;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.time.LocalTime;
 import java.time.temporal.ChronoUnit;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Predicate;
 
 import javax.security.sasl.AuthenticationException;
 
+import exceptions.DayCloseException;
 import exceptions.DiscountParseException;
+import exceptions.InvalidPaymentAmount;
 import model.*;
 import storage.Storage;
+import storage.StorageEvent;
 
 public class Service {
 	private final static Service instance = new Service();
 	private User activeUser;
 	private Storage storage = Storage.getInstance();
-	private Pricelist selectedPricelist;
+	private volatile Pricelist selectedPricelist;
+	private final ScheduledExecutorService scheduler = Executors
+			.newSingleThreadScheduledExecutor(r -> {
+				Thread thread = new Thread(r, "Pricelist scheduler");
+				thread.setDaemon(true);
+				return thread;
+			});
+	// The scheduler only keeps the time, the work is handed to the thread that
+	// owns the model. The GUI sets it to the JavaFX application thread
+	private volatile Executor modelExecutor = Runnable::run;
+	private ScheduledFuture<?> nextPricelistSwitch;
+	// The open tabs by name, in the order they were opened
+	private final Map<String, Order> openTabs = new LinkedHashMap<>();
+	private int tabCount = 0;
+	// The sales of the paid orders, kept up to date from the storage events
+	private final RunningSales runningSales = new RunningSales();
+	private final SalesHeatmap salesHeatmap = new SalesHeatmap();
+	// The best selling beers of the orders made today
+	private final TopSellers topBeersToday = new TopSellers(40);
+	private LocalDate topBeersDay = LocalDate.now();
+	// The deposit products out on rental, kept up to date from the storage
+	// events and checked for overdue returns every midnight
+	private final DepositInventory depositInventory = new DepositInventory(
+			LocalDate.now());
 
 	private Service() {
+		storage.addListener(this::countSales);
+
+		long untilMidnight = Duration.between(LocalDateTime.now(),
+				LocalDate.now().plusDays(1).atStartOfDay()).toMillis();
+		scheduler.scheduleAtFixedRate(
+				() -> modelExecutor.execute(this::checkOverdueRentals), untilMidnight,
+				TimeUnit.DAYS.toMillis(1), TimeUnit.MILLISECONDS);
+	}
+
+	/**
+	 * Sets the executor that runs the scheduled work, the midnight check of
+	 * overdue rentals and the pricelist switches. It must run the work on the
+	 * thread the orders and storage are changed from
+	 */
+	public void setModelExecutor(Executor modelExecutor) {
+		assert modelExecutor != null;
+
+		this.modelExecutor = modelExecutor;
+	}
+
+	/**
+	 * Counts an order in the running sales when it is paid, and again when a
+	 * paid order is changed. An order that is no longer paid is taken out
+	 */
+	private void countSales(StorageEvent event) {
+		if (event.isAbout(DepositProduct.class)) {
+			depositInventory.revalue((DepositProduct) event.getEntity());
+			return;
+		}
+
+		Order order = null;
+
+		if (event.isAbout(Order.class)) {
+			order = (Order) event.getEntity();
+		} else if (event.isAbout(ProductOrder.class)) {
+			order = ((ProductOrder) event.getEntity()).getOrder();
+		}
+
+		if (order == null) {
+			return;
+		}
+
+		storage.recordClipCards(order);
+		depositInventory.record(order, isDepositPaid(order));
+
+		if (storage.hasStatus(order, PaymentStatus.ORDERPAID)) {
+			try {
+				count(order);
+			} catch (DiscountParseException e) {
+				// Counted as it was until the discount is valid again
+			}
+		} else {
+			runningSales.uncount(order);
+			salesHeatmap.uncount(order);
+			topBeersToday.uncount(order);
+		}
+	}
+
+	private void count(Order order) {
+		// The running sales of a closed day are read from its Z report
+		if (!order.isSealed()) {
+			runningSales.count(order);
+		}
+		salesHeatmap.count(order);
+
+		if (order.getDate().equals(startTopBeersDay())) {
+			topBeersToday.count(order);
+		}
+	}
+
+	/**
+	 * Starts counting the best selling beers over when the day changes and
+	 * returns the day counted
+	 */
+	private synchronized LocalDate startTopBeersDay() {
+		LocalDate today = LocalDate.now();
+
+		if (!today.equals(topBeersDay)) {
+			topBeersToday.clear();
+			topBeersDay = today;
+		}
+
+		return today;
+	}
+
+	/**
+	 * Counts all the paid orders again, used after the storage is loaded
+	 */
+	private void countPaidOrders() {
+		runningSales.clear();
+		salesHeatmap.clear();
+		topBeersToday.clear();
+
+		for (ZReport report : storage.getZReports()) {
+			runningSales.addClosedDay(report);
+		}
+
+		for (Order order : storage.getOrders(PaymentStatus.ORDERPAID)) {
+			count(order);
+		}
+	}
+
+	/**
+	 * Records the rentals of all the orders again, used after the storage is
+	 * loaded
+	 */
+	private void trackRentals() {
+		depositInventory.clear();
+
+		for (Order order : storage.getOrders()) {
+			depositInventory.record(order, isDepositPaid(order));
+		}
+
+		checkOverdueRentals();
+	}
+
+	private boolean isDepositPaid(Order order) {
+		return storage.hasStatus(order, PaymentStatus.DEPOSITPAID)
+				|| storage.hasStatus(order, PaymentStatus.DEPOSITNOTPAIDBACK)
+				|| storage.hasStatus(order, PaymentStatus.ORDERPAID);
+	}
+
+	/**
+	 * Flags the rentals that became overdue since the last check, and tells
+	 * the listeners their orders changed
+	 */
+	private void checkOverdueRentals() {
+		for (RentalProductOrder productOrder : depositInventory
+				.advanceTo(LocalDate.now())) {
+			if (productOrder.getOrder() != null) {
+				storage.fireUpdated(productOrder.getOrder());
+			}
+		}
+	}
+
+	/**
+	 * Returns the units out, deposit held and days due back of the deposit
+	 * products on rental
+	 */
+	public DepositInventory getDepositInventory() {
+		return depositInventory;
+	}
+
+	/**
+	 * Returns the rental lines not returned by the end of their due day
+	 */
+	public List<RentalProductOrder> getOverdueRentals() {
+		checkOverdueRentals();
+		return depositInventory.getOverdue();
+	}
+
+	public void updateRentalDue(RentalProductOrder po, LocalDate due) {
+		assert po != null;
+		assert due != null;
+
+		po.setDue(due);
+		storage.fireUpdated(po);
+	}
+
+	/**
+	 * Closes the day: sums up its paid orders in a Z report, which is saved
+	 * with the storage, and seals the orders so they can't change. The
+	 * running sales forget the sealed orders, and read the day from the
+	 * report after the storage is loaded. A day can only be closed once, and
+	 * not while it has unpaid orders. Rentals of the day still out are left
+	 * open; they are counted in the running sales of the day when they are
+	 * settled, but not in its Z report
+	 */
+	public ZReport closeDay(LocalDate day) {
+		assert day != null;
+
+		if (storage.getZReport(day) != null) {
+			throw new DayCloseException("The day is already closed");
+		}
+
+		for (Order order : storage.getOrders(PaymentStatus.UNPAID)) {
+			if (order.getDate().equals(day) && (!order.getProductOrders().isEmpty()
+					|| !order.getRentalProductOrders().isEmpty())) {
+				throw new DayCloseException("The day has unpaid orders");
+			}
+		}
+
+		List<Order> orders = new ArrayList<>();
+		for (Order order : storage.getOrders(PaymentStatus.ORDERPAID)) {
+			if (order.getDate().equals(day)) {
+				orders.add(order);
+			}
+		}
+
+		ZReport report = new ZReport(day, orders);
+
+		for (Order order : orders) {
+			order.seal();
+			runningSales.archive(order);
+		}
+
+		storage.addZReport(report);
+		return report;
+	}
+
+	/**
+	 * Returns the Z report of the day, or null if the day isn't closed
+	 */
+	public ZReport getZReport(LocalDate day) {
+		return storage.getZReport(day);
+	}
+
+	/**
+	 * Returns the sales of the day, the same as a range report of the day.
+	 * The running sales of a closed day are read from its Z report and the
+	 * orders of the day settled after it was closed
+	 */
+	public StatisticsReport getDayReport(LocalDate day) {
+		assert day != null;
+
+		return runningSales.report(day.atStartOfDay(), day.plusDays(1).atStartOfDay());
+	}
+
+	/**
+	 * Returns the n best selling beers of the orders made today
+	 */
+	public List<TopSellers.Item> getTopBeersToday(int n) {
+		startTopBeersDay();
+		return topBeersToday.top(n);
+	}
+
+	/**
+	 * Returns the sales of the paid orders by day of the week and hour
+	 */
+	public SalesHeatmap getSalesHeatmap() {
+		return salesHeatmap;
+	}
+
+	/**
+	 * Returns the lines of the paid orders that aren't closed, the running
+	 * sales are rolled up from them. For reports that scan the lines
+	 */
+	public SalesFacts getSalesFacts() {
+		return runningSales.getFacts();
+	}
+
+	/**
+	 * Returns the sales of the orders paid in the time period, read from the
+	 * running sales instead of scanning the orders
+	 */
+	public StatisticsReport getSalesReport(TimePeriod timePeriod) {
+		return runningSales.report(getPeriodStart(timePeriod), null);
+	}
+
+	/**
+	 * Returns the start of the first day of the time period, or null for all
+	 * time
+	 */
+	public LocalDateTime getPeriodStart(TimePeriod timePeriod) {
+		assert timePeriod != null;
+
+		if (timePeriod == TimePeriod.FOREVER) {
+			return null;
+		}
+
+		return periodStart(timePeriod).plusDays(1).atStartOfDay();
+	}
+
+	/**
+	 * Returns the version of the running sales, which changes with every
+	 * change to the paid orders
+	 */
+	public long getSalesVersion() {
+		return runningSales.getVersion();
+	}
+
+	/**
+	 * Returns true if a paid order made in [from, to) has changed since the
+	 * version of the running sales
+	 */
+	public boolean salesChangedSince(long version, LocalDateTime from,
+			LocalDateTime to) {
+		return runningSales.changedSince(version, from, to);
+	}
+
+	/**
+	 * Returns the sales of the orders paid and made in [from, to), a null
+	 * bound is open. The bounds are widened to whole hours
+	 */
+	public StatisticsReport getSalesReport(LocalDateTime from, LocalDateTime to) {
+		return getSalesReport(from, to, null);
+	}
+
+	/**
+	 * Returns the sales like getSalesReport, giving the progress partial
+	 * reports while a long range is summed up
+	 */
+	public StatisticsReport getSalesReport(LocalDateTime from, LocalDateTime to,
+			ReportProgress progress) {
+		assert from == null || to == null || from.isBefore(to);
+
+		return runningSales.report(from, to, progress);
 	}
 
 	public void updateProductName(Product product, String name) {
@@ -30,16 +365,19 @@ public class Service {
 		assert name != null && !name.isEmpty();
 
 		product.setName(name);
+		storage.fireUpdated(product);
 	}
 
 	public void updateProductClips(Product product, Integer clips) {
 		assert product != null;
 
 		product.setClips(clips);
+		storage.fireUpdated(product);
 	}
 
 	public void updateOrderDiscount(Order order, String discount) {
 		order.setDiscount(discount);
+		storage.fireUpdated(order);
 	}
 
 	public void updateProductCategory(Product product, String category) {
@@ -47,23 +385,17 @@ public class Service {
 		assert category != null && !category.isEmpty();
 
 		product.setCategory(category);
+		for (Pricelist pricelist : storage.getPricelists()) {
+			pricelist.invalidateDiscountPlan();
+		}
+		storage.fireUpdated(product);
 	}
 
 	/**
 	 * returns all orders that are not returned or paid
 	 */
 	public List<Order> getRentals() {
-		List<Order> rentals = new ArrayList<>();
-
-		for (Order o : storage.getOrders()) {
-			PaymentStatus s = o.paymentStatus();
-
-			if (s == PaymentStatus.DEPOSITPAID) {
-				rentals.add(o);
-			}
-		}
-
-		return rentals;
+		return storage.getOrders(PaymentStatus.DEPOSITPAID);
 	}
 
 	/**
@@ -129,12 +461,86 @@ public class Service {
 		assert product != null;
 
 		pricelist.setPrice(product, price);
+		storage.fireUpdated(pricelist);
+	}
+
+	/**
+	 * Changes the price of the product in the pricelist from the given time
+	 */
+	public void scheduleProductPrice(Product product, Pricelist pricelist,
+			double price, LocalDateTime from) {
+		assert pricelist != null;
+		assert product != null;
+		assert from != null;
+
+		pricelist.schedulePrice(product, price, from);
+		storage.fireUpdated(pricelist);
 	}
 
 	public Pricelist getSelectedPricelist() {
 		return selectedPricelist;
 	}
 
+	/**
+	 * Makes the pricelist the selected one at the time, on the day or every day
+	 * if day is null
+	 */
+	public PricelistSchedule schedulePricelist(Pricelist pricelist,
+			DayOfWeek day, LocalTime time) {
+		assert pricelist != null;
+		assert time != null;
+
+		PricelistSchedule schedule = new PricelistSchedule(pricelist, day, time);
+		storage.addPricelistSchedule(schedule);
+		schedulePricelistSwitch();
+		return schedule;
+	}
+
+	public void removePricelistSchedule(PricelistSchedule schedule) {
+		assert schedule != null;
+
+		storage.removePricelistSchedule(schedule);
+		schedulePricelistSwitch();
+	}
+
+	public List<PricelistSchedule> getPricelistSchedules() {
+		return storage.getPricelistSchedules();
+	}
+
+	/**
+	 * Schedules the next pricelist switch, replacing the one scheduled
+	 */
+	private synchronized void schedulePricelistSwitch() {
+		if (nextPricelistSwitch != null) {
+			nextPricelistSwitch.cancel(false);
+			nextPricelistSwitch = null;
+		}
+
+		LocalDateTime now = LocalDateTime.now();
+		PricelistSchedule next = null;
+		LocalDateTime nextTime = null;
+
+		for (PricelistSchedule schedule : storage.getPricelistSchedules()) {
+			LocalDateTime time = schedule.nextAfter(now);
+
+			if (nextTime == null || time.isBefore(nextTime)) {
+				next = schedule;
+				nextTime = time;
+			}
+		}
+
+		if (next == null) {
+			return;
+		}
+
+		Pricelist pricelist = next.getPricelist();
+		nextPricelistSwitch = scheduler.schedule(() -> modelExecutor.execute(() -> {
+			setSelectedPricelist(pricelist);
+			storage.fireUpdated(pricelist);
+			schedulePricelistSwitch();
+		}), Duration.between(now, nextTime).toMillis(), TimeUnit.MILLISECONDS);
+	}
+
 	/**
 	 * is null if no user is logged in
 	 */
@@ -167,12 +573,14 @@ public class Service {
 		assert password != null && !password.isEmpty();
 
 		user.setPassword(password);
+		storage.fireUpdated(user);
 	}
 
 	public void deleteUser(User user) {
 		assert user != null;
 
 		user.setDeleted();
+		storage.fireUpdated(user);
 	}
 
 	public void updateUserName(User user, String name) {
@@ -180,6 +588,7 @@ public class Service {
 		assert name != null && !name.isEmpty();
 
 		user.setName(name);
+		storage.fireUpdated(user);
 	}
 
 	public void updateUserUsername(User user, String username) {
@@ -187,6 +596,7 @@ public class Service {
 		assert username != null && !username.isEmpty();
 
 		user.setUsername(username);
+		storage.fireUpdated(user);
 	}
 
 	public void updateUserPermission(User user, Permission permission) {
@@ -194,6 +604,7 @@ public class Service {
 		assert permission != null;
 
 		user.setPermission(permission);
+		storage.fireUpdated(user);
 	}
 
 	public boolean usernameIsUnique(String username, User user) {
@@ -247,6 +658,7 @@ public class Service {
 		assert tour != null;
 
 		tour.setPersons(persons);
+		storage.fireUpdated(tour);
 	}
 
 	public void updateTourDate(Tour tour, LocalDateTime date) {
@@ -254,12 +666,14 @@ public class Service {
 		assert date != null;
 
 		tour.setDate(date);
+		storage.fireUpdated(tour);
 	}
 
 	public void updateTourPrice(Tour tour, double price) {
 		assert tour != null;
 
 		tour.setPrice(price);
+		storage.fireUpdated(tour);
 	}
 
 	public void updateTourDuration(Tour tour, Duration duration) {
@@ -267,20 +681,24 @@ public class Service {
 		assert duration != null;
 
 		tour.setDuration(duration);
+		storage.fireUpdated(tour);
 	}
 
 	public void updateProductOrderAmount(ProductOrder productOrder, int amount) {
 		assert productOrder != null;
 
 		productOrder.setAmount(amount);
+		storage.fireUpdated(productOrder);
 	}
 
 	public void updateProductOrderReturned(RentalProductOrder po, int returned) {
 		po.setReturned(returned);
+		storage.fireUpdated(po);
 	}
 
 	public void updateProductOrderUnused(RentalProductOrder po, int unused) {
 		po.setUnused(unused);
+		storage.fireUpdated(po);
 	}
 
 	public void removeProduct(Product p) {
@@ -309,8 +727,33 @@ public class Service {
 		return depositProduct;
 	}
 
+	public ClipCardProduct createClipCardProduct(String name, String category,
+			String image, int cardClips) {
+		assert name != null;
+
+		ClipCardProduct clipCard = new ClipCardProduct(name, category, image, cardClips);
+		storage.addProduct(clipCard);
+		return clipCard;
+	}
+
+	public void updateCardClips(ClipCardProduct product, int cardClips) {
+		assert product != null;
+
+		product.setCardClips(cardClips);
+		storage.fireUpdated(product);
+	}
+
+	/**
+	 * Returns the ledger of the clips issued by clip cards and redeemed by
+	 * payments, which is saved with the storage
+	 */
+	public ClipCardLedger getClipCardLedger() {
+		return storage.getClipCardLedger();
+	}
+
 	public void updateDeposit(DepositProduct product, double value) {
 		product.setDeposit(value);
+		storage.fireUpdated(product);
 	}
 
 	public List<Pricelist> getPricelists() {
@@ -322,6 +765,7 @@ public class Service {
 
 		storage.removePricelist(pricelist);
 		setSelectedPricelist(storage.getPricelists().get(0));
+		schedulePricelistSwitch();
 	}
 
 	public Pricelist createPricelist(String name) {
@@ -341,9 +785,75 @@ public class Service {
 
 		payable.pay(payment);
 		storage.addPayment(payment);
+		storage.fireUpdated(payable);
 		return payment;
 	}
 
+	/**
+	 * Pays a split tender in one go. A cash overpayment is taken off the last
+	 * cash payment large enough and returned as change due
+	 * 
+	 * @throws InvalidPaymentAmount
+	 *             if the payments exceed the price and the excess can't be
+	 *             given back in cash, nothing is paid then
+	 */
+	public PaymentResult createPayments(Payable payable, List<PaymentSpec> specs) {
+		assert payable != null;
+		assert specs != null && !specs.isEmpty();
+
+		List<Payment> payments = new ArrayList<>();
+		for (PaymentSpec spec : specs) {
+			payments.add(spec.toPayment());
+		}
+
+		payable.addPayments(payments);
+		long changeDue;
+		PaymentStatus status;
+
+		// Nothing is paid if the payments can't be taken, including clips
+		// beyond what the order can take
+		try {
+			changeDue = payable.overpaidOre();
+
+			if (changeDue > 0) {
+				int cashIndex = -1;
+				for (int i = payments.size() - 1; i >= 0 && cashIndex < 0; i--) {
+					Payment payment = payments.get(i);
+
+					if (payment.getPaymentType() == PaymentType.CASH
+							&& payment.getAmountOre() >= changeDue) {
+						cashIndex = i;
+					}
+				}
+
+				if (cashIndex < 0) {
+					throw new InvalidPaymentAmount(
+							"Der kan kun gives byttepenge i kontanter");
+				}
+
+				Payment cash = payments.get(cashIndex);
+				Payment reduced = Payment.ofOre(PaymentType.CASH,
+						cash.getAmountOre() - changeDue);
+
+				payable.removePayments(Collections.singletonList(cash));
+				payable.addPayments(Collections.singletonList(reduced));
+				payments.set(cashIndex, reduced);
+			}
+
+			status = payable.paymentStatus();
+		} catch (InvalidPaymentAmount | DiscountParseException e) {
+			payable.removePayments(payments);
+			throw e;
+		}
+
+		for (Payment payment : payments) {
+			storage.addPayment(payment);
+		}
+		storage.fireUpdated(payable);
+
+		return new PaymentResult(payments, status, changeDue);
+	}
+
 	public List<Product> getProducts() {
 		return storage.getProducts();
 	}
@@ -352,6 +862,50 @@ public class Service {
 		return createOrder(activeUser, selectedPricelist);
 	}
 
+	/**
+	 * Opens a tab, an order that stays open under a name or table number
+	 * until it is closed
+	 */
+	public Order openTab(String name) {
+		assert name != null && !name.isEmpty();
+		assert !openTabs.containsKey(name);
+
+		Order order = createOrder();
+		openTabs.put(name, order);
+		return order;
+	}
+
+	/**
+	 * Returns the open tab with the name, or null
+	 */
+	public Order getTab(String name) {
+		return openTabs.get(name);
+	}
+
+	public List<String> getTabNames() {
+		return new ArrayList<>(openTabs.keySet());
+	}
+
+	public void closeTab(String name) {
+		assert openTabs.containsKey(name);
+
+		openTabs.remove(name);
+	}
+
+	/**
+	 * Returns a name for a new tab that isn't in use
+	 */
+	public String nextTabName() {
+		String name;
+
+		do {
+			tabCount++;
+			name = "Regning " + tabCount;
+		} while (openTabs.containsKey(name));
+
+		return name;
+	}
+
 	public Order createOrder(User user, Pricelist pricelist) {
 		assert user != null;
 		assert pricelist != null;
@@ -365,7 +919,9 @@ public class Service {
 		assert order != null;
 		assert product != null;
 
-		return order.createProductOrder(product);
+		ProductOrder productOrder = order.createProductOrder(product);
+		storage.fireUpdated(order);
+		return productOrder;
 	}
 
 	public RentalProductOrder createRentalProductOrder(Order order,
@@ -373,7 +929,9 @@ public class Service {
 		assert order != null;
 		assert product != null;
 
-		return order.createRentalProductOrder(product);
+		RentalProductOrder rentalProductOrder = order.createRentalProductOrder(product);
+		storage.fireUpdated(order);
+		return rentalProductOrder;
 	}
 
 	public Customer createCustomer(String name, String address, String phone,
@@ -385,6 +943,25 @@ public class Service {
 		return c;
 	}
 
+	public void updateCustomer(Customer c, String name, String address, String phone,
+			String email) {
+		assert c != null;
+		assert name != null && !name.isEmpty();
+
+		c.setName(name);
+		c.setAddress(address);
+		c.setPhone(phone);
+		c.setEmail(email);
+		storage.fireUpdated(c);
+	}
+
+	public void updateOrderCustomer(Order order, Customer c) {
+		assert order != null;
+
+		order.setCustomer(c);
+		storage.fireUpdated(order);
+	}
+
 	public void removeCustomer(Customer c) throws Exception {
 		assert c != null;
 
@@ -410,6 +987,9 @@ public class Service {
 			storage = loadStorage();
 			System.out.println("Loaded data from storage");
 			setSelectedPricelist(storage.getPricelists().get(0));
+			schedulePricelistSwitch();
+			countPaidOrders();
+			trackRentals();
 			return;
 		} catch (IOException | ClassNotFoundException e) {
 			System.out
@@ -437,7 +1017,8 @@ public class Service {
 		addCategory("glas");
 		addCategory("sampakninger");
 
-		Product productKlippekort = createProduct("Klippekort, 4 klip", 4, "andet", null);
+		Product productKlippekort = createClipCardProduct("Klippekort, 4 klip", "andet",
+				null, 4);
 		setProductToPricelist(productKlippekort, pl1, 100);
 		setProductToPricelist(productKlippekort, pl2, 100);
 
@@ -446,6 +1027,7 @@ public class Service {
 				null);
 		setProductToPricelist(productFlaskeKlosterbryg, pl1, 50);
 		setProductToPricelist(productFlaskeKlosterbryg, pl2, 36);
+		addDiscountRule(pl2, DiscountRule.quantityBreak(productFlaskeKlosterbryg, 6, 180));
 		Product productFlaskeSweetGeorgiaBrown = createProduct("Sweet Georgia Brown", 2,
 				"flaske", null);
 		setProductToPricelist(productFlaskeSweetGeorgiaBrown, pl1, 50);
@@ -694,38 +1276,117 @@ public class Service {
 
 	public List<Order> getOrdersInPeriod(TimePeriod timePeriod) {
 		List<Order> selected = new ArrayList<>();
+		LocalDate fromDate = periodStart(timePeriod);
+
+		for (Order o : storage.getOrders()) {
+			if (o.getDate().isAfter(fromDate)) {
+				selected.add(o);
+			}
+		}
+
+		return selected;
+	}
+
+	/**
+	 * Returns the day before the first day of the time period
+	 */
+	private LocalDate periodStart(TimePeriod timePeriod) {
 		LocalDate fromDate = LocalDate.now();
 
 		switch (timePeriod) {
 		case DAY:
 			fromDate = fromDate.minus(1, ChronoUnit.DAYS);
+			break;
 		case WEEK:
 			fromDate = fromDate.minus(1, ChronoUnit.WEEKS);
+			break;
 		case MONTH:
 			fromDate = fromDate.minus(1, ChronoUnit.MONTHS);
+			break;
 		case YEAR:
-			// noinspection UnusedAssignment
 			fromDate = fromDate.minus(1, ChronoUnit.YEARS);
+			break;
 		case FOREVER:
 			fromDate = LocalDate.ofYearDay(1970, 1);
+			break;
 		default:
 			break;
 		}
 
-		for (Order o : storage.getOrders()) {
-			if (o.getDate().isAfter(fromDate)) {
-				selected.add(o);
+		return fromDate;
+	}
+
+	public static Service getInstance() {
+		return instance;
+	}
+
+	/**
+	 * Reprices all the selected products in one go and returns the change,
+	 * which can be undone with undoPriceChange
+	 */
+	public PriceChange bulkReprice(Pricelist pricelist, Predicate<Product> selector,
+			PriceRule rule) {
+		assert pricelist != null;
+		assert selector != null;
+		assert rule != null;
+
+		List<Product> products = storage.getProducts();
+		Product[] selected = new Product[products.size()];
+		long[] oldPrices = new long[products.size()];
+		long[] newPrices = new long[products.size()];
+		int count = 0;
+
+		// Every price is calculated before any is changed, so a failing rule
+		// leaves the pricelist as it was
+		for (Product product : products) {
+			if (!selector.test(product)) {
+				continue;
+			}
+
+			long oldPrice = pricelist.priceOrNotListed(product);
+			long newPrice = rule.reprice(product, oldPrice);
+
+			if (newPrice != oldPrice) {
+				selected[count] = product;
+				oldPrices[count] = oldPrice;
+				newPrices[count] = newPrice;
+				count++;
 			}
 		}
 
-		return selected;
+		PriceChange change = new PriceChange(pricelist,
+				Arrays.copyOf(selected, count), Arrays.copyOf(oldPrices, count),
+				Arrays.copyOf(newPrices, count));
+
+		pricelist.apply(change);
+		storage.fireUpdated(pricelist);
+		return change;
 	}
 
-	public static Service getInstance() {
-		return instance;
+	public void undoPriceChange(PriceChange change) {
+		assert change != null;
+
+		change.getPricelist().apply(change.inverse());
+		storage.fireUpdated(change.getPricelist());
+	}
+
+	public void addDiscountRule(Pricelist pricelist, DiscountRule rule) {
+		assert pricelist != null;
+		assert rule != null;
+
+		pricelist.addRule(rule);
+		storage.fireUpdated(pricelist);
+	}
+
+	public void removeDiscountRule(Pricelist pricelist, DiscountRule rule) {
+		assert pricelist != null;
+
+		pricelist.removeRule(rule);
+		storage.fireUpdated(pricelist);
 	}
 
 	public void removeProductFromPricelist(Product product, Pricelist p) {
 		p.removeProduct(product);
+		storage.fireUpdated(p);
 	}
 }
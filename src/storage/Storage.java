@@ -1,12 +1,23 @@
 package storage;
 
 import java.io.*;
+import java.time.LocalDate;
 import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.CopyOnWriteArrayList;
 
+import exceptions.DiscountParseException;
 import model.*;
+import storage.StorageEvent.Type;
 
 public class Storage implements Serializable {
+	private static final long serialVersionUID = 1L;
+
 	private static Storage instance = new Storage();
 
 	private final List<User> users = new ArrayList<>();
@@ -17,8 +28,93 @@ public class Storage implements Serializable {
 	private final List<Tour> tours = new ArrayList<>();
 	private final List<Customer> customers = new ArrayList<>();
 	private final List<String> categories = new ArrayList<>();
+	private final List<PricelistSchedule> pricelistSchedules = new ArrayList<>();
+	private final ClipCardLedger clipCardLedger = new ClipCardLedger();
+	// The Z reports of the closed days by day
+	private final TreeMap<LocalDate, ZReport> zReports = new TreeMap<>();
+	private transient List<StorageListener> listeners = new CopyOnWriteArrayList<>();
+	// The orders by payment status, kept up to date by the status transitions.
+	// A changed order works out its status lazily, it is moved when the index
+	// is next read
+	private transient Map<PaymentStatus, Set<Order>> ordersByStatus;
+	private transient Set<Order> staleStatuses;
+	private transient PaymentStatusListener statusListener;
 
 	private Storage() {
+		indexStatuses();
+	}
+
+	/**
+	 * Builds the status index and listens for status transitions of the
+	 * orders and tours
+	 */
+	private void indexStatuses() {
+		ordersByStatus = new EnumMap<>(PaymentStatus.class);
+		for (PaymentStatus status : PaymentStatus.values()) {
+			ordersByStatus.put(status, new LinkedHashSet<>());
+		}
+
+		staleStatuses = new LinkedHashSet<>();
+		statusListener = new PaymentStatusListener() {
+			@Override
+			public void statusChanged(Payable payable, PaymentStatus oldStatus,
+					PaymentStatus newStatus) {
+				Storage.this.statusChanged(payable, oldStatus, newStatus);
+			}
+
+			@Override
+			public void statusStale(Payable payable) {
+				if (payable instanceof Order) {
+					staleStatuses.add((Order) payable);
+				}
+			}
+		};
+
+		for (Order order : orders) {
+			ordersByStatus.get(statusOf(order)).add(order);
+			order.setStatusListener(statusListener);
+		}
+
+		for (Tour tour : tours) {
+			tour.setStatusListener(statusListener);
+		}
+	}
+
+	/**
+	 * Returns the status an order is indexed under, an order that is
+	 * overpaid or has an invalid discount keeps its last valid status
+	 */
+	private static PaymentStatus statusOf(Order order) {
+		try {
+			return order.paymentStatus();
+		} catch (RuntimeException e) {
+			return PaymentStatus.UNPAID;
+		}
+	}
+
+	private void statusChanged(Payable payable, PaymentStatus oldStatus,
+			PaymentStatus newStatus) {
+		if (payable instanceof Order) {
+			ordersByStatus.get(oldStatus).remove(payable);
+			ordersByStatus.get(newStatus).add((Order) payable);
+		}
+
+		fire(Type.UPDATED, payable);
+	}
+
+	/**
+	 * Works out the statuses of the orders changed since the index was last
+	 * read, which moves them in the index
+	 */
+	private void updateStatuses() {
+		while (!staleStatuses.isEmpty()) {
+			List<Order> stale = new ArrayList<>(staleStatuses);
+			staleStatuses.clear();
+
+			for (Order order : stale) {
+				statusOf(order);
+			}
+		}
 	}
 
 	public static Storage getInstance() {
@@ -39,13 +135,62 @@ public class Storage implements Serializable {
 		try (FileInputStream file_in = new FileInputStream("Storage.data");
 				ObjectInputStream obj_in = new ObjectInputStream(file_in)) {
 			Object obj = obj_in.readObject();
-			instance = (Storage) obj;
+			Storage loaded = (Storage) obj;
+			loaded.listeners = instance.listeners;
+			loaded.indexStatuses();
+			instance = loaded;
 			return instance;
 		}
 	}
 
+	/**
+	 * Returns the ledger of the clips issued and redeemed
+	 */
+	public ClipCardLedger getClipCardLedger() {
+		return clipCardLedger;
+	}
+
+	/**
+	 * Books the clip cards sold and clips paid with in the order as it is now.
+	 * An order that can't be priced keeps what it booked
+	 */
+	public void recordClipCards(Order order) {
+		try {
+			clipCardLedger.record(order, statusOf(order));
+		} catch (DiscountParseException e) {
+			// Booked again when the order is valid
+		}
+	}
+
+	public void addListener(StorageListener listener) {
+		assert listener != null;
+
+		listeners.add(listener);
+	}
+
+	public void removeListener(StorageListener listener) {
+		listeners.remove(listener);
+	}
+
+	/**
+	 * Notifies the listeners that an entity has been changed outside of the
+	 * storage
+	 */
+	public void fireUpdated(Object entity) {
+		fire(Type.UPDATED, entity);
+	}
+
+	private void fire(Type type, Object entity) {
+		StorageEvent event = new StorageEvent(type, entity);
+
+		for (StorageListener listener : listeners) {
+			listener.onChange(event);
+		}
+	}
+
 	public void addCategory(String category) {
 		categories.add(category);
+		fire(Type.ADDED, category);
 	}
 
 	public List<String> getCategories() {
@@ -54,6 +199,7 @@ public class Storage implements Serializable {
 
 	public void removeCategory(String s) {
 		categories.remove(s);
+		fire(Type.REMOVED, s);
 	}
 
 	public List<Tour> getTours() {
@@ -62,6 +208,8 @@ public class Storage implements Serializable {
 
 	public void addTour(Tour tour) {
 		tours.add(tour);
+		tour.setStatusListener(statusListener);
+		fire(Type.ADDED, tour);
 	}
 
 	public List<Customer> getCustomers() {
@@ -70,10 +218,12 @@ public class Storage implements Serializable {
 
 	public void addCustomer(Customer c) {
 		customers.add(c);
+		fire(Type.ADDED, c);
 	}
 
 	public void removeCustomer(Customer c) {
 		customers.remove(c);
+		fire(Type.REMOVED, c);
 	}
 
 	public List<User> getUsers() {
@@ -82,6 +232,7 @@ public class Storage implements Serializable {
 
 	public void addUser(User u) {
 		users.add(u);
+		fire(Type.ADDED, u);
 	}
 
 	public List<Product> getProducts() {
@@ -90,10 +241,12 @@ public class Storage implements Serializable {
 
 	public void addProduct(Product p) {
 		products.add(p);
+		fire(Type.ADDED, p);
 	}
 
 	public void removeProduct(Product p) {
 		products.remove(p);
+		fire(Type.REMOVED, p);
 	}
 
 	public List<Pricelist> getPricelists() {
@@ -102,10 +255,27 @@ public class Storage implements Serializable {
 
 	public void addPricelist(Pricelist pricelist) {
 		pricelists.add(pricelist);
+		fire(Type.ADDED, pricelist);
 	}
 
 	public void removePricelist(Pricelist pricelist) {
 		pricelists.remove(pricelist);
+		pricelistSchedules.removeIf(s -> s.getPricelist() == pricelist);
+		fire(Type.REMOVED, pricelist);
+	}
+
+	public List<PricelistSchedule> getPricelistSchedules() {
+		return new ArrayList<>(pricelistSchedules);
+	}
+
+	public void addPricelistSchedule(PricelistSchedule schedule) {
+		pricelistSchedules.add(schedule);
+		fire(Type.ADDED, schedule);
+	}
+
+	public void removePricelistSchedule(PricelistSchedule schedule) {
+		pricelistSchedules.remove(schedule);
+		fire(Type.REMOVED, schedule);
 	}
 
 	public List<Payment> getPayments() {
@@ -114,13 +284,59 @@ public class Storage implements Serializable {
 
 	public void addPayment(Payment payment) {
 		payments.add(payment);
+		fire(Type.ADDED, payment);
 	}
 
 	public List<Order> getOrders() {
 		return new ArrayList<>(orders);
 	}
 
+	/**
+	 * Returns the orders with the status, in the order they got it
+	 */
+	public List<Order> getOrders(PaymentStatus status) {
+		updateStatuses();
+		return new ArrayList<>(ordersByStatus.get(status));
+	}
+
+	/**
+	 * Returns true if the last valid status of the order is the status
+	 */
+	public boolean hasStatus(Order order, PaymentStatus status) {
+		updateStatuses();
+		return ordersByStatus.get(status).contains(order);
+	}
+
+	public int countOrders(PaymentStatus status) {
+		updateStatuses();
+		return ordersByStatus.get(status).size();
+	}
+
 	public void addOrder(Order order) {
 		orders.add(order);
+		ordersByStatus.get(statusOf(order)).add(order);
+		order.setStatusListener(statusListener);
+		fire(Type.ADDED, order);
+	}
+
+	/**
+	 * Returns the Z reports of the closed days, by day
+	 */
+	public List<ZReport> getZReports() {
+		return new ArrayList<>(zReports.values());
+	}
+
+	/**
+	 * Returns the Z report of the day, or null if the day isn't closed
+	 */
+	public ZReport getZReport(LocalDate day) {
+		return zReports.get(day);
+	}
+
+	public void addZReport(ZReport report) {
+		assert !zReports.containsKey(report.getDay());
+
+		zReports.put(report.getDay(), report);
+		fire(Type.ADDED, report);
 	}
-}
\ No newline at end of file
+}
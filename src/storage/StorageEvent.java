@@ -0,0 +1,41 @@
+package storage;
+
+/**
+ * Describes a single change to an entity held by the storage
+ */
+public class StorageEvent {
+	public enum Type {
+		ADDED, UPDATED, REMOVED
+	}
+
+	private final Type type;
+	private final Object entity;
+
+	public StorageEvent(Type type, Object entity) {
+		assert type != null;
+		assert entity != null;
+
+		this.type = type;
+		this.entity = entity;
+	}
+
+	public Type getType() {
+		return type;
+	}
+
+	public Object getEntity() {
+		return entity;
+	}
+
+	/**
+	 * Returns true if the changed entity is an instance of the class
+	 */
+	public boolean isAbout(Class<?> entityClass) {
+		return entityClass.isInstance(entity);
+	}
+
+	@Override
+	public String toString() {
+		return type + " " + entity;
+	}
+}
@@ -0,0 +1,9 @@
+package storage;
+
+@FunctionalInterface
+public interface StorageListener {
+	/**
+	 * Gets called on the thread that made the change
+	 */
+	void onChange(StorageEvent event);
+}
@@ -0,0 +1,82 @@
+package test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import model.ClipCardLedger;
+import model.ClipCardProduct;
+import model.Order;
+import model.Payment;
+import model.PaymentStatus;
+import model.PaymentType;
+import model.Permission;
+import model.Pricelist;
+import model.Product;
+import model.User;
+
+public class ClipCardLedgerTest {
+	final User user;
+	final Pricelist pricelist;
+	final ClipCardProduct clipCard;
+	final Product beer;
+	final ClipCardLedger ledger = new ClipCardLedger();
+
+	public ClipCardLedgerTest() {
+		user = new User("test", "test", "test", Permission.NORMAL);
+		pricelist = new Pricelist("test");
+		clipCard = new ClipCardProduct("Klippekort, 4 klip", "andet", null, 4);
+		beer = new Product("Beer", 2, "fadøl", null);
+		pricelist.setPrice(clipCard, 100);
+		pricelist.setPrice(beer, 30);
+	}
+
+	@Test
+	public void liabilityOfOutstandingClips() {
+		Order sale = new Order(user, pricelist);
+		sale.addProduct(clipCard).setAmount(2);
+		sale.pay(new Payment(PaymentType.CASH, 200));
+		ledger.record(sale, sale.paymentStatus());
+
+		assertEquals(8, ledger.getIssuedClips());
+		assertEquals(200, ledger.getLiability(), 0.001);
+
+		Order use = new Order(user, pricelist);
+		use.addProduct(beer);
+		use.pay(new Payment(PaymentType.CLIP_CARD, 2));
+		ledger.record(use, use.paymentStatus());
+
+		assertEquals(2, ledger.getRedeemedClips());
+		assertEquals(6, ledger.getOutstandingClips());
+		assertEquals(150, ledger.getLiability(), 0.001);
+	}
+
+	@Test
+	public void unpaidSaleIssuesNothing() {
+		Order sale = new Order(user, pricelist);
+		sale.addProduct(clipCard);
+		sale.pay(new Payment(PaymentType.CASH, 100));
+		ledger.record(sale, sale.paymentStatus());
+
+		sale.addProduct(clipCard);
+		assertEquals(PaymentStatus.UNPAID, sale.paymentStatus());
+		ledger.record(sale, sale.paymentStatus());
+
+		assertEquals(0, ledger.getIssuedClips());
+		assertEquals(0, ledger.getLiability(), 0.001);
+
+		sale.pay(new Payment(PaymentType.CASH, 100));
+		ledger.record(sale, sale.paymentStatus());
+
+		assertEquals(8, ledger.getIssuedClips());
+	}
+
+	@Test
+	public void legacyClipCardsCountInStatistics() {
+		assertTrue(clipCard.isClipCard());
+		assertTrue(new Product("Klippekort", null, "andet", null).isClipCard());
+		assertFalse(beer.isClipCard());
+	}
+}
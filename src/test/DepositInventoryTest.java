@@ -0,0 +1,122 @@
+package test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.Collections;
+
+import org.junit.Test;
+
+import model.DepositInventory;
+import model.DepositProduct;
+import model.Order;
+import model.Permission;
+import model.Pricelist;
+import model.RentalProductOrder;
+import model.TimingWheel;
+import model.User;
+
+public class DepositInventoryTest {
+	final User user;
+	final Pricelist pricelist;
+	final DepositProduct keg;
+	final LocalDate today = LocalDate.of(2024, 6, 1);
+	final DepositInventory inventory = new DepositInventory(today);
+
+	public DepositInventoryTest() {
+		user = new User("test", "test", "test", Permission.NORMAL);
+		pricelist = new Pricelist("test");
+		keg = new DepositProduct("Fustage", null, "fustage", null, 200);
+		pricelist.setPrice(keg, 500);
+	}
+
+	private RentalProductOrder rent(int amount) {
+		Order order = new Order(user, pricelist, today.atTime(12, 0));
+		RentalProductOrder line = order.createRentalProductOrder(keg);
+		line.setAmount(amount);
+		return line;
+	}
+
+	@Test
+	public void unitsOutAndDepositHeld() {
+		RentalProductOrder line = rent(3);
+		inventory.record(line.getOrder(), true);
+
+		assertEquals(3, inventory.getUnitsOut(keg));
+		assertEquals(60000, inventory.getDepositHeldOre(keg));
+		assertEquals(
+				Collections.singletonMap(today.plusDays(RentalProductOrder.RENTAL_DAYS), 3),
+				inventory.getDueBack(keg));
+
+		line.setReturned(2);
+		inventory.record(line.getOrder(), true);
+
+		assertEquals(1, inventory.getUnitsOut(keg));
+		assertEquals(20000, inventory.getDepositHeldOre());
+
+		line.setUnused(1);
+		inventory.record(line.getOrder(), true);
+
+		assertEquals(0, inventory.getUnitsOut(keg));
+		assertTrue(inventory.getProductsOut().isEmpty());
+	}
+
+	@Test
+	public void overdueAfterDueDay() {
+		RentalProductOrder late = rent(1);
+		RentalProductOrder returned = rent(1);
+		inventory.record(late.getOrder(), true);
+		inventory.record(returned.getOrder(), true);
+		LocalDate due = late.getDue();
+
+		assertTrue(inventory.advanceTo(due).isEmpty());
+
+		returned.setReturned(1);
+		inventory.record(returned.getOrder(), true);
+
+		assertEquals(Arrays.asList(late), inventory.advanceTo(due.plusDays(1)));
+		assertEquals(Arrays.asList(late), inventory.getOverdue());
+
+		late.setNotReturned(1);
+		inventory.record(late.getOrder(), true);
+
+		assertTrue(inventory.getOverdue().isEmpty());
+	}
+
+	@Test
+	public void wheelKeepsItemsDueAfterATurn() {
+		TimingWheel<String> wheel = new TimingWheel<>(today);
+		wheel.schedule("soon", today.plusDays(3));
+		wheel.schedule("later", today.plusDays(3 + 64));
+		wheel.schedule("much later", today.plusDays(500));
+
+		assertEquals(Arrays.asList("soon"), wheel.advanceTo(today.plusDays(10)));
+		assertTrue(wheel.contains("later"));
+		assertEquals(Arrays.asList("later"), wheel.advanceTo(today.plusDays(100)));
+		assertEquals(Arrays.asList("much later"), wheel.advanceTo(today.plusDays(1000)));
+	}
+
+	@Test
+	public void overdueWhenRecordedAfterDueDay() {
+		LocalDateTime longAgo = LocalDateTime.of(2001, 1, 1, 12, 0);
+		Order order = new Order(user, pricelist, longAgo);
+		order.createRentalProductOrder(keg);
+		inventory.record(order, true);
+
+		assertEquals(1, inventory.getOverdue().size());
+	}
+
+	@Test
+	public void unpaidRentalNotOut() {
+		RentalProductOrder line = rent(2);
+		inventory.record(line.getOrder(), true);
+		inventory.record(line.getOrder(), false);
+
+		assertEquals(0, inventory.getUnitsOut(keg));
+		assertEquals(0, inventory.getDepositHeldOre());
+		assertTrue(inventory.getOverdue().isEmpty());
+	}
+}
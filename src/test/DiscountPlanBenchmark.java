@@ -0,0 +1,100 @@
+package test;
+
+import java.time.LocalTime;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import model.Customer;
+import model.DiscountRule;
+import model.Order;
+import model.Permission;
+import model.Pricelist;
+import model.Product;
+import model.ProductOrder;
+import model.User;
+
+/**
+ * Measures pricing an order of 1000 lines again after a change, in a
+ * pricelist with 200 discount rules and in one without rules. It is run by
+ * hand rather than with the tests, compiled with the JMH annotation
+ * processor:
+ *
+ * java test.DiscountPlanBenchmark
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class DiscountPlanBenchmark {
+	private static final int LINES = 1000;
+
+	@Param({ "0", "200" })
+	public int rules;
+
+	private Order order;
+	private ProductOrder first;
+	private int amount;
+
+	@Setup
+	public void setup() {
+		User user = new User("test", "test", "test", Permission.NORMAL);
+		Customer customer = new Customer("Kunde", "Vej 1", "12345678", "kunde@example.com");
+		Pricelist pricelist = new Pricelist("test");
+		Product[] products = new Product[200];
+
+		for (int i = 0; i < products.length; i++) {
+			products[i] = new Product("Øl " + i, 1, "kategori " + i % 10, null);
+			pricelist.setPrice(products[i], 30 + i % 20);
+		}
+
+		// 170 quantity breaks, 10 category percentages, 10 happy hours and
+		// 10 customer rates
+		if (rules > 0) {
+			for (int i = 0; i < 170; i++) {
+				pricelist.addRule(DiscountRule.quantityBreak(products[i], 6, 150));
+			}
+			for (int i = 0; i < 10; i++) {
+				pricelist.addRule(DiscountRule.categoryPercent("kategori " + i, 5));
+				pricelist.addRule(DiscountRule.happyHour("kategori " + i,
+						LocalTime.of(16, 0), LocalTime.of(18, 0), 20));
+				pricelist.addRule(DiscountRule.customerRate(customer, 1 + i));
+			}
+		}
+
+		order = new Order(user, pricelist);
+		order.setCustomer(customer);
+
+		for (int i = 0; i < LINES; i++) {
+			order.createProductOrder(products[i % products.length]).setAmount(1 + i % 8);
+		}
+
+		first = order.getProductOrders().get(0);
+	}
+
+	@Benchmark
+	public long priceAfterChange() {
+		first.setAmount(1 + (amount++ & 1));
+		return order.totalPriceOre();
+	}
+
+	public static void main(String[] args) throws RunnerException {
+		new Runner(new OptionsBuilder()
+				.include(DiscountPlanBenchmark.class.getSimpleName()).build()).run();
+	}
+}
@@ -0,0 +1,170 @@
+package test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.time.LocalTime;
+
+import org.junit.Test;
+
+import exceptions.DiscountParseException;
+import model.Customer;
+import model.DiscountPlan;
+import model.DiscountRule;
+import model.Order;
+import model.Permission;
+import model.Pricelist;
+import model.Product;
+import model.ProductOrder;
+import model.User;
+
+public class DiscountPlanTest {
+	final User user;
+	final Pricelist pricelist;
+	final Product beer;
+	final Product soda;
+
+	public DiscountPlanTest() {
+		user = new User("test", "test", "test", Permission.NORMAL);
+		pricelist = new Pricelist("test");
+
+		beer = new Product("Beer", 2, "flaske", null);
+		pricelist.setPrice(beer, 36);
+
+		soda = new Product("Soda", null, "sodavand", null);
+		pricelist.setPrice(soda, 15);
+	}
+
+	@Test
+	public void quantityBreak() {
+		pricelist.addRule(DiscountRule.quantityBreak(beer, 6, 180));
+		DiscountPlan plan = pricelist.getDiscountPlan();
+
+		assertEquals(5 * 3600, plan.linePrice(beer.getId(), 3600, 5, 0, 0));
+		assertEquals(18000, plan.linePrice(beer.getId(), 3600, 6, 0, 0));
+		assertEquals(18000 + 3600, plan.linePrice(beer.getId(), 3600, 7, 0, 0));
+		assertEquals(6 * 1500, plan.linePrice(soda.getId(), 1500, 6, 0, 0));
+	}
+
+	@Test
+	public void categoryPercent() {
+		pricelist.addRule(DiscountRule.categoryPercent("flaske", 10));
+		DiscountPlan plan = pricelist.getDiscountPlan();
+
+		assertEquals(2 * 3240, plan.linePrice(beer.getId(), 3600, 2, 0, 0));
+		assertEquals(1500, plan.linePrice(soda.getId(), 1500, 1, 0, 0));
+	}
+
+	@Test
+	public void bestRuleWins() {
+		pricelist.addRule(DiscountRule.quantityBreak(beer, 6, 180));
+		pricelist.addRule(DiscountRule.categoryPercent("flaske", 10));
+		DiscountPlan plan = pricelist.getDiscountPlan();
+
+		// 6 for 180 kr. beats 10% of 216 kr.
+		assertEquals(18000, plan.linePrice(beer.getId(), 3600, 6, 0, 0));
+		// 10% beats no break
+		assertEquals(3240, plan.linePrice(beer.getId(), 3600, 1, 0, 0));
+	}
+
+	@Test
+	public void happyHour() {
+		pricelist.addRule(DiscountRule.happyHour(null, LocalTime.of(16, 0),
+				LocalTime.of(18, 0), 50));
+		DiscountPlan plan = pricelist.getDiscountPlan();
+
+		assertEquals(3600, plan.linePrice(beer.getId(), 3600, 1, 15 * 60 + 59, 0));
+		assertEquals(1800, plan.linePrice(beer.getId(), 3600, 1, 16 * 60, 0));
+		assertEquals(3600, plan.linePrice(beer.getId(), 3600, 1, 18 * 60, 0));
+	}
+
+	@Test
+	public void sameWindowPercent() {
+		pricelist.addRule(DiscountRule.happyHour("flaske", LocalTime.of(16, 0),
+				LocalTime.of(18, 0), 50));
+		DiscountPlan plan = pricelist.getDiscountPlan();
+
+		assertTrue(plan.sameWindowPercent(beer.getId(), 16 * 60, 17 * 60 + 59));
+		assertTrue(plan.sameWindowPercent(beer.getId(), 12 * 60, 15 * 60 + 59));
+		assertFalse(plan.sameWindowPercent(beer.getId(), 15 * 60 + 59, 16 * 60));
+		assertTrue(plan.sameWindowPercent(soda.getId(), 15 * 60 + 59, 16 * 60));
+	}
+
+	@Test
+	public void happyHourPastMidnight() {
+		pricelist.addRule(DiscountRule.happyHour("flaske", LocalTime.of(23, 0),
+				LocalTime.of(1, 0), 50));
+		DiscountPlan plan = pricelist.getDiscountPlan();
+
+		assertEquals(1800, plan.linePrice(beer.getId(), 3600, 1, 23 * 60 + 30, 0));
+		assertEquals(1800, plan.linePrice(beer.getId(), 3600, 1, 30, 0));
+		assertEquals(3600, plan.linePrice(beer.getId(), 3600, 1, 2 * 60, 0));
+		assertEquals(1500, plan.linePrice(soda.getId(), 1500, 1, 30, 0));
+	}
+
+	@Test
+	public void customerRate() throws DiscountParseException {
+		Customer customer = new Customer("Test", "Testvej 1", "12345678", "test@test.dk");
+		pricelist.addRule(DiscountRule.customerRate(customer, 20));
+
+		Order order = new Order(user, pricelist);
+		order.addProduct(beer);
+		assertEquals(36, order.totalPrice(), 0.001);
+
+		order.setCustomer(customer);
+		assertEquals(28.8, order.totalPrice(), 0.001);
+	}
+
+	@Test
+	public void orderKeepsItsPlan() throws DiscountParseException {
+		Order order = new Order(user, pricelist);
+		pricelist.addRule(DiscountRule.categoryPercent("flaske", 10));
+
+		ProductOrder productOrder = order.addProduct(beer);
+
+		assertEquals(36, productOrder.price(), 0.001);
+		assertEquals(32.4, new Order(user, pricelist).addProduct(beer).price(), 0.001);
+	}
+
+	@Test
+	public void manualDiscountAfterRules() throws DiscountParseException {
+		pricelist.addRule(DiscountRule.quantityBreak(beer, 6, 180));
+		Order order = new Order(user, pricelist);
+
+		ProductOrder productOrder = order.addProduct(beer);
+		productOrder.setAmount(6);
+		productOrder.setDiscount("-30");
+
+		assertEquals(150, order.totalPrice(), 0.001);
+	}
+
+	@Test
+	public void planSeesProductsAddedLater() {
+		pricelist.addRule(DiscountRule.categoryPercent("flaske", 10));
+		pricelist.getDiscountPlan();
+
+		Product stout = new Product("Stout", 2, "flaske", null);
+		pricelist.setPrice(stout, 40);
+
+		assertEquals(3600,
+				pricelist.getDiscountPlan().linePrice(stout.getId(), 4000, 1, 0, 0));
+	}
+
+	@Test
+	public void largeOrderManyRules() throws DiscountParseException {
+		Product[] products = new Product[200];
+		for (int i = 0; i < products.length; i++) {
+			products[i] = new Product("Product " + i, null, "category " + i % 10, null);
+			pricelist.setPrice(products[i], 10);
+			pricelist.addRule(DiscountRule.quantityBreak(products[i], 5, 40));
+		}
+
+		Order order = new Order(user, pricelist);
+		for (int i = 0; i < 1000; i++) {
+			order.createProductOrder(products[i % products.length]).setAmount(5);
+		}
+
+		assertEquals(1000 * 40, order.totalPrice(), 0.001);
+	}
+}
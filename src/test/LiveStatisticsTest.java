@@ -0,0 +1,102 @@
+package test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.time.DayOfWeek;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import org.junit.Test;
+
+import model.Order;
+import model.Permission;
+import model.Pricelist;
+import model.Product;
+import model.SalesHeatmap;
+import model.TopSellers;
+import model.User;
+
+public class LiveStatisticsTest {
+	final User user;
+	final Pricelist pricelist;
+	final Product[] beers = new Product[30];
+	final Product soda;
+
+	public LiveStatisticsTest() {
+		user = new User("test", "test", "test", Permission.NORMAL);
+		pricelist = new Pricelist("test");
+
+		for (int i = 0; i < beers.length; i++) {
+			beers[i] = new Product("Beer " + i + ", fad", 1, "fadøl", null);
+			pricelist.setPrice(beers[i], 30);
+		}
+
+		soda = new Product("Soda", 1, "sodavand", null);
+		pricelist.setPrice(soda, 15);
+	}
+
+	private Order order(Product product, int amount) {
+		Order order = new Order(user, pricelist);
+		order.addProduct(product).setAmount(amount);
+		return order;
+	}
+
+	@Test
+	public void topFindsHeavyHitters() {
+		TopSellers top = new TopSellers(8);
+
+		// Two beers sell more than the total divided by the capacity, so they
+		// are guaranteed to be found
+		for (int round = 0; round < 10; round++) {
+			top.count(order(beers[0], 10));
+			top.count(order(beers[1], 6));
+			top.count(order(beers[2], 4));
+
+			for (int i = 3; i < beers.length; i++) {
+				top.count(order(beers[i], 1));
+			}
+		}
+
+		List<TopSellers.Item> items = top.top(2);
+
+		assertEquals("Beer 0", items.get(0).getName());
+		assertEquals("Beer 1", items.get(1).getName());
+		assertTrue(items.get(0).getCount() - items.get(0).getError() <= 100);
+		assertTrue(items.get(0).getCount() >= 100);
+	}
+
+	@Test
+	public void topSkipsOtherProductsAndUncounts() {
+		TopSellers top = new TopSellers(8);
+		Order first = order(beers[0], 3);
+		Order second = order(beers[1], 2);
+		top.count(first);
+		top.count(second);
+		top.count(order(soda, 10));
+
+		top.uncount(first);
+
+		List<TopSellers.Item> items = top.top(10);
+		assertEquals("Beer 1", items.get(0).getName());
+		assertEquals(1, items.size());
+	}
+
+	@Test
+	public void heatmapByDayAndHour() {
+		SalesHeatmap heatmap = new SalesHeatmap();
+		// A Friday
+		Order order = new Order(user, pricelist, LocalDateTime.of(2024, 3, 1, 21, 45));
+		order.addProduct(beers[0]).setAmount(2);
+
+		heatmap.count(order);
+		heatmap.count(order);
+
+		assertEquals(6000, heatmap.get(DayOfWeek.FRIDAY, 21));
+		assertEquals(0, heatmap.get(DayOfWeek.FRIDAY, 22));
+		assertEquals(6000, heatmap.max());
+
+		heatmap.uncount(order);
+		assertEquals(0, heatmap.get(DayOfWeek.FRIDAY, 21));
+	}
+}
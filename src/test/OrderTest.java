@@ -1,13 +1,24 @@
 package test;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.lang.management.ManagementFactory;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
 
 import org.junit.Test;
 
 import exceptions.InvalidPaymentAmount;
+import exceptions.OrderSealedException;
 import model.DepositProduct;
 import model.Order;
 import model.Payment;
+import model.PaymentStatus;
 import model.PaymentType;
 import model.Permission;
 import model.Pricelist;
@@ -47,6 +58,17 @@ public class OrderTest {
 
 	}
 
+	@Test
+	public void orderRegisteredLaterGetsEarlierPrice() {
+		LocalDateTime yesterday = LocalDateTime.now().minusDays(1);
+		pricelist.setPrice(simpleBeer, 60);
+		Order order = new Order(user, pricelist, yesterday);
+
+		assertEquals(5000, order.addProduct(simpleBeer).getOriginalPriceOre());
+		assertEquals(6000,
+				new Order(user, pricelist).addProduct(simpleBeer).getOriginalPriceOre());
+	}
+
 	@Test
 	public void orderHasRentalOrderTS1None() throws Exception {
 		Order order = new Order(user, pricelist);
@@ -315,6 +337,43 @@ public class OrderTest {
 		assertEquals(25, order.totalPayment(), 0.01);
 	}
 
+	@Test
+	public void removeProductFindsDiscountedLine() {
+		Order order = new Order(user, pricelist);
+		ProductOrder discounted = order.addProduct(simpleBeer);
+		discounted.setDiscount("10%");
+		ProductOrder plain = order.addProduct(simpleBeer);
+
+		assertSame(plain, order.removeProduct(simpleBeer));
+		assertSame(discounted, order.removeProduct(simpleBeer));
+		assertTrue(order.getProductOrders().isEmpty());
+	}
+
+	@Test
+	public void tooManyClipsRolledBack() {
+		Order order = new Order(user, pricelist);
+		order.addProduct(simpleSoda);
+
+		try {
+			order.pay(new Payment(PaymentType.CLIP_CARD, 3));
+		} catch (InvalidPaymentAmount e) {
+			// Expected, the order only takes 1 clip
+		}
+
+		assertTrue(order.getPayments().isEmpty());
+		assertEquals(PaymentStatus.UNPAID, order.paymentStatus());
+	}
+
+	@Test(expected = OrderSealedException.class)
+	public void sealedOrderLinesReadOnly() {
+		Order order = new Order(user, pricelist);
+		ProductOrder po = order.addProduct(simpleBeer);
+		order.pay(new Payment(PaymentType.CASH, 50));
+		order.seal();
+
+		po.setAmount(2);
+	}
+
 	@Test(expected = InvalidPaymentAmount.class)
 	public void orderTotalPayment150Cash() {
 		Order order = new Order(user, pricelist);
@@ -382,6 +441,52 @@ public class OrderTest {
 		assertEquals(50, order.totalPaymentClipCard(), 0.01);
 	}
 
+	@Test
+	public void clipPaymentKeepsClipsApart() {
+		Payment clips = new Payment(PaymentType.CLIP_CARD, 2);
+
+		assertEquals(2, clips.getClips());
+		assertEquals(0, clips.getAmountOre());
+	}
+
+	@Test
+	public void totalPaymentClipCardAllocationFree() {
+		Order order = new Order(user, pricelist);
+		ProductOrder beer = order.addProduct(simpleBeer);
+		order.addProduct(simpleSoda);
+		order.pay(new Payment(PaymentType.CLIP_CARD, 3));
+		com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory
+				.getThreadMXBean();
+		long thread = Thread.currentThread().getId();
+		int rounds = 10000;
+		long sum = 0;
+
+		// Warmed up first, so the clip index arrays exist and the rebuild is
+		// compiled
+		for (int i = 0; i < 20000; i++) {
+			beer.setAmount(1 + (i & 1));
+			sum += order.totalPaymentClipCardOre();
+		}
+
+		// The change only invalidates the index, it is rebuilt by the lookup.
+		// Both are measured, and the clip value differs with the amount, so
+		// the rebuild can't be skipped
+		long allocated = 0;
+		for (int i = 0; i < rounds; i++) {
+			long before = threads.getThreadAllocatedBytes(thread);
+			beer.setAmount(1 + (i & 1));
+			long value = order.totalPaymentClipCardOre();
+			allocated += threads.getThreadAllocatedBytes(thread) - before;
+
+			assertEquals((i & 1) == 0 ? 6500 : 7500, value);
+			sum += value;
+		}
+
+		// Less than a byte a round, what is left is from the measuring
+		assertTrue(sum > 0);
+		assertTrue(allocated < rounds);
+	}
+
 	@Test
 	public void totalPaymentClipCard1Beer1Soda2ClipsOrdering() {
 		Order order = new Order(user, pricelist);
@@ -417,4 +522,176 @@ public class OrderTest {
 
 	}
 
-}
\ No newline at end of file
+
+	@Test
+	public void orderTotalPriceAfterAmountChanged() {
+		Order order = new Order(user, pricelist);
+		ProductOrder po = order.addProduct(simpleBeer);
+		assertEquals(50, order.totalPrice(), 0.01);
+
+		po.setAmount(3);
+
+		assertEquals(150, order.totalPrice(), 0.01);
+	}
+
+	@Test
+	public void orderTotalPriceAfterDiscountChanged() {
+		Order order = new Order(user, pricelist);
+		ProductOrder po = order.addProduct(simpleProduct);
+		assertEquals(100, order.totalPrice(), 0.01);
+
+		po.setDiscount("-10");
+
+		assertEquals(90, order.totalPrice(), 0.01);
+	}
+
+	@Test
+	public void orderTotalPriceAfterProductRemoved() {
+		Order order = new Order(user, pricelist);
+		order.addProduct(simpleProduct);
+		ProductOrder po = order.addProduct(simpleBeer);
+		assertEquals(150, order.totalPrice(), 0.01);
+
+		order.removeProduct(simpleBeer);
+		po.setAmount(2);
+
+		assertEquals(100, order.totalPrice(), 0.01);
+	}
+
+	@Test
+	public void orderTotalPaymentClipCardAfterAmountChanged() {
+		Order order = new Order(user, pricelist);
+		ProductOrder po = order.addProduct(simpleSoda);
+		po.setAmount(2);
+		order.pay(new Payment(PaymentType.CLIP_CARD, 1));
+		assertEquals(15, order.totalPaymentClipCard(), 0.01);
+
+		order.addProduct(simpleBeer);
+
+		assertEquals(25, order.totalPaymentClipCard(), 0.01);
+	}
+
+	@Test
+	public void totalPaymentClipCardProductWithoutClips() {
+		Order order = new Order(user, pricelist);
+		order.addProduct(simpleProduct);
+		order.addProduct(simpleBeer);
+
+		Payment payment = new Payment(PaymentType.CLIP_CARD, 2);
+		order.pay(payment);
+
+		assertEquals(50, order.totalPaymentClipCard(), 0.01);
+	}
+
+	@Test
+	public void orderPaymentStatusPaidInFractions() {
+		Product candy = new Product("Candy", null, "test", null);
+		pricelist.setPrice(candy, 0.3);
+		Order order = new Order(user, pricelist);
+		order.addProduct(candy);
+
+		for (int i = 0; i < 3; i++) {
+			order.pay(new Payment(PaymentType.CASH, 0.1));
+		}
+
+		assertEquals(PaymentStatus.ORDERPAID, order.paymentStatus());
+	}
+
+	@Test
+	public void addProductTwiceMerges() {
+		Order order = new Order(user, pricelist);
+		ProductOrder po = order.addProduct(simpleBeer);
+
+		assertSame(po, order.addProduct(simpleBeer));
+		assertEquals(2, po.getAmount());
+		assertEquals(1, order.getAllProducts().size());
+		assertEquals(100, order.totalPrice(), 0.01);
+	}
+
+	@Test
+	public void addProductNotMergedIntoDiscountedLine() {
+		Order order = new Order(user, pricelist);
+		ProductOrder po = order.addProduct(simpleBeer);
+		po.setDiscount("-10");
+
+		ProductOrder po2 = order.addProduct(simpleBeer);
+
+		assertNotSame(po, po2);
+		assertSame(po2, order.addProduct(simpleBeer));
+		assertEquals(140, order.totalPrice(), 0.01);
+	}
+
+	@Test
+	public void addGiftSeparateLine() {
+		Order order = new Order(user, pricelist);
+		ProductOrder po = order.addProduct(simpleBeer);
+		ProductOrder gift = order.addGift(simpleBeer);
+
+		assertNotSame(po, gift);
+		assertSame(po, order.addProduct(simpleBeer));
+		assertEquals(100, order.totalPrice(), 0.01);
+
+		assertSame(gift, order.removeGift(simpleBeer));
+		assertEquals(1, order.getAllProducts().size());
+	}
+
+	@Test
+	public void removeProductOrder() {
+		Order order = new Order(user, pricelist);
+		order.addProduct(simpleBeer);
+		RentalProductOrder rpo = order.createRentalProductOrder(simpleDepositProduct);
+		order.addProduct(simpleDepositProduct);
+
+		order.removeProductOrder(rpo);
+
+		assertEquals(2, order.getAllProducts().size());
+		assertEquals(1, order.getRentalProductOrders().size());
+		assertNull(order.removeProduct(simpleSoda));
+	}
+
+	@Test
+	public void statusListenerToldOnPay() {
+		Order order = new Order(user, pricelist);
+		order.addProduct(simpleBeer);
+		List<PaymentStatus> transitions = new ArrayList<>();
+		order.setStatusListener((payable, from, to) -> {
+			assertSame(order, payable);
+			transitions.add(from);
+			transitions.add(to);
+		});
+
+		order.pay(new Payment(PaymentType.CASH, 25));
+		assertEquals(PaymentStatus.UNPAID, order.paymentStatus());
+		assertTrue(transitions.isEmpty());
+
+		// The transition is found when the status is asked for
+		order.pay(new Payment(PaymentType.CASH, 25));
+		assertEquals(PaymentStatus.ORDERPAID, order.paymentStatus());
+		assertEquals(2, transitions.size());
+		assertEquals(PaymentStatus.UNPAID, transitions.get(0));
+		assertEquals(PaymentStatus.ORDERPAID, transitions.get(1));
+	}
+
+	@Test
+	public void statusChangesOnLineEdit() {
+		Order order = new Order(user, pricelist);
+		ProductOrder po = order.addProduct(simpleBeer);
+		order.pay(new Payment(PaymentType.CASH, 50));
+		assertEquals(PaymentStatus.ORDERPAID, order.paymentStatus());
+
+		po.setAmount(2);
+		assertEquals(PaymentStatus.UNPAID, order.paymentStatus());
+	}
+
+	@Test
+	public void statusChangesOnRentalReturn() {
+		Order order = new Order(user, pricelist);
+		RentalProductOrder rp = (RentalProductOrder) order
+				.addProduct(simpleDepositProduct);
+		order.pay(new Payment(PaymentType.CASH, 110));
+		assertEquals(PaymentStatus.DEPOSITPAID, order.paymentStatus());
+
+		rp.setReturned(1);
+		assertEquals(PaymentStatus.DEPOSITNOTPAIDBACK, order.paymentStatus());
+	}
+}
@@ -0,0 +1,89 @@
+package test;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import model.Order;
+import model.Permission;
+import model.Pricelist;
+import model.Product;
+import model.ProductOrder;
+import model.User;
+
+/**
+ * Measures Order.paymentStatus() on orders of 1, 10 and 200 lines, when the
+ * cached totals are valid and when a line changed since the last call. It is
+ * run by hand rather than with the tests, compiled with the JMH annotation
+ * processor:
+ *
+ * java test.OrderTotalsBenchmark
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class OrderTotalsBenchmark {
+	@Param({ "1", "10", "200" })
+	public int lines;
+
+	private Order order;
+	private ProductOrder first;
+	private int amount;
+
+	@Setup
+	public void setup() {
+		User user = new User("test", "test", "test", Permission.NORMAL);
+		Pricelist pricelist = new Pricelist("test");
+		order = new Order(user, pricelist);
+
+		for (int i = 0; i < lines; i++) {
+			Product product = new Product("Øl " + i, 1 + i % 3, "fadøl", null);
+			pricelist.setPrice(product, 30 + i % 20);
+			order.createProductOrder(product).setAmount(1 + i % 4);
+		}
+
+		first = order.getProductOrders().get(0);
+	}
+
+	@Benchmark
+	public void cached(Blackhole blackhole) {
+		blackhole.consume(order.paymentStatus());
+	}
+
+	@Benchmark
+	public void afterChange(Blackhole blackhole) {
+		first.setAmount(1 + (amount++ & 1));
+		blackhole.consume(order.paymentStatus());
+	}
+
+	/**
+	 * Changes a line without asking for the status, which only invalidates
+	 * the cached totals
+	 */
+	@Benchmark
+	public void changeOnly() {
+		first.setAmount(1 + (amount++ & 1));
+	}
+
+	public static void main(String[] args) throws RunnerException {
+		new Runner(new OptionsBuilder()
+				.include(OrderTotalsBenchmark.class.getSimpleName()).build()).run();
+	}
+}
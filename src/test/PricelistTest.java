@@ -0,0 +1,265 @@
+package test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.time.DayOfWeek;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.List;
+
+import org.junit.Test;
+
+import exceptions.ProductNotInPricelistException;
+import model.PriceChange;
+import model.PriceRule;
+import model.Pricelist;
+import model.PricelistSchedule;
+import model.Product;
+
+public class PricelistTest {
+	final Pricelist pricelist;
+	final Product beer;
+	final Product soda;
+
+	public PricelistTest() {
+		pricelist = new Pricelist("test");
+		beer = new Product("Beer", 2, "test", null);
+		soda = new Product("Soda", 1, "test", null);
+	}
+
+	@Test
+	public void productsHaveUniqueIds() {
+		assertNotEquals(beer.getId(), soda.getId());
+	}
+
+	@Test
+	public void getPrice() {
+		pricelist.setPrice(beer, 50);
+
+		assertEquals(50, pricelist.getPrice(beer), 0.01);
+		assertEquals(5000, pricelist.getPriceOre(beer));
+	}
+
+	@Test
+	public void setPriceOverwrites() {
+		pricelist.setPrice(beer, 50);
+		pricelist.setPrice(beer, 40);
+
+		assertEquals(40, pricelist.getPrice(beer), 0.01);
+		assertEquals(1, pricelist.getProducts().size());
+	}
+
+	@Test
+	public void setPriceKeepsEarlierPrices() {
+		pricelist.setPrice(beer, 50);
+		pricelist.setPrice(beer, 60);
+
+		assertEquals(6000, pricelist.getPriceOre(beer));
+		assertEquals(5000, pricelist.priceAt(beer, LocalDateTime.now().minusYears(1)));
+	}
+
+	@Test(expected = ProductNotInPricelistException.class)
+	public void getPriceNotListed() {
+		pricelist.setPrice(beer, 50);
+
+		pricelist.getPrice(soda);
+	}
+
+	@Test
+	public void isListed() {
+		pricelist.setPrice(beer, 50);
+
+		assertTrue(pricelist.isListed(beer));
+		assertFalse(pricelist.isListed(soda));
+	}
+
+	@Test
+	public void freeProductIsListed() {
+		pricelist.setPrice(soda, 0);
+
+		assertTrue(pricelist.isListed(soda));
+		assertEquals(0, pricelist.getPriceOre(soda));
+	}
+
+	@Test
+	public void removeProduct() {
+		pricelist.setPrice(beer, 50);
+		pricelist.setPrice(soda, 15);
+		pricelist.removeProduct(beer);
+
+		assertFalse(pricelist.isListed(beer));
+		assertEquals(1, pricelist.getProducts().size());
+		assertEquals(soda, pricelist.getProducts().get(0));
+	}
+
+	@Test
+	public void getProductsSharedUntilChanged() {
+		pricelist.setPrice(beer, 50);
+		List<Product> products = pricelist.getProducts();
+
+		assertSame(products, pricelist.getProducts());
+		pricelist.setPrice(soda, 15);
+		assertEquals(1, products.size());
+		assertEquals(2, pricelist.getProducts().size());
+	}
+
+	@Test(expected = UnsupportedOperationException.class)
+	public void getProductsUnmodifiable() {
+		pricelist.getProducts().add(beer);
+	}
+
+	@Test
+	public void scheduledPriceNotInForceYet() {
+		LocalDateTime from = LocalDateTime.now().plusDays(1);
+		pricelist.setPrice(beer, 50);
+		pricelist.schedulePrice(beer, 60, from);
+
+		assertEquals(5000, pricelist.getPriceOre(beer));
+		assertEquals(5000, pricelist.priceAt(beer, from.minusSeconds(1)));
+		assertEquals(6000, pricelist.priceAt(beer, from));
+		assertEquals(6000, pricelist.priceAt(beer, from.plusYears(1)));
+	}
+
+	@Test
+	public void scheduledPriceInForce() {
+		LocalDateTime from = LocalDateTime.now().minusDays(1);
+		pricelist.setPrice(beer, 50);
+		pricelist.getPrice(beer);
+		pricelist.schedulePrice(beer, 60, from);
+
+		assertEquals(6000, pricelist.getPriceOre(beer));
+		assertEquals(5000, pricelist.priceAt(beer, from.minusDays(1)));
+	}
+
+	@Test
+	public void setPriceKeepsScheduledPrices() {
+		LocalDateTime from = LocalDateTime.now().plusDays(1);
+		pricelist.setPrice(beer, 50);
+		pricelist.schedulePrice(beer, 60, from);
+		pricelist.setPrice(beer, 45);
+
+		assertEquals(4500, pricelist.getPriceOre(beer));
+		assertEquals(6000, pricelist.priceAt(beer, from));
+	}
+
+	@Test
+	public void scheduledProductListedFromTime() {
+		LocalDateTime past = LocalDateTime.now().minusDays(1);
+		LocalDateTime future = LocalDateTime.now().plusDays(1);
+		pricelist.schedulePrice(beer, 50, future);
+		pricelist.schedulePrice(soda, 15, past);
+
+		assertFalse(pricelist.isListed(beer));
+		assertEquals(Pricelist.NOT_LISTED, pricelist.priceAt(beer, past));
+		assertEquals(5000, pricelist.priceAt(beer, future));
+		assertTrue(pricelist.isListed(soda));
+		assertEquals(1, pricelist.getProducts().size());
+	}
+
+	@Test
+	public void scheduledProductInProductsWhenDue() {
+		pricelist.schedulePrice(soda, 15, LocalDateTime.now().minusMinutes(1));
+
+		List<Product> products = pricelist.getProducts();
+		for (Product product : products) {
+			pricelist.getPrice(product);
+		}
+
+		assertTrue(products.contains(soda));
+	}
+
+	@Test
+	public void removeProductOnlyScheduled() {
+		pricelist.schedulePrice(soda, 15, LocalDateTime.now().plusDays(1));
+
+		pricelist.removeProduct(soda);
+
+		assertEquals(Pricelist.NOT_LISTED,
+				pricelist.priceAt(soda, LocalDateTime.now().plusDays(2)));
+	}
+
+	@Test
+	public void scheduleNextEveryDay() {
+		PricelistSchedule schedule = new PricelistSchedule(pricelist, null,
+				LocalTime.of(15, 0));
+		LocalDateTime morning = LocalDateTime.of(2017, 4, 7, 9, 0);
+		LocalDateTime evening = LocalDateTime.of(2017, 4, 7, 15, 0);
+
+		assertEquals(LocalDateTime.of(2017, 4, 7, 15, 0), schedule.nextAfter(morning));
+		assertEquals(LocalDateTime.of(2017, 4, 8, 15, 0), schedule.nextAfter(evening));
+	}
+
+	@Test
+	public void scheduleNextOnDay() {
+		PricelistSchedule schedule = new PricelistSchedule(pricelist,
+				DayOfWeek.FRIDAY, LocalTime.of(15, 0));
+		// 2017-04-05 is a wednesday, 2017-04-07 a friday
+		LocalDateTime wednesday = LocalDateTime.of(2017, 4, 5, 16, 0);
+		LocalDateTime fridayEvening = LocalDateTime.of(2017, 4, 7, 16, 0);
+
+		assertEquals(LocalDateTime.of(2017, 4, 7, 15, 0), schedule.nextAfter(wednesday));
+		assertEquals(LocalDateTime.of(2017, 4, 14, 15, 0),
+				schedule.nextAfter(fridayEvening));
+	}
+
+	@Test
+	public void priceRulePercent() {
+		PriceRule rule = PriceRule.percent(10);
+
+		assertEquals(5500, rule.reprice(beer, 5000));
+		assertEquals(Pricelist.NOT_LISTED, rule.reprice(beer, Pricelist.NOT_LISTED));
+	}
+
+	@Test
+	public void priceRulePercentThenRound() {
+		PriceRule rule = PriceRule.percent(3).andThen(PriceRule.roundTo(5));
+
+		assertEquals(5000, rule.reprice(beer, 4900)); // 50.47 kr.
+		assertEquals(3500, rule.reprice(beer, 3600)); // 37.08 kr.
+	}
+
+	@Test
+	public void priceRuleCopyFrom() {
+		Pricelist other = new Pricelist("other");
+		other.setPrice(beer, 36);
+		PriceRule rule = PriceRule.copyFrom(other);
+
+		assertEquals(3600, rule.reprice(beer, 5000));
+		assertEquals(1500, rule.reprice(soda, 1500));
+	}
+
+	@Test
+	public void applyPriceChangeAndInverse() {
+		pricelist.setPrice(beer, 50);
+		PriceChange change = new PriceChange(pricelist,
+				new Product[] { beer, soda }, new long[] { 5000, Pricelist.NOT_LISTED },
+				new long[] { 5500, 1500 });
+
+		pricelist.apply(change);
+		assertEquals(5500, pricelist.getPriceOre(beer));
+		assertEquals(1500, pricelist.getPriceOre(soda));
+
+		pricelist.apply(change.inverse());
+		assertEquals(5000, pricelist.getPriceOre(beer));
+		assertFalse(pricelist.isListed(soda));
+	}
+
+	@Test
+	public void applyPriceChangeKeepsEarlierPrices() {
+		LocalDateTime past = LocalDateTime.now().minusYears(1);
+		pricelist.setPrice(beer, 50);
+		PriceChange change = new PriceChange(pricelist,
+				new Product[] { beer, soda }, new long[] { 5000, Pricelist.NOT_LISTED },
+				new long[] { 5500, 1500 });
+
+		pricelist.apply(change);
+		pricelist.apply(change.inverse());
+
+		assertEquals(5000, pricelist.priceAt(beer, past));
+		assertEquals(Pricelist.NOT_LISTED, pricelist.priceAt(soda, past));
+	}
+}
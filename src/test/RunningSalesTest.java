@@ -0,0 +1,185 @@
+package test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Test;
+
+import model.Order;
+import model.Permission;
+import model.Pricelist;
+import model.Product;
+import model.RunningSales;
+import model.StatisticsReport;
+import model.User;
+import model.ZReport;
+
+public class RunningSalesTest {
+	final User user;
+	final Pricelist pricelist;
+	final Product beer;
+	final RunningSales sales = new RunningSales();
+
+	public RunningSalesTest() {
+		user = new User("test", "test", "test", Permission.NORMAL);
+		pricelist = new Pricelist("test");
+		beer = new Product("Beer", 2, "test", null);
+		pricelist.setPrice(beer, 50);
+	}
+
+	private Order order(LocalDateTime time, int amount) {
+		Order order = new Order(user, pricelist, time);
+		order.addProduct(beer).setAmount(amount);
+		return order;
+	}
+
+	@Test
+	public void reportOfRange() {
+		sales.count(order(LocalDateTime.of(2023, 3, 15, 10, 30), 1));
+		sales.count(order(LocalDateTime.of(2023, 3, 15, 14, 0), 2));
+		sales.count(order(LocalDateTime.of(2024, 1, 2, 9, 0), 3));
+		sales.count(order(LocalDateTime.of(2025, 6, 30, 23, 59), 4));
+
+		assertEquals(250, sales.report(LocalDateTime.of(2023, 3, 15, 11, 0),
+				LocalDateTime.of(2024, 1, 2, 10, 0)).getTotalSales(), 0.001);
+		assertEquals(500, sales.report(null, null).getTotalSales(), 0.001);
+		assertEquals(200, sales.report(LocalDateTime.of(2025, 1, 1, 0, 0), null)
+				.getTotalSales(), 0.001);
+		assertEquals(0, sales.report(LocalDateTime.of(2023, 3, 15, 15, 0),
+				LocalDateTime.of(2024, 1, 1, 0, 0)).getTotalSales(), 0.001);
+	}
+
+	@Test
+	public void uncountRemovesOrder() {
+		Order first = order(LocalDateTime.of(2024, 5, 1, 12, 0), 1);
+		Order second = order(LocalDateTime.of(2024, 5, 1, 12, 10), 2);
+		sales.count(first);
+		sales.count(second);
+
+		sales.uncount(first);
+
+		assertFalse(sales.isCounted(first));
+		assertEquals(100, sales.report(LocalDateTime.of(2024, 5, 1, 0, 0),
+				LocalDateTime.of(2024, 5, 2, 0, 0)).getTotalSales(), 0.001);
+	}
+
+	@Test
+	public void partialReportsGrow() {
+		for (int month = 1; month <= 12; month++) {
+			sales.count(order(LocalDateTime.of(2023, month, 10, 12, 0), 1));
+		}
+		sales.count(order(LocalDateTime.of(2024, 1, 5, 12, 0), 1));
+
+		List<Double> totals = new ArrayList<>();
+		List<Double> done = new ArrayList<>();
+		double total = sales.report(LocalDateTime.of(2023, 1, 1, 0, 0),
+				LocalDateTime.of(2024, 1, 1, 0, 0), (report, part) -> {
+					totals.add(report.getTotalSales());
+					done.add(part);
+				}).getTotalSales();
+
+		assertEquals(600, total, 0.001);
+		assertFalse(totals.isEmpty());
+		assertEquals(total, totals.get(totals.size() - 1), 0.001);
+		for (int i = 1; i < totals.size(); i++) {
+			assertTrue(totals.get(i) >= totals.get(i - 1));
+			assertTrue(done.get(i) > done.get(i - 1));
+		}
+		assertEquals(1, done.get(done.size() - 1), 0.001);
+	}
+
+	@Test
+	public void closedDayReadFromZReport() {
+		LocalDate day = LocalDate.of(2024, 2, 29);
+		Order morning = order(day.atTime(9, 15), 1);
+		Order evening = order(day.atTime(22, 45), 2);
+		RunningSales counted = new RunningSales();
+		counted.count(morning);
+		counted.count(evening);
+
+		sales.addClosedDay(new ZReport(day, Arrays.asList(morning, evening)));
+
+		for (int hour = 0; hour < 24; hour += 5) {
+			LocalDateTime from = day.atTime(hour, 0);
+			assertEquals(counted.report(from, null).getTotalSales(),
+					sales.report(from, null).getTotalSales(), 0.001);
+		}
+		assertEquals(150, sales.report(null, null).getTotalSales(), 0.001);
+	}
+
+	@Test
+	public void rangesMatchScan() {
+		Random random = new Random(41);
+		LocalDateTime beginning = LocalDateTime.of(2022, 1, 1, 0, 0);
+		List<Order> orders = new ArrayList<>();
+
+		for (int i = 0; i < 300; i++) {
+			Order order = order(beginning.plusMinutes(random.nextInt(3 * 366 * 24 * 60)),
+					1 + random.nextInt(5));
+			orders.add(order);
+			sales.count(order);
+		}
+
+		for (int i = 0; i < 100; i++) {
+			LocalDateTime from = beginning.plusHours(random.nextInt(3 * 366 * 24));
+			LocalDateTime to = from.plusHours(1 + random.nextInt(2 * 366 * 24));
+			long expected = 0;
+
+			for (Order order : orders) {
+				if (!order.getTime().isBefore(from) && order.getTime().isBefore(to)) {
+					expected += order.totalPriceOre();
+				}
+			}
+
+			assertEquals(expected, sales.report(from, to).getTotalSalesOre());
+		}
+	}
+
+	@Test
+	public void unchangedOrderNotCountedAgain() {
+		Order order = order(LocalDateTime.of(2024, 5, 1, 18, 0), 2);
+		sales.count(order);
+		long version = sales.getVersion();
+		int rows = sales.getFacts().size();
+
+		sales.count(order);
+
+		assertEquals(version, sales.getVersion());
+		assertEquals(rows, sales.getFacts().size());
+
+		order.getProductOrders().get(0).setAmount(3);
+		sales.count(order);
+
+		assertTrue(sales.getVersion() > version);
+		assertEquals(150, sales.report(null, null).getTotalSales(), 0.001);
+	}
+
+	@Test
+	public void renameKeepsSoldName() {
+		Product pilsner = new Product("Pilsner, fad", 3, "fadøl", null);
+		pricelist.setPrice(pilsner, 40);
+		Order order = new Order(user, pricelist, LocalDateTime.of(2024, 5, 1, 18, 0));
+		order.addProduct(pilsner);
+		sales.count(order);
+
+		pilsner.setName("Classic, fad");
+		pilsner.setCategory("flaske");
+		Order later = new Order(user, pricelist, LocalDateTime.of(2024, 5, 2, 18, 0));
+		later.addProduct(pilsner);
+		sales.count(later);
+
+		StatisticsReport report = sales.report(null, null);
+		assertEquals(40, report.getSalesPrBeer().get("Pilsner"), 0.001);
+		assertEquals(40, report.getSalesPrBeer().get("Classic"), 0.001);
+		assertEquals(40, report.getSalesPrCategory().get("fadøl"), 0.001);
+		assertEquals(40, report.getSalesPrCategory().get("flaske"), 0.001);
+	}
+}
@@ -0,0 +1,99 @@
+package test;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import model.Order;
+import model.Permission;
+import model.Pricelist;
+import model.Product;
+import model.SalesAggregate;
+import model.User;
+
+/**
+ * Measures SalesAggregate.of summing up 10^5 orders in fork join pools of 1,
+ * 2, 4 and 8 threads. The speed-up is bounded by the cores of the machine. It
+ * is run by hand rather than with the tests, compiled with the JMH
+ * annotation processor:
+ *
+ * java test.SalesAggregateBenchmark
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SalesAggregateBenchmark {
+	private static final int ORDERS = 100000;
+
+	@Param({ "1", "2", "4", "8" })
+	public int parallelism;
+
+	private final List<Order> orders = new ArrayList<>();
+	private ForkJoinPool pool;
+
+	@Setup
+	public void setup() {
+		User[] users = new User[5];
+		for (int i = 0; i < users.length; i++) {
+			users[i] = new User("Bruger " + i, "bruger" + i, "test", Permission.NORMAL);
+		}
+
+		Pricelist[] pricelists = { new Pricelist("Butik"), new Pricelist("Bar") };
+		Product[] products = new Product[20];
+		for (int i = 0; i < products.length; i++) {
+			products[i] = new Product("Øl " + i + ", fad", 1, "fadøl", null);
+
+			for (Pricelist pricelist : pricelists) {
+				pricelist.setPrice(products[i], 30 + i);
+			}
+		}
+
+		LocalDateTime time = LocalDateTime.of(2024, 1, 1, 12, 0);
+
+		for (int i = 0; i < ORDERS; i++) {
+			Order order = new Order(users[i % users.length],
+					pricelists[i % pricelists.length], time.plusMinutes(i));
+			order.addProduct(products[i % products.length]).setAmount(1 + i % 3);
+			order.addProduct(products[(i * 7) % products.length]);
+			orders.add(order);
+		}
+
+		pool = new ForkJoinPool(parallelism);
+	}
+
+	@TearDown
+	public void tearDown() {
+		pool.shutdown();
+	}
+
+	@Benchmark
+	public SalesAggregate of() {
+		return SalesAggregate.of(orders, pool);
+	}
+
+	public static void main(String[] args) throws RunnerException {
+		new Runner(new OptionsBuilder().include(SalesAggregateBenchmark.class.getSimpleName())
+				.build()).run();
+	}
+}
@@ -0,0 +1,151 @@
+package test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Test;
+
+import model.Customer;
+import model.DepositProduct;
+import model.Order;
+import model.Payment;
+import model.PaymentType;
+import model.Permission;
+import model.Pricelist;
+import model.Product;
+import model.SalesAggregate;
+import model.SalesFacts;
+import model.StatisticsReport;
+import model.User;
+
+public class SalesFactsTest {
+	final User user;
+	final Pricelist pricelist;
+	final Product beer;
+	final Product clipCard;
+	final DepositProduct keg;
+	final SalesFacts facts = new SalesFacts();
+
+	public SalesFactsTest() {
+		user = new User("test", "test", "test", Permission.NORMAL);
+		pricelist = new Pricelist("test");
+		beer = new Product("Klosterbryg, fad", 1, "fadøl", null);
+		clipCard = new Product("Klippekort, 4 klip", null, "klippekort", null);
+		keg = new DepositProduct("Klosterbryg, 20 liter", null, "fustage", null, 200);
+		pricelist.setPrice(beer, 30);
+		pricelist.setPrice(clipCard, 100);
+		pricelist.setPrice(keg, 775);
+	}
+
+	private void assertSameReport(StatisticsReport expected, StatisticsReport actual) {
+		assertEquals(expected.getTotalSalesOre(), actual.getTotalSalesOre());
+		assertEquals(expected.getClipCardSalesOre(), actual.getClipCardSalesOre());
+		assertEquals(expected.getClipCardUses(), actual.getClipCardUses());
+		assertEquals(expected.getSalesPrPricelist(), actual.getSalesPrPricelist());
+		assertEquals(expected.getSalesPrUser(), actual.getSalesPrUser());
+		assertEquals(expected.getSalesPrBeer(), actual.getSalesPrBeer());
+		assertEquals(expected.getSalesPrCategory(), actual.getSalesPrCategory());
+		assertEquals(expected.getDistinctCustomers(), actual.getDistinctCustomers());
+		assertEquals(expected.getOrderTotalQuantile(0.5),
+				actual.getOrderTotalQuantile(0.5), 0.001);
+		assertEquals(expected.getLineCountQuantile(0.9), actual.getLineCountQuantile(0.9));
+	}
+
+	@Test
+	public void reportMatchesObjectScan() {
+		List<Order> orders = new ArrayList<>();
+		LocalDateTime time = LocalDateTime.of(2024, 2, 1, 15, 0);
+		Customer[] customers = new Customer[10];
+		for (int i = 0; i < customers.length; i++) {
+			customers[i] = new Customer("Kunde " + i, "Vej " + i, "1234567" + i,
+					"kunde" + i + "@example.com");
+		}
+
+		for (int i = 0; i < 200; i++) {
+			Order order = new Order(user, pricelist, time.plusHours(i));
+			order.addProduct(beer).setAmount(1 + i % 4);
+
+			if (i % 5 == 0) {
+				order.addProduct(clipCard);
+			}
+			if (i % 7 == 0) {
+				order.addProduct(keg);
+			}
+			if (i % 3 == 0) {
+				order.setDiscount("10%");
+			}
+			if (i % 4 == 2 && i % 5 != 0 && i % 7 != 0) {
+				order.pay(new Payment(PaymentType.CLIP_CARD, 1));
+			}
+			if (i % 6 == 1) {
+				order.setCustomer(customers[i % customers.length]);
+			}
+
+			orders.add(order);
+			facts.append(order);
+		}
+
+		SalesAggregate aggregate = SalesAggregate.of(orders);
+
+		assertSameReport(aggregate.toReport(), facts.report(null, null));
+	}
+
+	@Test
+	public void appendAgainCancelsOldRows() {
+		Order order = new Order(user, pricelist, LocalDateTime.of(2024, 2, 1, 15, 0));
+		order.addProduct(beer);
+		facts.append(order);
+
+		order.addProduct(beer);
+		assertTrue(facts.append(order));
+		int size = facts.size();
+
+		assertEquals(60, facts.report(null, null).getTotalSales(), 0.001);
+
+		assertFalse(facts.append(order));
+		assertEquals(size, facts.size());
+
+		facts.cancel(order);
+
+		StatisticsReport report = facts.report(null, null);
+		assertEquals(0, report.getTotalSales(), 0.001);
+		assertFalse(report.getSalesPrUser().containsKey(user));
+		assertFalse(report.getSalesPrBeer().containsKey("Klosterbryg"));
+	}
+
+	@Test
+	public void soldNameKept() {
+		Order order = new Order(user, pricelist, LocalDateTime.of(2024, 2, 1, 15, 0));
+		order.addProduct(beer);
+		facts.append(order);
+
+		beer.setName("Påskebryg, fad");
+		beer.setCategory("flaske");
+
+		StatisticsReport report = facts.report(null, null);
+		assertEquals(30, report.getSalesPrBeer().get("Klosterbryg"), 0.001);
+		assertEquals(30, report.getSalesPrCategory().get("fadøl"), 0.001);
+		assertFalse(facts.append(order));
+	}
+
+	@Test
+	public void reportOfDays() {
+		Order first = new Order(user, pricelist, LocalDateTime.of(2024, 2, 1, 23, 0));
+		first.addProduct(beer);
+		Order second = new Order(user, pricelist, LocalDateTime.of(2024, 2, 2, 1, 0));
+		second.addProduct(beer).setAmount(2);
+		facts.append(first);
+		facts.append(second);
+
+		assertEquals(30, facts.report(null, LocalDate.of(2024, 2, 2)).getTotalSales(),
+				0.001);
+		assertEquals(60, facts.report(LocalDate.of(2024, 2, 2), null).getTotalSales(),
+				0.001);
+	}
+}
@@ -0,0 +1,283 @@
+package test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+
+import org.junit.Test;
+
+import exceptions.DayCloseException;
+import exceptions.InvalidPaymentAmount;
+import model.ClipCardLedger;
+import model.ClipCardProduct;
+import model.DepositProduct;
+import model.Order;
+import model.Payment;
+import model.PaymentResult;
+import model.PaymentSpec;
+import model.PaymentStatus;
+import model.PaymentType;
+import model.ProductOrder;
+import model.Statistics;
+import model.StatisticsReport;
+import model.Permission;
+import model.Pricelist;
+import model.Product;
+import model.TimePeriod;
+import model.User;
+import model.ZReport;
+import service.Service;
+import storage.Storage;
+
+public class ServiceTest {
+	final Service service = Service.getInstance();
+	final Order order;
+	final User user;
+	final Pricelist pricelist;
+	final Product beer;
+
+	public ServiceTest() {
+		user = new User("test", "test", "test", Permission.NORMAL);
+		pricelist = new Pricelist("test");
+		beer = new Product("Beer", 2, "test", null);
+		pricelist.setPrice(beer, 50);
+
+		order = new Order(user, pricelist);
+		order.addProduct(beer);
+		order.addProduct(beer);
+	}
+
+	@Test
+	public void createPaymentsSplitTender() {
+		PaymentResult result = service.createPayments(order,
+				Arrays.asList(new PaymentSpec(PaymentType.CREDIT_CARD, 60),
+						new PaymentSpec(PaymentType.CASH, 40)));
+
+		assertEquals(PaymentStatus.ORDERPAID, result.getStatus());
+		assertEquals(0, result.getChangeDueOre());
+		assertEquals(2, result.getPayments().size());
+		assertEquals(100, order.totalPayment(), 0.01);
+	}
+
+	@Test
+	public void statusIndexFollowsChangedOrder() {
+		Storage storage = Storage.getInstance();
+		storage.addOrder(order);
+		assertTrue(storage.hasStatus(order, PaymentStatus.UNPAID));
+
+		order.pay(new Payment(PaymentType.CASH, 100));
+		assertTrue(storage.hasStatus(order, PaymentStatus.ORDERPAID));
+		assertFalse(storage.hasStatus(order, PaymentStatus.UNPAID));
+	}
+
+	@Test
+	public void createPaymentsCashChange() {
+		PaymentResult result = service.createPayments(order,
+				Arrays.asList(new PaymentSpec(PaymentType.MOBILE_PAY, 30),
+						new PaymentSpec(PaymentType.CASH, 100)));
+
+		assertEquals(PaymentStatus.ORDERPAID, result.getStatus());
+		assertEquals(30, result.getChangeDue(), 0.01);
+		assertEquals(70, result.getPayments().get(1).getAmount(), 0.01);
+		assertEquals(100, order.totalPayment(), 0.01);
+	}
+
+	@Test
+	public void createPaymentsPartial() {
+		PaymentResult result = service.createPayments(order,
+				Arrays.asList(new PaymentSpec(PaymentType.CASH, 20)));
+
+		assertEquals(PaymentStatus.UNPAID, result.getStatus());
+		assertEquals(20, order.totalPayment(), 0.01);
+	}
+
+	@Test
+	public void createPaymentsCardOverpaidRollsBack() {
+		try {
+			service.createPayments(order,
+					Arrays.asList(new PaymentSpec(PaymentType.CASH, 5),
+							new PaymentSpec(PaymentType.CREDIT_CARD, 110)));
+		} catch (InvalidPaymentAmount e) {
+			assertTrue(order.getPayments().isEmpty());
+			return;
+		}
+
+		throw new AssertionError("the change was larger than the cash payment");
+	}
+
+	@Test
+	public void salesReportCountsPaidOrders() {
+		Order stored = service.createOrder(user, pricelist);
+		stored.addProduct(beer);
+		assertFalse(service.getSalesReport(TimePeriod.FOREVER).getSalesPrUser()
+				.containsKey(user));
+
+		service.createPayments(stored,
+				Arrays.asList(new PaymentSpec(PaymentType.CASH, 50)));
+
+		assertEquals(50, service.getSalesReport(TimePeriod.FOREVER).getSalesPrUser()
+				.get(user), 0.01);
+		assertEquals(50, service.getSalesReport(TimePeriod.DAY).getSalesPrPricelist()
+				.get(pricelist), 0.01);
+	}
+
+	@Test
+	public void salesReportUncountsEditedOrders() {
+		Order stored = service.createOrder(user, pricelist);
+		ProductOrder po = stored.addProduct(beer);
+		service.createPayments(stored,
+				Arrays.asList(new PaymentSpec(PaymentType.CASH, 50)));
+
+		service.updateProductOrderAmount(po, 2);
+
+		assertFalse(service.getSalesReport(TimePeriod.FOREVER).getSalesPrUser()
+				.containsKey(user));
+
+		service.createPayments(stored,
+				Arrays.asList(new PaymentSpec(PaymentType.CASH, 50)));
+
+		assertEquals(100, service.getSalesReport(TimePeriod.FOREVER).getSalesPrUser()
+				.get(user), 0.01);
+	}
+
+	@Test
+	public void statisticsCachedUntilRangeChanges() {
+		Statistics statistics = new Statistics();
+		LocalDateTime now = LocalDateTime.now();
+		LocalDateTime longAgo = LocalDateTime.of(2000, 1, 1, 0, 0);
+
+		statistics.setRange(longAgo, longAgo.plusDays(1));
+		StatisticsReport old = statistics.getReport();
+		statistics.setRange(now.minusDays(1), now.plusDays(1));
+		StatisticsReport recent = statistics.getReport();
+
+		Order stored = service.createOrder(user, pricelist);
+		stored.addProduct(beer);
+		service.createPayments(stored,
+				Arrays.asList(new PaymentSpec(PaymentType.CASH, 50)));
+
+		statistics.setRange(longAgo, longAgo.plusDays(1));
+		assertSame(old, statistics.getReport());
+
+		statistics.setRange(now.minusDays(1), now.plusDays(1));
+		assertNotSame(recent, statistics.getReport());
+		recent = statistics.getReport();
+
+		statistics.setRange(now.minusDays(1), now.plusDays(1));
+		assertSame(recent, statistics.getReport());
+	}
+
+	@Test
+	public void clipCardLedgerFollowsSalesAndPayments() {
+		ClipCardLedger ledger = service.getClipCardLedger();
+		ClipCardProduct clipCard = new ClipCardProduct("Klippekort", "andet", null, 10);
+		pricelist.setPrice(clipCard, 200);
+		long issued = ledger.getIssuedClips();
+		long redeemed = ledger.getRedeemedClips();
+
+		Order sale = service.createOrder(user, pricelist);
+		sale.addProduct(clipCard);
+		service.createPayments(sale,
+				Arrays.asList(new PaymentSpec(PaymentType.CASH, 200)));
+
+		assertEquals(issued + 10, ledger.getIssuedClips());
+
+		Order use = service.createOrder(user, pricelist);
+		use.addProduct(beer);
+		service.createPayment(use, 2, PaymentType.CLIP_CARD);
+
+		assertEquals(redeemed + 2, ledger.getRedeemedClips());
+	}
+
+	@Test
+	public void closeDaySealsOrders() {
+		LocalDate day = LocalDate.of(2010, 3, 4);
+		Order first = new Order(user, pricelist, day.atTime(13, 0));
+		first.addProduct(beer);
+		Order second = new Order(user, pricelist, day.atTime(20, 30));
+		second.addProduct(beer).setAmount(3);
+		Order unpaid = new Order(user, pricelist, day.plusDays(1).atTime(21, 0));
+		unpaid.addProduct(beer);
+		Storage.getInstance().addOrder(first);
+		Storage.getInstance().addOrder(second);
+		Storage.getInstance().addOrder(unpaid);
+		service.createPayments(first, Arrays.asList(new PaymentSpec(PaymentType.CASH, 50)));
+		service.createPayments(second,
+				Arrays.asList(new PaymentSpec(PaymentType.CREDIT_CARD, 150)));
+
+		ZReport report = service.closeDay(day);
+
+		assertSame(report, service.getZReport(day));
+		assertEquals(2, report.getOrderCount());
+		assertEquals(50, report.getPayments(PaymentType.CASH), 0.01);
+		assertEquals(150, report.getPayments(PaymentType.CREDIT_CARD), 0.01);
+		assertEquals(20000L, (long) report.getSalesPrPricelistOre().get(pricelist.getName()));
+		assertEquals(200, service.getDayReport(day).getTotalSales(), 0.01);
+		assertEquals(200, service.getSalesReport(day.atStartOfDay(),
+				day.plusDays(1).atStartOfDay()).getTotalSales(), 0.01);
+		assertTrue(first.isSealed());
+		assertFalse(unpaid.isSealed());
+	}
+
+	@Test(expected = DayCloseException.class)
+	public void closeDayTwice() {
+		LocalDate day = LocalDate.of(2010, 3, 7);
+
+		service.closeDay(day);
+		service.closeDay(day);
+	}
+
+	@Test
+	public void closeDayWithUnpaidOrder() {
+		LocalDate day = LocalDate.of(2010, 3, 6);
+		Order unpaid = new Order(user, pricelist, day.atTime(12, 0));
+		unpaid.addProduct(beer);
+		Storage.getInstance().addOrder(unpaid);
+
+		try {
+			service.closeDay(day);
+		} catch (DayCloseException e) {
+			// Expected, the unpaid order has to be paid or removed first
+		}
+
+		assertNull(service.getZReport(day));
+		assertFalse(unpaid.isSealed());
+	}
+
+	@Test
+	public void createPaymentsRollsBackTooManyClips() {
+		Order stored = service.createOrder(user, pricelist);
+		stored.addProduct(beer);
+
+		try {
+			service.createPayments(stored,
+					Arrays.asList(new PaymentSpec(PaymentType.CLIP_CARD, 3)));
+		} catch (InvalidPaymentAmount e) {
+			// Expected, the order only takes 2 clips
+		}
+
+		assertTrue(stored.getPayments().isEmpty());
+		assertEquals(PaymentStatus.UNPAID, stored.paymentStatus());
+	}
+
+	@Test
+	public void rentalOutOnceDepositPaid() {
+		DepositProduct keg = new DepositProduct("Fustage", null, "fustage", null, 200);
+		pricelist.setPrice(keg, 500);
+		Order rental = service.createOrder(user, pricelist);
+		service.createRentalProductOrder(rental, keg);
+
+		assertEquals(0, service.getDepositInventory().getUnitsOut(keg));
+
+		service.createPayments(rental, Arrays.asList(new PaymentSpec(PaymentType.CASH, 200)));
+
+		assertEquals(1, service.getDepositInventory().getUnitsOut(keg));
+	}
+}
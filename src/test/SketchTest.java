@@ -0,0 +1,115 @@
+package test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import org.junit.Test;
+
+import model.Customer;
+import model.HyperLogLog;
+import model.Order;
+import model.Permission;
+import model.Pricelist;
+import model.Product;
+import model.QuantileSketch;
+import model.Statistics;
+import model.StatisticsReport;
+import model.User;
+
+public class SketchTest {
+
+	@Test
+	public void hyperLogLogExactWhenSmall() {
+		HyperLogLog sketch = new HyperLogLog();
+
+		for (int i = 0; i < 100; i++) {
+			sketch.add(HyperLogLog.hash(i % 50));
+		}
+
+		assertEquals(50, sketch.estimate());
+	}
+
+	@Test
+	public void hyperLogLogEstimateWithinBounds() {
+		HyperLogLog first = new HyperLogLog();
+		HyperLogLog second = new HyperLogLog();
+
+		for (int i = 0; i < 60000; i++) {
+			first.add(HyperLogLog.hash(i));
+			second.add(HyperLogLog.hash(i + 40000));
+		}
+
+		first.merge(second);
+
+		long estimate = first.estimate();
+		assertTrue(estimate + " should be near 100000",
+				Math.abs(estimate - 100000) < 10000);
+	}
+
+	@Test
+	public void quantilesWithinAccuracy() {
+		QuantileSketch sketch = new QuantileSketch();
+		double[] values = new double[10001];
+		Random random = new Random(44);
+
+		for (int i = 0; i < values.length; i++) {
+			values[i] = 1 + random.nextInt(100000);
+			sketch.add(values[i]);
+		}
+
+		Arrays.sort(values);
+
+		for (double q : new double[] { 0.1, 0.5, 0.9, 0.99 }) {
+			double expected = values[(int) (q * (values.length - 1))];
+			assertEquals(expected, sketch.quantile(q), expected * 0.011);
+		}
+	}
+
+	@Test
+	public void quantileSketchSubtract() {
+		QuantileSketch all = new QuantileSketch();
+		QuantileSketch large = new QuantileSketch();
+
+		for (int i = 1; i <= 10; i++) {
+			all.add(i);
+		}
+		for (int i = 1000; i <= 1010; i++) {
+			large.add(i);
+		}
+
+		all.merge(large);
+		all.subtract(large);
+
+		assertEquals(10, all.getCount());
+		assertEquals(10, all.quantile(1), 0.1);
+	}
+
+	@Test
+	public void reportHasCustomersAndBaskets() {
+		User user = new User("test", "test", "test", Permission.NORMAL);
+		Pricelist pricelist = new Pricelist("test");
+		Product beer = new Product("Beer", 1, "fadøl", null);
+		pricelist.setPrice(beer, 30);
+		Customer alice = new Customer("Alice", "", "", "");
+		Customer bob = new Customer("Bob", "", "", "");
+
+		Order first = new Order(user, pricelist);
+		first.addProduct(beer);
+		first.setCustomer(alice);
+		Order second = new Order(user, pricelist);
+		second.addProduct(beer).setAmount(3);
+		second.setCustomer(alice);
+		Order third = new Order(user, pricelist);
+		third.addProduct(beer).setAmount(5);
+		third.setCustomer(bob);
+
+		StatisticsReport report = Statistics.report(Arrays.asList(first, second, third));
+
+		assertEquals(2, report.getDistinctCustomers());
+		assertEquals(90, report.getOrderTotalQuantile(0.5), 1);
+		assertEquals(1, report.getLineCountQuantile(0.5));
+	}
+}
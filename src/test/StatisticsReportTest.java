@@ -0,0 +1,179 @@
+package test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Test;
+
+import model.Customer;
+import model.DepositProduct;
+import model.Order;
+import model.Payment;
+import model.PaymentType;
+import model.Permission;
+import model.Pricelist;
+import model.Product;
+import model.SalesAggregate;
+import model.Statistics;
+import model.StatisticsReport;
+import model.User;
+
+public class StatisticsReportTest {
+	final User alice;
+	final User bob;
+	final Pricelist shop;
+	final Pricelist bar;
+	final Product klosterbryg;
+	final Product klosterbrygBottle;
+	final Product clipCard;
+	final DepositProduct keg;
+	final Order order1;
+	final Order order2;
+	final Order order3;
+
+	public StatisticsReportTest() {
+		alice = new User("Alice", "alice", "test", Permission.NORMAL);
+		bob = new User("Bob", "bob", "test", Permission.NORMAL);
+		shop = new Pricelist("Butik");
+		bar = new Pricelist("Bar");
+
+		klosterbryg = new Product("Klosterbryg, fad", 1, "fadøl", null);
+		klosterbrygBottle = new Product("Klosterbryg", 1, "flaske", null);
+		clipCard = new Product("Klippekort, 4 klip", null, "klippekort", null);
+		keg = new DepositProduct("Klosterbryg, 20 liter", null, "fustage", null, 200);
+
+		shop.setPrice(klosterbrygBottle, 36);
+		shop.setPrice(clipCard, 100);
+		shop.setPrice(keg, 775);
+		bar.setPrice(klosterbryg, 30);
+
+		order1 = new Order(alice, shop);
+		order1.addProduct(klosterbrygBottle).setAmount(2);
+		order1.addProduct(clipCard);
+
+		order2 = new Order(bob, bar);
+		order2.addProduct(klosterbryg).setAmount(3);
+		order2.pay(new Payment(PaymentType.CLIP_CARD, 2));
+
+		order3 = new Order(alice, shop);
+		order3.addProduct(keg);
+	}
+
+	@Test
+	public void reportSumsAllMetrics() {
+		StatisticsReport report = Statistics
+				.report(Arrays.asList(order1, order2, order3));
+
+		assertEquals(172 + 775, report.getSalesPrPricelist().get(shop), 0.001);
+		assertEquals(90, report.getSalesPrPricelist().get(bar), 0.001);
+		assertEquals(172 + 775, report.getSalesPrUser().get(alice), 0.001);
+		assertEquals(90, report.getSalesPrUser().get(bob), 0.001);
+		assertEquals(172 + 90 + 775, report.getTotalSales(), 0.001);
+		assertEquals(100, report.getClipCardSales(), 0.001);
+		assertEquals(2, report.getClipCardUses());
+	}
+
+	@Test
+	public void reportGroupsBeerByName() {
+		StatisticsReport report = Statistics
+				.report(Arrays.asList(order1, order2, order3));
+
+		// The bottles, the draught beer and the keg are all Klosterbryg
+		assertEquals(72 + 90 + 775, report.getSalesPrBeer().get("Klosterbryg"), 0.001);
+		assertEquals(1, report.getSalesPrBeer().size());
+	}
+
+	@Test
+	public void reportCategoriesSkipRentals() {
+		StatisticsReport report = Statistics
+				.report(Arrays.asList(order1, order2, order3));
+
+		assertEquals(72, report.getSalesPrCategory().get("flaske"), 0.001);
+		assertEquals(90, report.getSalesPrCategory().get("fadøl"), 0.001);
+		assertFalse(report.getSalesPrCategory().containsKey("fustage"));
+	}
+
+	@Test
+	public void mergeEqualsSinglePass() {
+		SalesAggregate first = new SalesAggregate();
+		first.add(order1);
+		SalesAggregate second = new SalesAggregate();
+		second.add(order2);
+		second.add(order3);
+		first.merge(second);
+
+		StatisticsReport merged = first.toReport();
+		StatisticsReport single = Statistics
+				.report(Arrays.asList(order1, order2, order3));
+
+		assertEquals(3, first.getOrderCount());
+		assertEquals(single.getTotalSalesOre(), merged.getTotalSalesOre());
+		assertEquals(single.getSalesPrPricelist(), merged.getSalesPrPricelist());
+		assertEquals(single.getSalesPrUser(), merged.getSalesPrUser());
+		assertEquals(single.getSalesPrBeer(), merged.getSalesPrBeer());
+		assertEquals(single.getSalesPrCategory(), merged.getSalesPrCategory());
+		assertEquals(single.getClipCardUses(), merged.getClipCardUses());
+	}
+
+	@Test
+	public void parallelEqualsSequential() {
+		List<Order> orders = new ArrayList<>();
+		SalesAggregate sequential = new SalesAggregate();
+
+		for (int i = 0; i < 5000; i++) {
+			Order order = new Order(i % 2 == 0 ? alice : bob, i % 3 == 0 ? bar : shop);
+
+			if (i % 3 == 0) {
+				order.addProduct(klosterbryg).setAmount(1 + i % 5);
+			} else {
+				order.addProduct(klosterbrygBottle).setAmount(1 + i % 4);
+				order.addProduct(clipCard);
+			}
+
+			orders.add(order);
+			sequential.add(order);
+		}
+
+		SalesAggregate parallel = SalesAggregate.of(orders);
+		StatisticsReport expected = sequential.toReport();
+		StatisticsReport actual = parallel.toReport();
+
+		assertEquals(5000, parallel.getOrderCount());
+		assertEquals(expected.getTotalSalesOre(), actual.getTotalSalesOre());
+		assertEquals(expected.getClipCardSalesOre(), actual.getClipCardSalesOre());
+		assertEquals(expected.getSalesPrPricelist(), actual.getSalesPrPricelist());
+		assertEquals(expected.getSalesPrUser(), actual.getSalesPrUser());
+		assertEquals(expected.getSalesPrBeer(), actual.getSalesPrBeer());
+		assertEquals(expected.getSalesPrCategory(), actual.getSalesPrCategory());
+	}
+
+	@Test
+	public void customerCountedOnceAfterReload() throws IOException, ClassNotFoundException {
+		Customer customer = new Customer("Carl", "Vej 1", "12345678", "carl@example.com");
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		try (ObjectOutputStream out = new ObjectOutputStream(bytes)) {
+			out.writeObject(customer);
+		}
+		Customer reloaded;
+		try (ObjectInputStream in = new ObjectInputStream(
+				new ByteArrayInputStream(bytes.toByteArray()))) {
+			reloaded = (Customer) in.readObject();
+		}
+
+		order1.setCustomer(customer);
+		order2.setCustomer(reloaded);
+		SalesAggregate aggregate = SalesAggregate.of(Arrays.asList(order1, order2));
+
+		assertEquals(customer.getId(), reloaded.getId());
+		assertEquals(1, aggregate.toReport().getDistinctCustomers());
+	}
+}
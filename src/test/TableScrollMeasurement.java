@@ -0,0 +1,117 @@
+package test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import gui.table.ButtonColumn;
+import gui.table.LabelColumn;
+import gui.table.PrimitiveColumn;
+import gui.table.Table;
+import javafx.animation.AnimationTimer;
+import javafx.application.Application;
+import javafx.application.Platform;
+import javafx.scene.Node;
+import javafx.scene.Parent;
+import javafx.scene.Scene;
+import javafx.scene.control.ScrollBar;
+import javafx.scene.control.ScrollPane;
+import javafx.scene.layout.HBox;
+import javafx.stage.Stage;
+
+/**
+ * Measures the scene graph nodes and the frame times of a table of 10000 rows
+ * while it is scrolled from top to bottom, plain and virtualized. It needs a
+ * display, so it is run by hand rather than with the tests:
+ * 
+ * java test.TableScrollMeasurement
+ */
+public class TableScrollMeasurement extends Application {
+	private static final int ROWS = 10000;
+	private static final int FRAMES = 600;
+
+	public static void main(String[] args) {
+		launch(args);
+	}
+
+	@Override
+	public void start(Stage stage) {
+		measure(stage, false, () -> measure(stage, true, Platform::exit));
+	}
+
+	private Table<Integer> table(boolean virtualized) {
+		Table<Integer> table = virtualized ? new Table<>(null, 30) : new Table<>(null);
+		table.addColumn(new LabelColumn<>("Nr", i -> "Række " + i));
+		table.addColumn(new PrimitiveColumn<>("Antal", PrimitiveColumn.Type.Integer,
+				i -> i, (i, v) -> {
+				}));
+		table.addColumn(new ButtonColumn<>("Slet", i -> {
+		}));
+
+		List<Integer> items = new ArrayList<>();
+		for (int i = 0; i < ROWS; i++) {
+			items.add(i);
+		}
+		table.setItems(items);
+		return table;
+	}
+
+	private void measure(Stage stage, boolean virtualized, Runnable then) {
+		long start = System.nanoTime();
+		Table<Integer> table = table(virtualized);
+		// Only the plain table is scrolled by a scroll pane
+		ScrollPane sp = virtualized ? null : new ScrollPane(table.getPane());
+		Parent root = virtualized ? table.getView() : sp;
+		stage.setScene(new Scene(root, 800, 600));
+		stage.show();
+		long built = System.nanoTime() - start;
+
+		// The scroll bar of a virtualized table is next to its pane
+		ScrollBar bar = virtualized
+				? (ScrollBar) ((HBox) table.getView()).getChildren().get(1) : null;
+
+		new AnimationTimer() {
+			int frame = 0;
+			long last = 0;
+			long total = 0;
+			long max = 0;
+
+			@Override
+			public void handle(long now) {
+				if (last != 0) {
+					long time = now - last;
+					total += time;
+					max = Math.max(max, time);
+				}
+				last = now;
+
+				double position = (double) frame / FRAMES;
+				if (virtualized) {
+					bar.setValue(position * bar.getMax());
+				} else {
+					sp.setVvalue(position);
+				}
+
+				if (++frame > FRAMES) {
+					stop();
+					System.out.printf("%s: %d nodes, built in %d ms, frames %.1f ms on"
+							+ " average, %.1f ms at most%n",
+							virtualized ? "virtualized" : "plain", count(root),
+							built / 1000000, total / 1e6 / FRAMES, max / 1e6);
+					then.run();
+				}
+			}
+		}.start();
+	}
+
+	private static int count(Node node) {
+		int count = 1;
+
+		if (node instanceof Parent) {
+			for (Node child : ((Parent) node).getChildrenUnmodifiable()) {
+				count += count(child);
+			}
+		}
+
+		return count;
+	}
+}